@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core;
+
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.DefaultClusterConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.config.parser.BucketConfigParser;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.env.DefaultCoreEnvironment;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.internal.AddServiceRequest;
+import com.couchbase.client.core.message.internal.EndpointHealth;
+import com.couchbase.client.core.message.internal.RemoveServiceRequest;
+import com.couchbase.client.core.message.internal.SignalFlush;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.node.Node;
+import com.couchbase.client.core.service.Service;
+import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.state.AbstractStateMachine;
+import com.couchbase.client.core.state.LifecycleState;
+import com.couchbase.client.core.util.Resources;
+import com.couchbase.client.core.utils.NetworkAddress;
+import com.couchbase.client.deps.com.lmax.disruptor.EventTranslatorOneArg;
+import com.couchbase.client.deps.com.lmax.disruptor.RingBuffer;
+import com.couchbase.client.deps.com.lmax.disruptor.dsl.Disruptor;
+import com.couchbase.client.deps.com.lmax.disruptor.dsl.ProducerType;
+import com.couchbase.client.deps.io.netty.util.concurrent.DefaultThreadFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.Observable;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the request hot path from the point a request is published onto the request
+ * ring buffer (like {@link CouchbaseCore#send(CouchbaseRequest)} does) through
+ * {@link RequestHandler#onEvent(RequestEvent, long, boolean)} down to the
+ * {@link com.couchbase.client.core.node.locate.KeyValueLocator} picking the node.
+ *
+ * The nodes are replaced with sinks, so no I/O is involved.
+ *
+ * @since 1.5.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequestHandlerBenchmark {
+
+    private static final String BUCKET = "default";
+
+    private static final EventTranslatorOneArg<RequestEvent, CouchbaseRequest> REQUEST_TRANSLATOR =
+        new EventTranslatorOneArg<RequestEvent, CouchbaseRequest>() {
+            @Override
+            public void translateTo(RequestEvent event, long sequence, CouchbaseRequest request) {
+                event.setRequest(request);
+            }
+        };
+
+    private CoreEnvironment environment;
+    private CopyOnWriteArrayList<Node> nodes;
+    private RequestHandler requestHandler;
+    private Disruptor<RequestEvent> requestDisruptor;
+    private RingBuffer<RequestEvent> requestRingBuffer;
+    private RequestEvent event;
+    private String[] keys;
+    private int nextKey;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        environment = DefaultCoreEnvironment.create();
+
+        CouchbaseBucketConfig bucketConfig = (CouchbaseBucketConfig) BucketConfigParser.parse(
+            Resources.couchbaseBucketConfig(), environment);
+        DefaultClusterConfig clusterConfig = new DefaultClusterConfig();
+        clusterConfig.setBucketConfig(BUCKET, bucketConfig);
+
+        nodes = new CopyOnWriteArrayList<Node>();
+        for (NodeInfo nodeInfo : bucketConfig.nodes()) {
+            nodes.add(new SinkNode(nodeInfo.hostname()));
+        }
+        requestHandler = new RequestHandler(nodes, environment, Observable.<ClusterConfig>just(clusterConfig), null);
+
+        requestDisruptor = new Disruptor<RequestEvent>(
+            new RequestEventFactory(),
+            environment.requestBufferSize(),
+            new DefaultThreadFactory("cb-core-benchmark", true),
+            ProducerType.MULTI,
+            environment.requestBufferWaitStrategy().newWaitStrategy()
+        );
+        requestDisruptor.handleEventsWith(requestHandler);
+        requestDisruptor.start();
+        requestRingBuffer = requestDisruptor.getRingBuffer();
+
+        event = new RequestEvent();
+        keys = new String[1024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "user::" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        requestDisruptor.shutdown();
+        environment.shutdown();
+    }
+
+    private String nextKey() {
+        String key = keys[nextKey];
+        nextKey = (nextKey + 1) & (keys.length - 1);
+        return key;
+    }
+
+    /**
+     * Dispatches a get directly on the calling thread, which isolates the handler and the locator.
+     */
+    @Benchmark
+    public void dispatch() throws Exception {
+        event.setRequest(new GetRequest(nextKey(), BUCKET));
+        requestHandler.onEvent(event, 0, false);
+    }
+
+    /**
+     * Publishes a get onto the request ring buffer, which includes the hand-off to the request handler thread.
+     */
+    @Benchmark
+    public void publish() {
+        requestRingBuffer.publishEvent(REQUEST_TRANSLATOR, new GetRequest(nextKey(), BUCKET));
+    }
+
+    /**
+     * A {@link Node} which only counts the requests it receives.
+     */
+    static class SinkNode extends AbstractStateMachine<LifecycleState> implements Node {
+
+        private final NetworkAddress hostname;
+        private final AtomicLong received = new AtomicLong();
+
+        SinkNode(final NetworkAddress hostname) {
+            super(LifecycleState.CONNECTED);
+            this.hostname = hostname;
+        }
+
+        @Override
+        public void send(final CouchbaseRequest request) {
+            if (request != SignalFlush.INSTANCE) {
+                received.lazySet(received.get() + 1);
+            }
+        }
+
+        @Override
+        public NetworkAddress hostname() {
+            return hostname;
+        }
+
+        @Override
+        public Observable<LifecycleState> connect() {
+            return Observable.just(LifecycleState.CONNECTED);
+        }
+
+        @Override
+        public Observable<LifecycleState> disconnect() {
+            return Observable.just(LifecycleState.DISCONNECTED);
+        }
+
+        @Override
+        public Observable<Service> addService(final AddServiceRequest request) {
+            return Observable.just((Service) null);
+        }
+
+        @Override
+        public Observable<Service> removeService(final RemoveServiceRequest request) {
+            return Observable.just((Service) null);
+        }
+
+        @Override
+        public boolean serviceEnabled(final ServiceType type) {
+            return true;
+        }
+
+        @Override
+        public Observable<EndpointHealth> healthCheck() {
+            return Observable.empty();
+        }
+    }
+}
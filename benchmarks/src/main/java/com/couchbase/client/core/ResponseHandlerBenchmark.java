@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core;
+
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.env.DefaultCoreEnvironment;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.functions.Action1;
+import rx.subjects.AsyncSubject;
+import rx.subjects.Subject;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures completing successful responses through the {@link ResponseHandler}, including the
+ * hand-off to the scheduler and the subscriber being called.
+ *
+ * Responses are handed in as batches like the response ring buffer would, with the last one
+ * flagged as the end of the batch.
+ *
+ * @since 1.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseHandlerBenchmark {
+
+    private static final int BATCH_SIZE = 64;
+    private static final String BUCKET = "default";
+
+    private CoreEnvironment environment;
+    private ResponseHandler responseHandler;
+    private ResponseEvent event;
+    private GetRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        environment = DefaultCoreEnvironment.create();
+        // the cluster and the config provider are only needed for retries and config reloads
+        responseHandler = new ResponseHandler(environment, null, null);
+        event = new ResponseEvent();
+        request = new GetRequest("key", BUCKET);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        environment.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void completeBatch() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        Action1<CouchbaseResponse> countDown = new Action1<CouchbaseResponse>() {
+            @Override
+            public void call(CouchbaseResponse response) {
+                latch.countDown();
+            }
+        };
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Subject<CouchbaseResponse, CouchbaseResponse> observable = AsyncSubject.create();
+            observable.subscribe(countDown);
+            event.setMessage(new GetResponse(ResponseStatus.SUCCESS, (short) 0, 0, 0, BUCKET,
+                Unpooled.EMPTY_BUFFER, request));
+            event.setObservable(observable);
+            responseHandler.onEvent(event, i, i == BATCH_SIZE - 1);
+        }
+        latch.await();
+    }
+}
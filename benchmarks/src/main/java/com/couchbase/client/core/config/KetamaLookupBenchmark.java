@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.config;
+
+import com.couchbase.client.core.config.parser.BucketConfigParser;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.env.DefaultCoreEnvironment;
+import com.couchbase.client.core.util.Resources;
+import com.couchbase.client.core.utils.NetworkAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures locating the node of a key in a memcached bucket through the ketama ring of the config
+ * against the former lookup on a {@link TreeMap} continuum with a new MD5 digest per key.
+ *
+ * @since 1.5.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KetamaLookupBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private CoreEnvironment environment;
+    private MemcachedBucketConfig config;
+    private TreeMap<Long, NodeInfo> continuum;
+    private byte[][] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        environment = DefaultCoreEnvironment.create();
+        config = (MemcachedBucketConfig) BucketConfigParser.parse(Resources.memcachedBucketConfig(), environment);
+        continuum = new TreeMap<Long, NodeInfo>(config.ketamaNodes());
+        keys = new byte[KEYS][];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = ("user::" + i).getBytes(Charset.forName("UTF-8"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        environment.shutdown();
+    }
+
+    @Benchmark
+    public NetworkAddress ring() {
+        return config.nodeForId(nextKey());
+    }
+
+    @Benchmark
+    public NetworkAddress continuum() throws NoSuchAlgorithmException {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        md5.update(nextKey());
+        byte[] digest = md5.digest();
+        long hash = (((long) (digest[3] & 0xFF) << 24)
+            | ((long) (digest[2] & 0xFF) << 16)
+            | ((long) (digest[1] & 0xFF) << 8)
+            | (digest[0] & 0xFF)) & 0xffffffffL;
+
+        if (!continuum.containsKey(hash)) {
+            SortedMap<Long, NodeInfo> tailMap = continuum.tailMap(hash);
+            hash = tailMap.isEmpty() ? continuum.firstKey() : tailMap.firstKey();
+        }
+        return continuum.get(hash).hostname();
+    }
+
+    private byte[] nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return keys[next];
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.kv;
+
+import com.couchbase.client.core.ResponseEvent;
+import com.couchbase.client.core.ResponseEventFactory;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.env.DefaultCoreEnvironment;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.GetResponse;
+import com.couchbase.client.deps.com.lmax.disruptor.RingBuffer;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.channel.embedded.EmbeddedChannel;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheRequest;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultFullBinaryMemcacheResponse;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.FullBinaryMemcacheResponse;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.functions.Action1;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full get round trip through the {@link KeyValueHandler}: encoding the request,
+ * decoding the response and completing the request observable.
+ *
+ * The handler runs inside an {@link EmbeddedChannel} and callbacks are completed on the
+ * calling thread, so the numbers reflect the codec only and not the I/O or scheduler hand-offs.
+ *
+ * @since 1.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeyValueHandlerBenchmark {
+
+    private static final String BUCKET = "default";
+    private static final String KEY = "user::1234";
+    private static final byte[] KEY_BYTES = KEY.getBytes(CharsetUtil.UTF_8);
+
+    @Param({"128", "4096"})
+    public int documentSize;
+
+    private CoreEnvironment environment;
+    private EmbeddedChannel channel;
+    private ByteBuf document;
+    private ByteBuf flags;
+
+    private static final Action1<CouchbaseResponse> RELEASE_CONTENT = new Action1<CouchbaseResponse>() {
+        @Override
+        public void call(CouchbaseResponse response) {
+            ((GetResponse) response).content().release();
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        environment = DefaultCoreEnvironment.builder().callbacksOnIoPool(true).build();
+        RingBuffer<ResponseEvent> responseBuffer = RingBuffer.createSingleProducer(new ResponseEventFactory(), 1024);
+        KeyValueEndpoint endpoint = new KeyValueEndpoint("127.0.0.1", BUCKET, "", 11210, environment, responseBuffer);
+        channel = new EmbeddedChannel(new KeyValueHandler(endpoint, responseBuffer, false, true));
+
+        char[] content = new char[documentSize];
+        Arrays.fill(content, 'x');
+        document = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(content, CharsetUtil.UTF_8));
+        flags = Unpooled.unreleasableBuffer(Unpooled.buffer(4).writeInt(0x02000000));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        channel.close().awaitUninterruptibly();
+        environment.shutdown();
+    }
+
+    @Benchmark
+    public void getRoundTrip() {
+        GetRequest request = new GetRequest(KEY, BUCKET);
+        request.partition((short) 512);
+        channel.writeOutbound(request);
+        BinaryMemcacheRequest encoded = (BinaryMemcacheRequest) channel.readOutbound();
+        encoded.release();
+
+        request.observable().subscribe(RELEASE_CONTENT);
+        channel.writeInbound(response(request));
+    }
+
+    private FullBinaryMemcacheResponse response(final GetRequest request) {
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(KEY_BYTES,
+            flags.duplicate(), document.duplicate());
+        response.setExtrasLength((byte) 4);
+        response.setTotalBodyLength(4 + KEY_BYTES.length + documentSize);
+        response.setOpaque(request.opaque());
+        response.setCAS(1234L);
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.util;
+
+import java.io.InputStream;
+
+/**
+ * Helper class to load the fixtures used by the benchmarks.
+ *
+ * @since 1.5.3
+ */
+public class Resources {
+
+    /**
+     * The name of a three node, 1024 partition couchbase bucket config with one replica.
+     */
+    public static final String COUCHBASE_BUCKET_CONFIG = "couchbase_bucket_config.json";
+
+    /**
+     * The name of a four node memcached bucket config, of which two nodes run the data service.
+     */
+    public static final String MEMCACHED_BUCKET_CONFIG = "memcached_bucket_config.json";
+
+    /**
+     * Reads a file from the resources folder (in the same path as the given class).
+     *
+     * @param filename the filename of the resource.
+     * @param clazz the reference class.
+     * @return the loaded string.
+     */
+    public static String read(final String filename, final Class<?> clazz) {
+        String path = "/" + clazz.getPackage().getName().replace(".", "/") + "/" + filename;
+        InputStream stream = clazz.getResourceAsStream(path);
+        if (stream == null) {
+            throw new IllegalArgumentException("Resource " + path + " not found.");
+        }
+        java.util.Scanner s = new java.util.Scanner(stream, "UTF-8").useDelimiter("\\A");
+        return s.hasNext() ? s.next() : "";
+    }
+
+    /**
+     * Reads the shared couchbase bucket config fixture.
+     *
+     * @return the raw config.
+     */
+    public static String couchbaseBucketConfig() {
+        return read(COUCHBASE_BUCKET_CONFIG, Resources.class);
+    }
+
+    /**
+     * Reads the shared memcached bucket config fixture.
+     *
+     * @return the raw config.
+     */
+    public static String memcachedBucketConfig() {
+        return read(MEMCACHED_BUCKET_CONFIG, Resources.class);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils.yasjl;
+
+import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.Unpooled;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ByteBufJsonParser} streaming the rows out of a query-like response,
+ * the same way the query handler does.
+ *
+ * @since 1.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ByteBufJsonParserBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    private ByteBuf response;
+    private ByteBufJsonParser parser;
+    private Blackhole blackhole;
+
+    @Setup(Level.Trial)
+    public void setup(final Blackhole blackhole) {
+        this.blackhole = blackhole;
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"requestID\":\"3f2b5e2a-4c5d-4e8f-9a1b-2c3d4e5f6a7b\",\"signature\":{\"*\":\"*\"},\"results\":[");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"default\":{\"id\":").append(i)
+                .append(",\"name\":\"user ").append(i)
+                .append("\",\"active\":").append(i % 2 == 0)
+                .append(",\"score\":").append(i * 1.5)
+                .append(",\"tags\":[\"a\",\"b\",\"c\"],\"address\":null}}");
+        }
+        json.append("],\"status\":\"success\",\"metrics\":{\"elapsedTime\":\"1.2ms\",\"resultCount\":")
+            .append(rows).append("}}");
+        response = Unpooled.unreleasableBuffer(Unpooled.copiedBuffer(json, CharsetUtil.UTF_8));
+
+        parser = new ByteBufJsonParser(new JsonPointer[] {
+            new JsonPointer("/results/-", new JsonPointerCB1() {
+                @Override
+                public void call(ByteBuf value) {
+                    ByteBufJsonParserBenchmark.this.blackhole.consume(value.readableBytes());
+                    value.release();
+                }
+            })
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        response = null;
+    }
+
+    @Benchmark
+    public void parseRows() throws Exception {
+        response.readerIndex(0);
+        parser.initialize(response);
+        parser.parse();
+    }
+}
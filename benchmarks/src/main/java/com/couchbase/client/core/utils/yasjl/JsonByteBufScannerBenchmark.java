@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils.yasjl;
+
+import com.couchbase.client.deps.io.netty.buffer.ByteBuf;
+import com.couchbase.client.deps.io.netty.buffer.PooledByteBufAllocator;
+import com.couchbase.client.deps.io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the word at a time {@link JsonByteBufScanner} against the byte by byte processors it
+ * replaced in the {@link ByteBufJsonParser}, finding the end of the results array of a N1QL response.
+ *
+ * @since 1.5.3
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonByteBufScannerBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    /**
+     * True if the rows are pretty printed, as done by the query service unless pretty=false is set.
+     */
+    @Param({"false", "true"})
+    public boolean pretty;
+
+    private ByteBuf results;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String indent = pretty ? "\n        " : "";
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(indent).append("{\"travel-sample\":{").append(indent)
+                .append("\"id\": ").append(i).append(',').append(indent)
+                .append("\"type\": \"airline\",").append(indent)
+                .append("\"name\": \"Airline \\\"").append(i).append("\\\"\",").append(indent)
+                .append("\"iata\": \"Q5\",").append(indent)
+                .append("\"callsign\": \"MILE-AIR\",").append(indent)
+                .append("\"country\": \"United States\",").append(indent)
+                .append("\"routes\": [\"SFO\", \"LAX\", \"JFK\"],").append(indent)
+                .append("\"description\": \"Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do ")
+                .append("eiusmod tempor incididunt ut labore et dolore magna aliqua.\"").append(indent)
+                .append("}}");
+        }
+        json.append(indent).append(']');
+        // the handlers accumulate the response content in a buffer of the channel allocator
+        results = PooledByteBufAllocator.DEFAULT.directBuffer();
+        results.writeBytes(json.toString().getBytes(CharsetUtil.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        results.release();
+    }
+
+    @Benchmark
+    public int processors() throws Exception {
+        return results.forEachByte(new JsonArrayByteBufProcessor(new JsonStringByteBufProcessor()));
+    }
+
+    @Benchmark
+    public int scanner() {
+        return JsonByteBufScanner.arrayEnd(results, results.readerIndex(), results.writerIndex());
+    }
+
+    @Benchmark
+    public int whitespaceProcessor() throws Exception {
+        return results.forEachByte(new JsonWhiteSpaceByteBufProcessor());
+    }
+
+    @Benchmark
+    public int whitespaceScanner() {
+        return JsonByteBufScanner.skipWhitespace(results, results.readerIndex(), results.writerIndex());
+    }
+}
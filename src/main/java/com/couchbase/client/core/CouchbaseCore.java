@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core;
 
+import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.ConfigurationProvider;
 import com.couchbase.client.core.config.DefaultConfigurationProvider;
@@ -51,6 +52,8 @@ import com.couchbase.client.core.message.internal.RemoveNodeRequest;
 import com.couchbase.client.core.message.internal.RemoveNodeResponse;
 import com.couchbase.client.core.message.internal.RemoveServiceRequest;
 import com.couchbase.client.core.message.internal.RemoveServiceResponse;
+import com.couchbase.client.core.message.kv.BinaryRequest;
+import com.couchbase.client.core.retry.RetryScheduler;
 import com.couchbase.client.core.service.Service;
 import com.couchbase.client.core.state.LifecycleState;
 import com.lmax.disruptor.EventTranslatorOneArg;
@@ -60,10 +63,13 @@ import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import rx.Observable;
+import rx.functions.Action1;
 import rx.functions.Func1;
 import rx.subjects.Subject;
 
+import java.util.List;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The general implementation of a {@link ClusterFacade}.
@@ -95,9 +101,9 @@ public class CouchbaseCore implements ClusterFacade {
     public static final BackpressureException BACKPRESSURE_EXCEPTION = new BackpressureException();
 
     /**
-     * The {@link RequestEvent} {@link RingBuffer}.
+     * The {@link RequestEvent} {@link RingBuffer}s, one per shard.
      */
-    private final RingBuffer<RequestEvent> requestRingBuffer;
+    private final RingBuffer<RequestEvent>[] requestRingBuffers;
 
     /**
      * The handler for all cluster nodes.
@@ -111,9 +117,14 @@ public class CouchbaseCore implements ClusterFacade {
 
     private final CoreEnvironment environment;
 
-    private final Disruptor<RequestEvent> requestDisruptor;
+    private final Disruptor<RequestEvent>[] requestDisruptors;
     private final Disruptor<ResponseEvent> responseDisruptor;
 
+    /**
+     * Schedules and re-dispatches the retried requests.
+     */
+    private final RetryScheduler retryScheduler;
+
     private volatile boolean sharedEnvironment = true;
     private final CouchbaseCoreSendHook coreSendHook;
 
@@ -135,6 +146,7 @@ public class CouchbaseCore implements ClusterFacade {
     /**
      * Creates a new {@link CouchbaseCore}.
      */
+    @SuppressWarnings("unchecked")
     public CouchbaseCore(final CoreEnvironment environment) {
         LOGGER.info(environment.toString());
         LOGGER.debug(Diagnostics.collectAndFormat());
@@ -164,19 +176,20 @@ public class CouchbaseCore implements ClusterFacade {
                 LOGGER.info("Exception while shutting down Response RingBuffer", ex);
             }
         });
-        responseDisruptor.handleEventsWith(new ResponseHandler(environment, this, configProvider));
+        retryScheduler = new RetryScheduler(RetryScheduler.DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS,
+            RetryScheduler.DEFAULT_WHEEL_SIZE,
+            new DefaultThreadFactory("cb-retry", true), new Action1<List<CouchbaseRequest>>() {
+                @Override
+                public void call(List<CouchbaseRequest> requests) {
+                    requestHandler.dispatchRetries(requests);
+                }
+            });
+        responseDisruptor.handleEventsWith(new ResponseHandler(environment, this, configProvider, retryScheduler));
         responseDisruptor.start();
         RingBuffer<ResponseEvent> responseRingBuffer = responseDisruptor.getRingBuffer();
 
-        requestDisruptor = new Disruptor<RequestEvent>(
-            new RequestEventFactory(),
-            environment.requestBufferSize(),
-            disruptorThreadFactory,
-            ProducerType.MULTI,
-            environment.requestBufferWaitStrategy().newWaitStrategy()
-        );
         requestHandler = new RequestHandler(environment, configProvider.configs(), responseRingBuffer);
-        requestDisruptor.setDefaultExceptionHandler(new ExceptionHandler<RequestEvent>() {
+        ExceptionHandler<RequestEvent> requestExceptionHandler = new ExceptionHandler<RequestEvent>() {
             @Override
             public void handleEventException(Throwable ex, long sequence, RequestEvent event) {
                 LOGGER.warn("Exception while Handling Request Events {}", event, ex);
@@ -191,10 +204,62 @@ public class CouchbaseCore implements ClusterFacade {
             public void handleOnShutdownException(Throwable ex) {
                 LOGGER.info("Exception while shutting down Request RingBuffer", ex);
             }
-        });
-        requestDisruptor.handleEventsWith(requestHandler);
-        requestDisruptor.start();
-        requestRingBuffer = requestDisruptor.getRingBuffer();
+        };
+
+        int shards = Math.max(1, environment.requestBufferShards());
+        requestDisruptors = new Disruptor[shards];
+        requestRingBuffers = new RingBuffer[shards];
+        for (int i = 0; i < shards; i++) {
+            Disruptor<RequestEvent> requestDisruptor = new Disruptor<RequestEvent>(
+                new RequestEventFactory(),
+                environment.requestBufferSize(),
+                disruptorThreadFactory,
+                ProducerType.MULTI,
+                environment.requestBufferWaitStrategy().newWaitStrategy()
+            );
+            requestDisruptor.setDefaultExceptionHandler(requestExceptionHandler);
+            requestDisruptor.handleEventsWith(requestHandler);
+            requestDisruptor.start();
+            requestDisruptors[i] = requestDisruptor;
+            requestRingBuffers[i] = requestDisruptor.getRingBuffer();
+        }
+    }
+
+    /**
+     * Returns the {@link RetryScheduler} of this core, which also keeps the retry counters.
+     *
+     * @return the retry scheduler.
+     */
+    @InterfaceAudience.Private
+    public RetryScheduler retryScheduler() {
+        return retryScheduler;
+    }
+
+    /**
+     * Returns the request {@link RingBuffer} the given request should be published onto.
+     *
+     * Key/value requests are routed by their key, so that all operations on the same document go through
+     * the same ring buffer and keep their order (also when retried). All other requests are routed by the
+     * calling thread, which keeps the order of requests issued from one thread.
+     *
+     * @param request the request to route.
+     * @return the ring buffer for the request.
+     */
+    RingBuffer<RequestEvent> requestRingBuffer(final CouchbaseRequest request) {
+        int shards = requestRingBuffers.length;
+        if (shards == 1) {
+            return requestRingBuffers[0];
+        }
+
+        int hash;
+        String key = request instanceof BinaryRequest ? ((BinaryRequest) request).key() : null;
+        if (key != null) {
+            hash = key.hashCode();
+            hash ^= hash >>> 16;
+        } else {
+            hash = (int) Thread.currentThread().getId();
+        }
+        return requestRingBuffers[(hash & Integer.MAX_VALUE) % shards];
     }
 
     @Override
@@ -208,7 +273,7 @@ public class CouchbaseCore implements ClusterFacade {
             return (Observable<R>) request.observable().observeOn(environment.scheduler());
         } else {
             if (coreSendHook == null) {
-                boolean published = requestRingBuffer.tryPublishEvent(REQUEST_TRANSLATOR, request);
+                boolean published = requestRingBuffer(request).tryPublishEvent(REQUEST_TRANSLATOR, request);
                 if (!published) {
                     request.observable().onError(BACKPRESSURE_EXCEPTION);
                 }
@@ -217,7 +282,8 @@ public class CouchbaseCore implements ClusterFacade {
                 Subject<CouchbaseResponse, CouchbaseResponse> response = request.observable();
                 Tuple2<CouchbaseRequest, Observable<CouchbaseResponse>> hook = coreSendHook
                         .beforeSend(request, response);
-                boolean published = requestRingBuffer.tryPublishEvent(REQUEST_TRANSLATOR, hook.value1());
+                CouchbaseRequest hookedRequest = hook.value1();
+                boolean published = requestRingBuffer(hookedRequest).tryPublishEvent(REQUEST_TRANSLATOR, hookedRequest);
                 if (!published) {
                     response.onError(BACKPRESSURE_EXCEPTION);
                 }
@@ -292,8 +358,11 @@ public class CouchbaseCore implements ClusterFacade {
                 }).map(new Func1<Boolean, Boolean>() {
                     @Override
                     public Boolean call(Boolean success) {
-                        requestDisruptor.shutdown();
+                        for (Disruptor<RequestEvent> requestDisruptor : requestDisruptors) {
+                            requestDisruptor.shutdown();
+                        }
                         responseDisruptor.shutdown();
+                        retryScheduler.shutdown();
                         return success;
                     }
                 })
@@ -18,6 +18,7 @@ package com.couchbase.client.core;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.endpoint.DirtyEndpoints;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.event.EventBus;
 import com.couchbase.client.core.event.system.ConfigUpdatedEvent;
@@ -33,7 +34,6 @@ import com.couchbase.client.core.message.internal.HealthCheckRequest;
 import com.couchbase.client.core.message.internal.HealthCheckResponse;
 import com.couchbase.client.core.message.internal.RemoveServiceRequest;
 import com.couchbase.client.core.message.internal.ServicesHealth;
-import com.couchbase.client.core.message.internal.SignalFlush;
 import com.couchbase.client.core.message.kv.BinaryRequest;
 import com.couchbase.client.core.message.query.QueryRequest;
 import com.couchbase.client.core.message.search.SearchRequest;
@@ -63,6 +63,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
 
 import static com.couchbase.client.core.utils.Observables.failSafe;
 
@@ -71,6 +72,10 @@ import static com.couchbase.client.core.utils.Observables.failSafe;
  * {@link Service} management operations. Its main purpose though is to receive incoming {@link CouchbaseRequest}s
  * and dispatch them to the appropriate {@link Node}s.
  *
+ * If more than one request ring buffer is configured (see {@link CoreEnvironment#requestBufferShards()}), the
+ * same handler consumes all of them, so dispatching happens concurrently from multiple threads while the
+ * configuration, the nodes and the locators are shared.
+ *
  * @author Michael Nitschinger
  * @since 1.0
  */
@@ -84,7 +89,7 @@ public class RequestHandler implements EventHandler<RequestEvent> {
     /**
      * The node locator for the binary service.
      */
-    private final Locator binaryLocator = new KeyValueLocator();
+    private final KeyValueLocator binaryLocator = new KeyValueLocator();
 
     /**
      * The node locator for the view service.
@@ -164,6 +169,7 @@ public class RequestHandler implements EventHandler<RequestEvent> {
                 try {
                     LOGGER.debug("Got notified of a new configuration arriving.");
                     configuration = config;
+                    updateRoutingTables();
                     reconfigure(config).subscribe(new Subscriber<ClusterConfig>() {
                         @Override
                         public void onCompleted() {}
@@ -197,23 +203,38 @@ public class RequestHandler implements EventHandler<RequestEvent> {
 
     @Override
     public void onEvent(final RequestEvent event, final long sequence, final boolean endOfBatch) throws Exception {
+        // one handler is shared by all request shards, so the dirty endpoints are looked up per consuming thread
+        DirtyEndpoints dirty = DirtyEndpoints.forCurrentThread();
         try {
             dispatchRequest(event.getRequest());
         } finally {
             event.setRequest(null);
-            if (endOfBatch && nodes != null) {
-                flush();
+            if (endOfBatch) {
+                dirty.flush();
             }
         }
     }
 
     /**
-     * Helper method to send the flush signal to all of the nodes available.
+     * Dispatches a batch of retried requests directly to the nodes and flushes once afterwards.
+     *
+     * This is called from the {@link com.couchbase.client.core.retry.RetryScheduler} and bypasses the request
+     * ring buffer, since the requests already went through it once.
+     *
+     * @param requests the requests to dispatch.
      */
-    private void flush() {
-        for (Node node : nodes) {
-            node.send(SignalFlush.INSTANCE);
+    public void dispatchRetries(final List<CouchbaseRequest> requests) {
+        DirtyEndpoints dirty = DirtyEndpoints.forCurrentThread();
+        for (int i = 0; i < requests.size(); i++) {
+            CouchbaseRequest request = requests.get(i);
+            try {
+                dispatchRequest(request);
+            } catch (Exception ex) {
+                LOGGER.warn("Exception while dispatching retried request {}", request, ex);
+                failSafe(environment.scheduler(), true, request.observable(), ex);
+            }
         }
+        dirty.flush();
     }
 
     /**
@@ -247,6 +268,12 @@ public class RequestHandler implements EventHandler<RequestEvent> {
             }
         }
 
+        if (request.isExpired()) {
+            failSafe(environment.scheduler(), true, request.observable(),
+                new TimeoutException("Deadline of the request passed before it was dispatched."));
+            return;
+        }
+
         locator(request).locateAndDispatch(request, nodes, config, environment, responseBuffer);
     }
 
@@ -311,6 +338,7 @@ public class RequestHandler implements EventHandler<RequestEvent> {
             public LifecycleState call(LifecycleState lifecycleState) {
                 LOGGER.debug("Connect finished, registering for use.");
                 nodes.addIfAbsent(node);
+                updateRoutingTables();
                 return lifecycleState;
             }
         });
@@ -335,9 +363,18 @@ public class RequestHandler implements EventHandler<RequestEvent> {
     Observable<LifecycleState> removeNode(final Node node) {
         LOGGER.debug("Got instructed to remove Node {}", node.hostname());
         nodes.remove(node);
+        updateRoutingTables();
         return node.disconnect();
     }
 
+    /**
+     * Helper method to rebuild the precomputed key/value routing tables once the configuration
+     * or the list of nodes changed.
+     */
+    private void updateRoutingTables() {
+        binaryLocator.updateRoutingTables(configuration, nodes);
+    }
+
     /**
      * Add the service to the node.
      *
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.env.CoreScheduler;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import rx.Scheduler;
+import rx.functions.Action0;
+import rx.subjects.Subject;
+
+import java.util.Arrays;
+
+/**
+ * Collects successful responses together with their observables so that they can be completed
+ * on the scheduler with a single task, instead of one task per response.
+ *
+ * A batch is filled by one thread and, once dispatched, owned by the scheduler thread which completes
+ * it. It must not be modified after {@link #dispatch(Scheduler)} has been called.
+ *
+ * @since 1.5.3
+ */
+@InterfaceAudience.Private
+public final class ResponseBatch implements Action0 {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(ResponseBatch.class);
+
+    /**
+     * The maximum number of responses in one batch, so that a long batch does not delay the first
+     * responses in it for too long.
+     */
+    public static final int MAX_SIZE = 128;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private CouchbaseResponse[] responses;
+    private Subject<CouchbaseResponse, CouchbaseResponse>[] observables;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public ResponseBatch() {
+        responses = new CouchbaseResponse[INITIAL_CAPACITY];
+        observables = new Subject[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds a response and the observable it should complete to this batch.
+     *
+     * @param response the response.
+     * @param observable the observable to complete.
+     * @return true if the batch is full and should be dispatched.
+     */
+    public boolean add(final CouchbaseResponse response, final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        if (size == responses.length) {
+            responses = Arrays.copyOf(responses, size << 1);
+            observables = Arrays.copyOf(observables, size << 1);
+        }
+        responses[size] = response;
+        observables[size] = observable;
+        return ++size >= MAX_SIZE;
+    }
+
+    /**
+     * Returns the number of responses in this batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hands this batch to the given scheduler, which completes all responses in one task.
+     *
+     * @param scheduler the scheduler to complete the responses on.
+     */
+    public void dispatch(final Scheduler scheduler) {
+        if (scheduler instanceof CoreScheduler) {
+            ((CoreScheduler) scheduler).scheduleDirect(this);
+        } else {
+            final Scheduler.Worker worker = scheduler.createWorker();
+            worker.schedule(new Action0() {
+                @Override
+                public void call() {
+                    try {
+                        ResponseBatch.this.call();
+                    } finally {
+                        worker.unsubscribe();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Completes all observables in this batch with their responses.
+     */
+    @Override
+    public void call() {
+        for (int i = 0; i < size; i++) {
+            Subject<CouchbaseResponse, CouchbaseResponse> observable = observables[i];
+            try {
+                observable.onNext(responses[i]);
+                observable.onCompleted();
+            } catch (Exception ex) {
+                LOGGER.warn("Caught exception while onNext on observable", ex);
+                observable.onError(ex);
+            }
+            responses[i] = null;
+            observables[i] = null;
+        }
+        size = 0;
+    }
+}
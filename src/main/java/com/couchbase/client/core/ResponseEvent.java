@@ -17,6 +17,7 @@ package com.couchbase.client.core;
 
 import com.couchbase.client.core.message.CouchbaseMessage;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.retry.RetryReason;
 import rx.subjects.Subject;
 
 /**
@@ -34,6 +35,11 @@ public class ResponseEvent {
 
     private Subject<CouchbaseResponse, CouchbaseResponse> observable;
 
+    /**
+     * The reason if the message is a request sent back for retry, null otherwise.
+     */
+    private RetryReason retryReason;
+
     /**
      * Set the new response as a payload for this event.
      *
@@ -63,11 +69,23 @@ public class ResponseEvent {
         return this;
     }
 
+    public RetryReason getRetryReason() {
+        return retryReason;
+    }
+
+    public ResponseEvent setRetryReason(final RetryReason retryReason) {
+        this.retryReason = retryReason;
+        return this;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("ResponseEvent{");
         sb.append("message=").append(message);
         sb.append(", observable=").append(observable);
+        if (retryReason != null) {
+            sb.append(", retryReason=").append(retryReason);
+        }
         sb.append('}');
         return sb.toString();
     }
@@ -25,8 +25,12 @@ import com.couchbase.client.core.message.CouchbaseMessage;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.internal.SignalClustermapChange;
+import com.couchbase.client.core.message.internal.SignalClustermapNotifications;
 import com.couchbase.client.core.message.internal.SignalConfigReload;
 import com.couchbase.client.core.message.kv.BinaryResponse;
+import com.couchbase.client.core.retry.RetryReason;
+import com.couchbase.client.core.retry.RetryScheduler;
 import com.couchbase.client.core.time.Delay;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventTranslatorTwoArg;
@@ -46,6 +50,17 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
     private final CoreEnvironment environment;
     private final boolean traceLoggingEnabled;
     private final int nmvbRetryDelay;
+    private final boolean batchResponses;
+
+    /**
+     * Schedules the retries if set, otherwise each retry is scheduled on its own scheduler worker.
+     */
+    private final RetryScheduler retryScheduler;
+
+    /**
+     * The batch of successful responses collected since the last end of batch, null if none.
+     */
+    private ResponseBatch responseBatch;
 
     /**
      * Creates a new {@link ResponseHandler}.
@@ -55,11 +70,26 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
      * @param provider th configuration provider.
      */
     public ResponseHandler(CoreEnvironment environment, ClusterFacade cluster, ConfigurationProvider provider) {
+        this(environment, cluster, provider, null);
+    }
+
+    /**
+     * Creates a new {@link ResponseHandler} which schedules retries on the given {@link RetryScheduler}.
+     *
+     * @param environment the global environment.
+     * @param cluster the cluster reference.
+     * @param provider th configuration provider.
+     * @param retryScheduler the scheduler for retries, null to use scheduler workers.
+     */
+    public ResponseHandler(CoreEnvironment environment, ClusterFacade cluster, ConfigurationProvider provider,
+        RetryScheduler retryScheduler) {
+        this.retryScheduler = retryScheduler;
         this.cluster = cluster;
         this.configurationProvider = provider;
         this.environment = environment;
         this.nmvbRetryDelay = Integer.parseInt(System.getProperty("com.couchbase.nmvbRetryDelay", "100"));
         traceLoggingEnabled = LOGGER.isTraceEnabled();
+        batchResponses = environment.responseBatchingEnabled();
     }
 
     /**
@@ -76,6 +106,20 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
             }
         };
 
+    /**
+     * Translates {@link CouchbaseRequest}s which need to be retried into {@link ResponseEvent}s.
+     */
+    public static final EventTranslatorTwoArg<ResponseEvent, CouchbaseRequest, RetryReason> RETRY_TRANSLATOR =
+        new EventTranslatorTwoArg<ResponseEvent, CouchbaseRequest, RetryReason>() {
+            @Override
+            public void translateTo(ResponseEvent event, long sequence, CouchbaseRequest request,
+                RetryReason reason) {
+                event.setMessage(request);
+                event.setObservable(request.observable());
+                event.setRetryReason(reason);
+            }
+        };
+
     /**
      * Handles {@link ResponseEvent}s that come into the response RingBuffer.
      *
@@ -95,11 +139,28 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
             CouchbaseMessage message = event.getMessage();
             if (message instanceof SignalConfigReload) {
                 configurationProvider.signalOutdated();
+            } else if (message instanceof SignalClustermapChange) {
+                SignalClustermapChange change = (SignalClustermapChange) message;
+                try {
+                    configurationProvider.proposeBucketConfig(change.bucket(), change.config());
+                } catch (Exception ex) {
+                    LOGGER.warn("Could not apply the config pushed for bucket \"{}\".", change.bucket(), ex);
+                }
+            } else if (message instanceof SignalClustermapNotifications) {
+                SignalClustermapNotifications signal = (SignalClustermapNotifications) message;
+                configurationProvider.signalClustermapNotifications(signal.bucket(), signal.enabled());
             } else if (message instanceof CouchbaseResponse) {
                 final CouchbaseResponse response = (CouchbaseResponse) message;
                 ResponseStatus status = response.status();
                 if (status == ResponseStatus.RETRY) {
-                    retry(event, true);
+                    retry(event, RetryReason.NOT_MY_VBUCKET);
+                } else if (batchResponses) {
+                    if (responseBatch == null) {
+                        responseBatch = new ResponseBatch();
+                    }
+                    if (responseBatch.add(response, event.getObservable())) {
+                        dispatchResponseBatch();
+                    }
                 } else {
                     final Scheduler.Worker worker = environment.scheduler().createWorker();
                     final Subject<CouchbaseResponse, CouchbaseResponse> obs = event.getObservable();
@@ -118,25 +179,38 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
                     });
                 }
             } else if (message instanceof CouchbaseRequest) {
-                retry(event, false);
+                RetryReason reason = event.getRetryReason();
+                retry(event, reason == null ? RetryReason.NOT_CONNECTED : reason);
             } else {
                 throw new IllegalStateException("Got message type I do not understand: " + message);
             }
         } finally {
            event.setMessage(null);
            event.setObservable(null);
+           event.setRetryReason(null);
+           if (endOfBatch && responseBatch != null) {
+               dispatchResponseBatch();
+           }
         }
     }
 
-    private void retry(final ResponseEvent event, final boolean isNotMyVbucket) {
+    /**
+     * Hands the current batch of successful responses to the scheduler to be completed.
+     */
+    private void dispatchResponseBatch() {
+        responseBatch.dispatch(environment.scheduler());
+        responseBatch = null;
+    }
+
+    private void retry(final ResponseEvent event, final RetryReason reason) {
         final CouchbaseMessage message = event.getMessage();
         if (message instanceof CouchbaseRequest) {
-            scheduleForRetry((CouchbaseRequest) message, isNotMyVbucket);
+            scheduleForRetry((CouchbaseRequest) message, reason);
         } else {
 
             CouchbaseRequest request = ((CouchbaseResponse) message).request();
             if (request != null) {
-                scheduleForRetry(request, isNotMyVbucket);
+                scheduleForRetry(request, reason);
             } else {
                 event.getObservable().onError(new CouchbaseException("Operation failed because it does not "
                     + "support cloning."));
@@ -160,9 +234,14 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
     /**
      * Helper method which schedules the given {@link CouchbaseRequest} with a delay for further retry.
      *
+     * If a {@link RetryScheduler} is set, the request is put on its wheel and dispatched directly from there,
+     * otherwise a scheduler worker sends it through the request ring buffer again.
+     *
      * @param request the request to retry.
+     * @param reason the reason for the retry.
      */
-    private void scheduleForRetry(final CouchbaseRequest request, final boolean isNotMyVbucket) {
+    private void scheduleForRetry(final CouchbaseRequest request, final RetryReason reason) {
+        boolean isNotMyVbucket = reason == RetryReason.NOT_MY_VBUCKET;
         CoreEnvironment env = environment;
         long delayTime;
         TimeUnit delayUnit;
@@ -197,6 +276,11 @@ public class ResponseHandler implements EventHandler<ResponseEvent> {
             LOGGER.trace("Retrying {} with a delay of {} {}", request, delayTime, delayUnit);
         }
 
+        if (retryScheduler != null) {
+            retryScheduler.schedule(request, delayTime, delayUnit, reason);
+            return;
+        }
+
         final Scheduler.Worker worker = env.scheduler().createWorker();
         worker.schedule(new Action0() {
             @Override
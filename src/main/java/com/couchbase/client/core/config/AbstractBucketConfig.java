@@ -37,6 +37,11 @@ public abstract class AbstractBucketConfig implements BucketConfig {
     private final int enabledServices;
     private final List<BucketCapabilities> bucketCapabilities;
 
+    /**
+     * The raw JSON this config has been parsed from, only kept if configs are persisted.
+     */
+    private volatile String raw;
+
     protected AbstractBucketConfig(String name, BucketNodeLocator locator, String uri, String streamingUri,
         List<NodeInfo> nodeInfos, List<PortInfo> portInfos, List<BucketCapabilities> bucketCapabilities) {
         this.name = name;
@@ -140,6 +145,26 @@ public abstract class AbstractBucketConfig implements BucketConfig {
         return this;
     }
 
+    /**
+     * Returns the raw JSON this config has been parsed from.
+     *
+     * @return the raw config or null if not kept.
+     */
+    public String raw() {
+        return raw;
+    }
+
+    /**
+     * Sets the raw JSON this config has been parsed from, so that it can be persisted as it is.
+     *
+     * @param raw the raw config.
+     * @return this config for chaining purposes.
+     */
+    public AbstractBucketConfig raw(final String raw) {
+        this.raw = raw;
+        return this;
+    }
+
     @Override
     public boolean serviceEnabled(ServiceType type) {
         return (enabledServices & (1 << type.ordinal())) != 0;
@@ -82,4 +82,13 @@ public interface ConfigurationProvider {
     void proposeBucketConfig(String bucket, String config);
 
     void signalOutdated();
+
+    /**
+     * Signals that a KV connection of the given bucket started or stopped to receive clustermap
+     * change notifications pushed by the server.
+     *
+     * @param bucket the name of the bucket.
+     * @param enabled true if a connection negotiated notifications, false if such a connection is gone.
+     */
+    void signalClustermapNotifications(String bucket, boolean enabled);
 }
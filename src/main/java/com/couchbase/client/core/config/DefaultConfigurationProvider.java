@@ -32,11 +32,13 @@ import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.utils.NetworkAddress;
 import rx.Observable;
+import rx.functions.Action0;
 import rx.functions.Action1;
 import rx.functions.Func1;
 import rx.subjects.PublishSubject;
 import rx.subjects.Subject;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -45,6 +47,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * **The default implementation of a {@link ConfigurationProvider}.**
@@ -124,6 +128,16 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
      */
     private volatile Set<NetworkAddress> seedHosts;
 
+    /**
+     * Persists the accepted bucket configs, null if disabled.
+     */
+    private final PersistentConfigCache configCache;
+
+    /**
+     * The persisted configs which have been applied on open and not been replaced by a live config yet.
+     */
+    private final ConcurrentMap<String, BucketConfig> cachedConfigs;
+
     /**
      * Create a new {@link DefaultConfigurationProvider}.
      *
@@ -173,6 +187,9 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         bootstrapped = false;
         terminated = false;
         currentConfig = new DefaultClusterConfig();
+        cachedConfigs = new ConcurrentHashMap<String, BucketConfig>();
+        configCache = environment.configCacheDirectory() == null ? null
+            : new PersistentConfigCache(new File(environment.configCacheDirectory()), environment.scheduler());
 
         Observable
             .from(refreshers.values())
@@ -230,7 +247,7 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
     @Override
     public Observable<ClusterConfig> openBucket(final String bucket, final String username, final String password) {
         LOGGER.debug("Got instructed to open bucket {}", bucket);
-        if (currentConfig != null && currentConfig.hasBucket(bucket)) {
+        if (currentConfig != null && currentConfig.hasBucket(bucket) && !cachedConfigs.containsKey(bucket)) {
             LOGGER.debug("Bucket {} already opened.", bucket);
             return Observable.just(currentConfig);
         }
@@ -257,6 +274,12 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
 
         return
                 observable
+                        .doOnSubscribe(new Action0() {
+                            @Override
+                            public void call() {
+                                applyCachedConfig(bucket, username, password);
+                            }
+                        })
                         .doOnNext(new Action1<Tuple2<LoaderType, BucketConfig>>() {
                             @Override
                             public void call(final Tuple2<LoaderType, BucketConfig> tuple) {
@@ -344,6 +367,15 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
             LOGGER.trace("Proposed raw config is {}", rawConfig);
         }
 
+        BucketConfig oldConfig = currentConfig.bucketConfig(bucket);
+        if (oldConfig != null && !cachedConfigs.containsKey(bucket)) {
+            long rev = BucketConfigParser.parseRev(rawConfig);
+            if (rev > 0 && rev <= oldConfig.rev()) {
+                LOGGER.trace("Not parsing proposed configuration, older or same rev ID.");
+                return;
+            }
+        }
+
         BucketConfig config = BucketConfigParser.parse(rawConfig, environment);
         upsertBucketConfig(config);
     }
@@ -362,6 +394,13 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         }
     }
 
+    @Override
+    public void signalClustermapNotifications(final String bucket, final boolean enabled) {
+        for (Refresher refresher : refreshers.values()) {
+            refresher.clustermapNotifications(bucket, enabled);
+        }
+    }
+
     @Override
     public synchronized Observable<Boolean> shutdown() {
         if (terminated) {
@@ -380,6 +419,9 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
                             LOGGER.trace("Completing ConfigObservable for termination.");
                             configObservable.onCompleted();
                         }
+                        if (configCache != null) {
+                            configCache.shutdown();
+                        }
                     }
                 })
                 .flatMap(new Func1<Boolean, Observable<Boolean>>() {
@@ -430,10 +472,17 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         ClusterConfig cluster = currentConfig;
         BucketConfig oldConfig = cluster.bucketConfig(newConfig.name());
 
-        if (newConfig.rev() > 0 && oldConfig != null && newConfig.rev() <= oldConfig.rev()) {
+        // a live config always replaces a persisted one, the revisions may have been reset in the meantime.
+        BucketConfig cachedConfig = cachedConfigs.get(newConfig.name());
+        boolean fromCache = cachedConfig == newConfig;
+        boolean replacesCached = cachedConfig != null && !fromCache && cachedConfig == oldConfig;
+        if (!replacesCached && newConfig.rev() > 0 && oldConfig != null && newConfig.rev() <= oldConfig.rev()) {
             LOGGER.trace("Not applying new configuration, older rev ID.");
             return;
         }
+        if (replacesCached) {
+            cachedConfigs.remove(newConfig.name(), cachedConfig);
+        }
 
         // If the current password of the config is empty and an old config exists
         // make sure to transfer the password over to the new config. Otherwise it
@@ -463,6 +512,50 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         }
 
         configObservable.onNext(currentConfig);
+
+        if (configCache != null && !fromCache && newConfig instanceof AbstractBucketConfig) {
+            String raw = ((AbstractBucketConfig) newConfig).raw();
+            if (raw != null) {
+                configCache.store(newConfig.name(), seedHosts, newConfig.rev(), raw);
+            }
+        }
+    }
+
+    /**
+     * Helper method which applies the persisted config of a bucket (if there is one) before it is bootstrapped.
+     *
+     * The connections to all nodes of the persisted config are opened right away, while the live bootstrap runs
+     * in parallel and replaces the persisted config once it succeeds.
+     *
+     * @param bucket the name of the bucket.
+     * @param username the user name to authenticate with.
+     * @param password the password to authenticate with.
+     */
+    private void applyCachedConfig(final String bucket, final String username, final String password) {
+        if (configCache == null || currentConfig.hasBucket(bucket)) {
+            return;
+        }
+        String raw = configCache.load(bucket, seedHosts);
+        if (raw == null) {
+            return;
+        }
+
+        BucketConfig config;
+        try {
+            config = BucketConfigParser.parse(raw, environment);
+        } catch (Exception ex) {
+            LOGGER.debug("Ignoring persisted config of bucket {}, could not be parsed.", bucket, ex);
+            return;
+        }
+        if (!bucket.equals(config.name())) {
+            return;
+        }
+        config.username(username);
+        config.password(password);
+
+        LOGGER.debug("Applying persisted config with rev {} for bucket {} while bootstrapping.", config.rev(), bucket);
+        cachedConfigs.put(bucket, config);
+        upsertBucketConfig(config);
     }
 
     /**
@@ -474,6 +567,7 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         LOGGER.debug("Removing bucket {} configuration from known configs.", name);
         ClusterConfig cluster = currentConfig;
         cluster.deleteBucketConfig(name);
+        cachedConfigs.remove(name);
         currentConfig = cluster;
         configObservable.onNext(currentConfig);
     }
@@ -27,17 +27,44 @@ import io.netty.util.CharsetUtil;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implements MemcachedBucketConfig {
 
+    /**
+     * The MD5 digest used to hash keys, reused per thread so that hashing does not look it up every time.
+     */
+    private static final ThreadLocal<MessageDigest> MD5_DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Could not load MD5 digest.", e);
+            }
+        }
+    };
+
     private final long rev;
-    private final TreeMap<Long, NodeInfo> ketamaNodes;
+    private final SortedMap<Long, NodeInfo> ketamaNodes;
     private final ConfigParserEnvironment env;
 
+    /**
+     * The sorted hashes of the ketama continuum, used for the binary search on lookup.
+     */
+    private final long[] ketamaHashes;
+
+    /**
+     * The node for each hash of the continuum, at the same index as in {@link #ketamaHashes}.
+     */
+    private final NodeInfo[] ketamaRing;
+
     /**
      * Creates a new {@link MemcachedBucketConfig}.
      *
@@ -62,8 +89,16 @@ public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implement
         super(name, BucketNodeLocator.KETAMA, uri, streamingUri, nodeInfos, portInfos, bucketCapabilities);
         this.env = env;
         this.rev = rev;
-        this.ketamaNodes = new TreeMap<Long, NodeInfo>();
-        populateKetamaNodes();
+        TreeMap<Long, NodeInfo> nodes = populateKetamaNodes();
+        this.ketamaNodes = Collections.unmodifiableSortedMap(nodes);
+        this.ketamaHashes = new long[nodes.size()];
+        this.ketamaRing = new NodeInfo[nodes.size()];
+        int i = 0;
+        for (Map.Entry<Long, NodeInfo> entry : nodes.entrySet()) {
+            ketamaHashes[i] = entry.getKey();
+            ketamaRing[i] = entry.getValue();
+            i++;
+        }
     }
 
     @Override
@@ -86,46 +121,48 @@ public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implement
         return ketamaNodes;
     }
 
-    private void populateKetamaNodes() {
+    private TreeMap<Long, NodeInfo> populateKetamaNodes() {
+        TreeMap<Long, NodeInfo> ketamaNodes = new TreeMap<Long, NodeInfo>();
+        MessageDigest md5 = MD5_DIGEST.get();
         for (NodeInfo node : nodes()) {
             if (!node.services().containsKey(ServiceType.BINARY)) {
                 continue;
             }
 
             for (int i = 0; i < 40; i++) {
-                MessageDigest md5;
-                try {
-                    md5 = MessageDigest.getInstance("MD5");
-                    md5.update(env.memcachedHashingStrategy().hash(node, i).getBytes(CharsetUtil.UTF_8));
-                    byte[] digest = md5.digest();
-                    for (int j = 0; j < 4; j++) {
-                        Long key = ((long) (digest[3 + j * 4] & 0xFF) << 24)
-                            | ((long) (digest[2 + j * 4] & 0xFF) << 16)
-                            | ((long) (digest[1 + j * 4] & 0xFF) << 8)
-                            | (digest[j * 4] & 0xFF);
-                        ketamaNodes.put(key, node);
-                    }
-                } catch (NoSuchAlgorithmException e) {
-                    throw new IllegalStateException("Could not populate ketama nodes.", e);
+                md5.reset();
+                md5.update(env.memcachedHashingStrategy().hash(node, i).getBytes(CharsetUtil.UTF_8));
+                byte[] digest = md5.digest();
+                for (int j = 0; j < 4; j++) {
+                    Long key = ((long) (digest[3 + j * 4] & 0xFF) << 24)
+                        | ((long) (digest[2 + j * 4] & 0xFF) << 16)
+                        | ((long) (digest[1 + j * 4] & 0xFF) << 8)
+                        | (digest[j * 4] & 0xFF);
+                    ketamaNodes.put(key, node);
                 }
             }
         }
+        return ketamaNodes;
     }
 
+    /**
+     * Returns the node which owns the given key on the ketama continuum, that is the node of the first
+     * hash which is equal to or greater than the hash of the key, wrapping around at the end.
+     */
     @Override
     public NetworkAddress nodeForId(final byte[] id) {
-        long hash = calculateKetamaHash(id);
-
-        if (!ketamaNodes.containsKey(hash)) {
-            SortedMap<Long, NodeInfo> tailMap = ketamaNodes.tailMap(hash);
-            if (tailMap.isEmpty()) {
-                hash = ketamaNodes.firstKey();
-            } else {
-                hash = tailMap.firstKey();
-            }
+        if (ketamaHashes.length == 0) {
+            throw new IllegalStateException("No ketama nodes available for bucket " + name());
         }
 
-        return ketamaNodes.get(hash).hostname();
+        int index = Arrays.binarySearch(ketamaHashes, calculateKetamaHash(id));
+        if (index < 0) {
+            index = -(index + 1);
+            if (index == ketamaHashes.length) {
+                index = 0;
+            }
+        }
+        return ketamaRing[index].hostname();
     }
 
     @Override
@@ -140,18 +177,15 @@ public class DefaultMemcachedBucketConfig extends AbstractBucketConfig implement
      * @return the calculated hash.
      */
     private static long calculateKetamaHash(final byte[] key) {
-        try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
-            md5.update(key);
-            byte[] digest = md5.digest();
-            long rv = ((long) (digest[3] & 0xFF) << 24)
-                    | ((long) (digest[2] & 0xFF) << 16)
-                    | ((long) (digest[1] & 0xFF) << 8)
-                    | (digest[0] & 0xFF);
-            return rv & 0xffffffffL;
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Could not encode ketama hash.", e);
-        }
+        MessageDigest md5 = MD5_DIGEST.get();
+        md5.reset();
+        md5.update(key);
+        byte[] digest = md5.digest();
+        long rv = ((long) (digest[3] & 0xFF) << 24)
+                | ((long) (digest[2] & 0xFF) << 16)
+                | ((long) (digest[1] & 0xFF) << 8)
+                | (digest[0] & 0xFF);
+        return rv & 0xffffffffL;
     }
 
     @Override
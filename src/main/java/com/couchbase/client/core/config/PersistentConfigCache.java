@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.config;
+
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.util.CharsetUtil;
+import rx.Scheduler;
+import rx.functions.Action0;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists the latest raw configuration of every bucket in a local directory, so that it can be applied
+ * right away the next time the bucket is opened.
+ *
+ * The file of a bucket is named after the bucket and the seed hosts it has been opened with, so that the
+ * configs of different clusters sharing a directory do not get mixed up. Every file is written to a temporary
+ * file first and then renamed, so a reader never sees a partially written config.
+ *
+ * @since 1.5.3
+ */
+final class PersistentConfigCache {
+
+    /**
+     * The logger used.
+     */
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(PersistentConfigCache.class);
+
+    /**
+     * The charset of the persisted configs.
+     */
+    private static final Charset CHARSET = CharsetUtil.UTF_8;
+
+    /**
+     * The directory the configs are persisted in.
+     */
+    private final File directory;
+
+    /**
+     * The worker which writes the configs in order, away from the thread which accepted them.
+     */
+    private final Scheduler.Worker worker;
+
+    /**
+     * The revision of the config last written per file, to never overwrite a newer config with an older one.
+     */
+    private final Map<String, Long> writtenRevs;
+
+    /**
+     * Creates a new {@link PersistentConfigCache}.
+     *
+     * @param directory the directory the configs are persisted in, created if it does not exist.
+     * @param scheduler the scheduler the configs are written on.
+     */
+    PersistentConfigCache(final File directory, final Scheduler scheduler) {
+        this.directory = directory;
+        this.worker = scheduler.createWorker();
+        this.writtenRevs = new HashMap<String, Long>();
+    }
+
+    /**
+     * Loads the persisted raw config of the given bucket.
+     *
+     * @param bucket the name of the bucket.
+     * @param seedHosts the seed hosts the bucket is opened with.
+     * @return the raw config or null if none is persisted or it could not be read.
+     */
+    String load(final String bucket, final Set<NetworkAddress> seedHosts) {
+        File file = new File(directory, fileName(bucket, seedHosts));
+        if (!file.isFile()) {
+            return null;
+        }
+
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), CHARSET);
+        } catch (IOException ex) {
+            LOGGER.debug("Could not load persisted config of bucket {} from {}.", bucket, file, ex);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Persists the given raw config of a bucket asynchronously.
+     *
+     * @param bucket the name of the bucket.
+     * @param seedHosts the seed hosts the bucket has been opened with.
+     * @param rev the revision of the config.
+     * @param raw the raw config.
+     */
+    void store(final String bucket, final Set<NetworkAddress> seedHosts, final long rev, final String raw) {
+        worker.schedule(new Action0() {
+            @Override
+            public void call() {
+                write(fileName(bucket, seedHosts), rev, raw);
+            }
+        });
+    }
+
+    /**
+     * Stops writing configs, the ones not written yet are dropped.
+     */
+    void shutdown() {
+        worker.unsubscribe();
+    }
+
+    /**
+     * Writes the raw config to the given file, unless a config with a newer revision has been written to it.
+     *
+     * @param name the name of the file.
+     * @param rev the revision of the config.
+     * @param raw the raw config.
+     * @return true if the config has been written.
+     */
+    synchronized boolean write(final String name, final long rev, final String raw) {
+        Long writtenRev = writtenRevs.get(name);
+        if (writtenRev != null && rev > 0 && rev <= writtenRev) {
+            return false;
+        }
+
+        File file = new File(directory, name);
+        File tmp = null;
+        FileOutputStream out = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create directory " + directory);
+            }
+            // every write gets its own temp file, other processes may share the directory.
+            tmp = File.createTempFile(name, ".tmp", directory);
+            out = new FileOutputStream(tmp);
+            out.write(raw.getBytes(CHARSET));
+            out.getFD().sync();
+            out.close();
+            out = null;
+
+            // rename does not replace an existing file on every platform.
+            if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+                throw new IOException("Could not rename " + tmp + " to " + file);
+            }
+            writtenRevs.put(name, rev);
+            LOGGER.trace("Persisted config with rev {} to {}.", rev, file);
+            return true;
+        } catch (IOException ex) {
+            LOGGER.debug("Could not persist config with rev {} to {}.", rev, file, ex);
+            closeQuietly(out);
+            if (tmp != null) {
+                tmp.delete();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the name of the file a bucket config is persisted in.
+     *
+     * @param bucket the name of the bucket.
+     * @param seedHosts the seed hosts the bucket is opened with.
+     * @return the file name.
+     */
+    static String fileName(final String bucket, final Set<NetworkAddress> seedHosts) {
+        List<String> hosts = new ArrayList<String>(seedHosts.size());
+        for (NetworkAddress host : seedHosts) {
+            hosts.add(host.address());
+        }
+        Collections.sort(hosts);
+        return bucket + "-" + Integer.toHexString(hosts.hashCode()) + ".json";
+    }
+
+    /**
+     * Closes the given stream, ignoring failures.
+     *
+     * @param closeable the stream to close, may be null.
+     */
+    private static void closeQuietly(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ex) {
+                // ignored, nothing left to do.
+            }
+        }
+    }
+}
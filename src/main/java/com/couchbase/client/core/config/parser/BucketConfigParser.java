@@ -16,8 +16,10 @@
 package com.couchbase.client.core.config.parser;
 
 import com.couchbase.client.core.CouchbaseException;
+import com.couchbase.client.core.config.AbstractBucketConfig;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.env.ConfigParserEnvironment;
+import com.couchbase.client.core.env.CoreEnvironment;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -40,6 +42,9 @@ public final class BucketConfigParser {
     /**
      * Parse a raw configuration into a {@link BucketConfig}.
      *
+     * The raw input is only kept on the config if the environment persists configs, since that is the
+     * only place it is needed again.
+     *
      * @param input the raw string input.
      * @return the parsed bucket configuration.
      */
@@ -47,9 +52,105 @@ public final class BucketConfigParser {
         try {
             InjectableValues inject = new InjectableValues.Std()
                     .addValue("env", env);
-            return OBJECT_MAPPER.readerFor(BucketConfig.class).with(inject).readValue(input);
+            BucketConfig config = OBJECT_MAPPER.readerFor(BucketConfig.class).with(inject).readValue(input);
+            if (config instanceof AbstractBucketConfig && persistsConfigs(env)) {
+                ((AbstractBucketConfig) config).raw(input);
+            }
+            return config;
         } catch (IOException e) {
             throw new CouchbaseException("Could not parse configuration", e);
         }
     }
+
+    /**
+     * Checks if the given environment persists the configs it receives.
+     *
+     * @param env the parser environment.
+     * @return true if a config cache directory is set.
+     */
+    private static boolean persistsConfigs(final ConfigParserEnvironment env) {
+        return env instanceof CoreEnvironment && ((CoreEnvironment) env).configCacheDirectory() != null;
+    }
+
+    /**
+     * Extracts the top level revision from a raw configuration without parsing it.
+     *
+     * This is used to skip parsing configs which are not newer than the one already applied, which is the
+     * common case when configs are polled or proposed with every not my vbucket response. Only a "rev" field
+     * of the outermost object is taken, the input is scanned up to it while skipping strings and nested
+     * objects and arrays.
+     *
+     * @param input the raw string input.
+     * @return the revision of the config, or -1 if it could not be found.
+     */
+    public static long parseRev(final String input) {
+        int length = input.length();
+        int depth = 0;
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == '"') {
+                if (depth == 1 && input.startsWith("\"rev\"", i)) {
+                    int colon = skipWhitespace(input, i + 5);
+                    if (colon < length && input.charAt(colon) == ':') {
+                        return parseRevValue(input, colon + 1);
+                    }
+                }
+                i = skipString(input, i + 1);
+                continue;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the numeric value of the rev field which follows the colon before the given index.
+     */
+    private static long parseRevValue(final String input, final int from) {
+        int length = input.length();
+        int i = skipWhitespace(input, from);
+
+        long rev = 0;
+        int start = i;
+        while (i < length && i - start < 18) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            rev = rev * 10 + (c - '0');
+            i++;
+        }
+        return i == start ? -1 : rev;
+    }
+
+    /**
+     * Returns the index after the closing quote of the string whose content starts at the given index.
+     */
+    private static int skipString(final String input, final int from) {
+        int i = from;
+        while (i < input.length()) {
+            char c = input.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static int skipWhitespace(final String input, final int from) {
+        int i = from;
+        while (i < input.length() && Character.isWhitespace(input.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
 }
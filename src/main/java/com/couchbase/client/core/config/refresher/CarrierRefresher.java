@@ -42,11 +42,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Keeps the bucket config fresh through carrier configuration management.
  *
+ * Buckets with at least one connection which receives clustermap change notifications are not polled
+ * on the regular interval or while tainted, since the server pushes every new config over that
+ * connection anyways. Once no such connection is left, polling takes over again.
+ *
  * @author Michael Nitschinger
  * @since 1.0
  */
@@ -78,6 +84,11 @@ public class CarrierRefresher extends AbstractRefresher {
      */
     private final long pollFloorNs;
 
+    /**
+     * The number of connections per bucket which receive clustermap change notifications.
+     */
+    private final ConcurrentMap<String, AtomicInteger> notifiedConnections;
+
     /**
      * Creates a new {@link CarrierRefresher}.
      *
@@ -91,6 +102,7 @@ public class CarrierRefresher extends AbstractRefresher {
         this.lastPollTimestamps = new ConcurrentHashMap<String, Long>();
         this.nodeOffset = 0;
         this.pollFloorNs = TimeUnit.MILLISECONDS.toNanos(environment.configPollFloorInterval());
+        this.notifiedConnections = new ConcurrentHashMap<String, AtomicInteger>();
 
         long pollInterval = environment.configPollInterval();
         if (pollInterval > 0) {
@@ -100,7 +112,10 @@ public class CarrierRefresher extends AbstractRefresher {
                     .subscribe(new Action1<Long>() {
                         @Override
                         public void call(Long aLong) {
-                            provider().signalOutdated();
+                            ClusterConfig config = provider() == null ? null : provider().config();
+                            if (config != null) {
+                                refresh(config, true);
+                            }
                         }
                     });
         } else {
@@ -143,6 +158,11 @@ public class CarrierRefresher extends AbstractRefresher {
             .filter(new Func1<Long, Boolean>() {
                 @Override
                 public Boolean call(Long aLong) {
+                    if (receivesNotifications(bucketName)) {
+                        LOGGER.trace("Ignoring tainted polling attempt because clustermap notifications are "
+                            + "received.");
+                        return false;
+                    }
                     boolean allowed = allowedToPoll(bucketName);
                     if (allowed) {
                         lastPollTimestamps.put(bucketName, System.nanoTime());
@@ -192,13 +212,59 @@ public class CarrierRefresher extends AbstractRefresher {
 
     @Override
     public void refresh(final ClusterConfig config) {
+        refresh(config, false);
+    }
+
+    @Override
+    public void clustermapNotifications(final String bucket, final boolean enabled) {
+        AtomicInteger connections = notifiedConnections.get(bucket);
+        if (connections == null) {
+            if (!enabled) {
+                return;
+            }
+            AtomicInteger created = new AtomicInteger();
+            connections = notifiedConnections.putIfAbsent(bucket, created);
+            if (connections == null) {
+                connections = created;
+            }
+        }
+
+        if (enabled) {
+            if (connections.incrementAndGet() == 1) {
+                LOGGER.debug("Receiving clustermap notifications for bucket \"{}\", stopping polling.", bucket);
+            }
+        } else {
+            int remaining = connections.decrementAndGet();
+            if (remaining <= 0) {
+                connections.set(0);
+                LOGGER.debug("No clustermap notifications for bucket \"{}\" anymore, polling again.", bucket);
+            }
+        }
+    }
+
+    /**
+     * Returns true if at least one connection of the bucket receives clustermap change notifications.
+     */
+    boolean receivesNotifications(final String bucket) {
+        AtomicInteger connections = notifiedConnections.get(bucket);
+        return connections != null && connections.get() > 0;
+    }
+
+    /**
+     * Refreshes the configs of the registered buckets.
+     *
+     * @param config the current cluster config.
+     * @param skipNotified true if buckets which receive clustermap notifications should not be polled.
+     */
+    private void refresh(final ClusterConfig config, final boolean skipNotified) {
         Observable
             .from(config.bucketConfigs().values())
             .observeOn(environment.scheduler())
             .filter(new Func1<BucketConfig, Boolean>() {
                 @Override
                 public Boolean call(BucketConfig config) {
-                    return registrations().containsKey(config.name());
+                    return registrations().containsKey(config.name())
+                        && !(skipNotified && receivesNotifications(config.name()));
                 }
             })
             .filter(new Func1<BucketConfig, Boolean>() {
@@ -166,4 +166,8 @@ public class HttpRefresher extends AbstractRefresher {
     @Override
     public void refresh(ClusterConfig config) {
     }
+
+    @Override
+    public void clustermapNotifications(String bucket, boolean enabled) {
+    }
 }
@@ -86,6 +86,15 @@ public interface Refresher {
      */
     void refresh(ClusterConfig config);
 
+    /**
+     * Tracks the connections of the given bucket which receive clustermap change notifications,
+     * push based refreshers do not need to poll buckets with at least one of them.
+     *
+     * @param bucket the name of the bucket.
+     * @param enabled true if a connection negotiated notifications, false if such a connection is gone.
+     */
+    void clustermapNotifications(String bucket, boolean enabled);
+
     void provider(ConfigurationProvider provider);
 
 }
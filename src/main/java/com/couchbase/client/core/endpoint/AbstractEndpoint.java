@@ -17,6 +17,7 @@ package com.couchbase.client.core.endpoint;
 
 import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.ResponseHandler;
+import com.couchbase.client.core.endpoint.flush.FlushPolicy;
 import com.couchbase.client.core.endpoint.kv.AuthenticationException;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.logging.CouchbaseLogger;
@@ -24,8 +25,11 @@ import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.internal.EndpointHealth;
+import com.couchbase.client.core.message.internal.SignalClustermapChange;
+import com.couchbase.client.core.message.internal.SignalClustermapNotifications;
 import com.couchbase.client.core.message.internal.SignalConfigReload;
 import com.couchbase.client.core.message.internal.SignalFlush;
+import com.couchbase.client.core.retry.RetryReason;
 import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.state.AbstractStateMachine;
 import com.couchbase.client.core.state.LifecycleState;
@@ -165,6 +169,21 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
      */
     private volatile boolean hasWritten;
 
+    /**
+     * The number of operations written since the last flush.
+     */
+    private volatile int pendingWrites;
+
+    /**
+     * True if a deferred flush has been scheduled on the event loop and did not run yet.
+     */
+    private volatile boolean flushScheduled;
+
+    /**
+     * Decides when the written operations are flushed.
+     */
+    private final FlushPolicy flushPolicy;
+
     /**
      * Number of reconnects already done.
      */
@@ -184,6 +203,21 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
 
     private volatile long lastKeepAliveLatency;
 
+    /**
+     * The number of requests written to the channel which are not completed yet.
+     */
+    private volatile int outstandingRequests;
+
+    /**
+     * The exponentially weighted moving average of the response latency in nanoseconds, 0 if unknown.
+     */
+    private volatile long latencyAverage;
+
+    /**
+     * Limits the requests in flight on this endpoint, shared by the handlers of all its channels.
+     */
+    private final InFlightLimiter inFlightLimiter;
+
     /**
      * Preset the stack trace for the static exceptions.
      */
@@ -217,6 +251,8 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         this.pipeline = pipeline;
         this.connectCallbackGracePeriod = Integer.parseInt(DEFAULT_CONNECT_CALLBACK_GRACE_PERIOD);
         this.ioPool = env.ioPool();
+        this.flushPolicy = env.flushPolicy();
+        this.inFlightLimiter = InFlightLimiter.create(env);
         this.lastResponse = 0;
         this.free = true;
         this.hostname = "127.0.0.1"; // let's consider its localhost for testing, use other constructor if not.
@@ -244,6 +280,8 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         this.env = environment;
         this.isTransient = isTransient;
         this.ioPool = ioPool;
+        this.flushPolicy = environment.flushPolicy();
+        this.inFlightLimiter = InFlightLimiter.create(environment);
         this.pipeline = pipeline;
         this.free = true;
         this.hostname = hostname;
@@ -279,7 +317,7 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
                 protected void initChannel(Channel channel) throws Exception {
                     ChannelPipeline pipeline = channel.pipeline();
                     if (environment.sslEnabled()) {
-                        pipeline.addLast(new SslHandler(sslEngineFactory.get()));
+                        pipeline.addLast(new SslHandler(sslEngineFactory.get(channel.alloc(), hostname, port)));
                     }
                     if (LOGGER.isTraceEnabled()) {
                         pipeline.addLast(LOGGING_HANDLER_INSTANCE);
@@ -319,6 +357,7 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         final AsyncSubject<LifecycleState> observable = AsyncSubject.create();
         transitionState(LifecycleState.CONNECTING);
         hasWritten = false;
+        pendingWrites = 0;
         doConnect(observable, bootstrapping);
         return observable;
     }
@@ -522,19 +561,20 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
     public void send(final CouchbaseRequest request) {
         if (state() == LifecycleState.CONNECTED) {
             if (request instanceof SignalFlush) {
-                if (hasWritten && channel.isActive()) {
-                    channel.flush();
-                    hasWritten = false;
-                }
+                flush();
             } else {
                 if (channel.isActive() && channel.isWritable()) {
                     if (!pipeline) {
                         free = false;
                     }
                     channel.write(request, channel.voidPromise());
+                    boolean dirty = hasWritten;
                     hasWritten = true;
+                    if (flushPolicy.flushAfterWrite(++pendingWrites) || (!dirty && !DirtyEndpoints.add(this))) {
+                        flush();
+                    }
                 } else {
-                    responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, request, request.observable());
+                    responseBuffer.publishEvent(ResponseHandler.RETRY_TRANSLATOR, request, RetryReason.BACKPRESSURE);
                 }
             }
         } else {
@@ -545,6 +585,41 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         }
     }
 
+    /**
+     * Flushes the operations written so far, if any.
+     */
+    private void flush() {
+        Channel current = channel;
+        if (state() == LifecycleState.CONNECTED && hasWritten && current != null && current.isActive()) {
+            // reset before flushing, so a write from a concurrent sender is either
+            // covered by this flush or leaves the flag set for the next one.
+            hasWritten = false;
+            pendingWrites = 0;
+            current.flush();
+        }
+    }
+
+    /**
+     * Called by the {@link DirtyEndpoints} at the end of the batch this endpoint has been written to
+     * during, flushes it now or defers the flush as the {@link FlushPolicy} decides.
+     */
+    void flushBatch() {
+        long delay = flushPolicy.flushDelay(pendingWrites);
+        Channel current = channel;
+        if (delay <= 0 || current == null) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            current.eventLoop().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushScheduled = false;
+                    flush();
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
     /**
      * Helper method that is called from inside the event loop to notify the upper {@link Endpoint} of a disconnect.
      *
@@ -607,6 +682,58 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         lastKeepAliveLatency = latency;
     }
 
+    /**
+     * Called by the underlying channel whenever the number of requests which are written but not yet
+     * completed changes.
+     */
+    public void setOutstandingRequests(int outstanding) {
+        outstandingRequests = outstanding;
+    }
+
+    /**
+     * Returns the number of requests which are written but not yet completed.
+     */
+    public int outstandingRequests() {
+        return outstandingRequests;
+    }
+
+    /**
+     * Called by the underlying channel when a response is completed to record how long it took.
+     *
+     * The latency is folded into a moving average with a weight of 1/8 per sample. This method is
+     * only called from the event loop of the channel.
+     */
+    public void recordResponseLatency(long latency) {
+        if (latency <= 0) {
+            return;
+        }
+        long average = latencyAverage;
+        latencyAverage = average == 0 ? latency : average + ((latency - average) >> 3);
+    }
+
+    /**
+     * Returns the moving average of the response latency in nanoseconds, 0 if no response completed yet.
+     *
+     * The average is halved for every second without a response, so that an endpoint which was slow
+     * once gets picked up again by latency-aware selection strategies after a while.
+     */
+    public long averageLatency() {
+        long average = latencyAverage;
+        long last = lastResponse;
+        if (average == 0 || last == 0) {
+            return average;
+        }
+        long idleSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - last);
+        return idleSeconds >= 63 ? 0 : average >> idleSeconds;
+    }
+
+    /**
+     * Returns the limiter for the number of requests in flight on this endpoint.
+     */
+    public InFlightLimiter inFlightLimiter() {
+        return inFlightLimiter;
+    }
+
     @Override
     public long lastResponse() {
         return lastResponse;
@@ -619,6 +746,28 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, SignalConfigReload.INSTANCE, null);
     }
 
+    /**
+     * Signal a bucket config pushed by the server to the upper config layers.
+     *
+     * @param bucket the name of the bucket.
+     * @param config the raw config.
+     */
+    public void signalClustermapChange(final String bucket, final String config) {
+        responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, new SignalClustermapChange(bucket, config),
+            null);
+    }
+
+    /**
+     * Signal to the upper config layers that the connection of this endpoint started or stopped to
+     * receive clustermap change notifications.
+     *
+     * @param enabled true if notifications have been negotiated, false if the connection is gone.
+     */
+    public void signalClustermapNotifications(final boolean enabled) {
+        responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR,
+            new SignalClustermapNotifications(bucket, enabled), null);
+    }
+
     @Override
     public boolean isFree() {
         if (pipeline) {
@@ -639,7 +788,8 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         }
         long lastActivity = TimeUnit.NANOSECONDS.toMicros(lastResponse > 0 ? System.nanoTime() - lastResponse : 0);
         long pingLatency = TimeUnit.NANOSECONDS.toMicros(lastKeepAliveLatency);
-        return Single.just(new EndpointHealth(type, currentState, localAddr, remoteAddr, lastActivity, pingLatency));
+        return Single.just(new EndpointHealth(type, currentState, localAddr, remoteAddr, lastActivity, pingLatency,
+            inFlightLimiter.limit()));
     }
 
     /**
@@ -17,6 +17,7 @@ package com.couchbase.client.core.endpoint;
 
 import com.couchbase.client.core.CouchbaseException;
 import com.couchbase.client.core.RequestCancelledException;
+import com.couchbase.client.core.ResponseBatch;
 import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.ResponseHandler;
 import com.couchbase.client.core.env.CoreEnvironment;
@@ -29,6 +30,7 @@ import com.couchbase.client.core.message.KeepAlive;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.metrics.NetworkLatencyMetricsIdentifier;
 import com.couchbase.client.core.retry.RetryHelper;
+import com.couchbase.client.core.retry.RetryReason;
 import com.couchbase.client.core.service.ServiceType;
 import com.lmax.disruptor.EventSink;
 import io.netty.buffer.ByteBuf;
@@ -44,6 +46,7 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.CharsetUtil;
+import io.netty.util.collection.IntObjectHashMap;
 import io.netty.util.concurrent.ScheduledFuture;
 import rx.Scheduler;
 import rx.Subscriber;
@@ -57,10 +60,12 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.charset.Charset;
 import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -106,9 +111,37 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
     private final Queue<REQUEST> sentRequestQueue;
 
     /**
-     * This queue keeps all timings for each request when it was sent off to the event loop.
+     * This queue keeps the time each request was sent off to the event loop and its deadline entry,
+     * aligned with the sent request queue.
      */
-    private final Queue<Long> sentRequestTimings;
+    private final Queue<InFlightRequest<REQUEST>> sentRequestTimings;
+
+    /**
+     * Keeps all currently outstanding requests by their opaque once unordered execution is enabled,
+     * null as long as responses are matched in order.
+     */
+    private IntObjectHashMap<InFlightRequest<REQUEST>> sentRequestMap;
+
+    /**
+     * Extracts the opaques which match responses to their requests, set with the sent request map.
+     */
+    private OpaqueExtractor<REQUEST, RESPONSE> opaqueExtractor;
+
+    /**
+     * The number of requests polled from the sent request queue so far, which tells the deadline wheel
+     * if a request written in order is still outstanding.
+     */
+    private long polledRequests;
+
+    /**
+     * Requests written in order which have been failed on their deadline, but still wait for their response.
+     */
+    private final Set<REQUEST> expiredRequests;
+
+    /**
+     * Called by the deadline wheel of the event loop once the deadline of a written request has passed.
+     */
+    private final RequestDeadlineWheel.Listener deadlineListener;
 
     /**
      * If this handler is transient (will close after one request).
@@ -126,9 +159,12 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
     private final boolean moveResponseOut;
 
     /**
-     * A cache to avoid consistent string conversions for the request simple names.
+     * Interned latency metric identifiers per request type, indexed by the ordinal of the response status.
+     *
+     * The host and the service type are fixed for the channel, so this avoids allocating a new identifier
+     * and converting the names to strings for every recorded response.
      */
-    private final Map<Class<? extends CouchbaseRequest>, String> classNameCache;
+    private final Map<Class<? extends CouchbaseRequest>, NetworkLatencyMetricsIdentifier[]> metricsIdentifiers;
 
     /**
      * The request which is expected to return next.
@@ -157,12 +193,25 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
      */
     private String remoteHttpHost;
 
-    private final int sentQueueLimit;
+    /**
+     * Limits the number of requests in flight, adapting to the observed latencies.
+     */
+    private final InFlightLimiter inFlightLimiter;
 
     private final boolean pipeline;
 
     private volatile long keepAliveThreshold;
 
+    /**
+     * If successful responses should be completed in batches, once per network read.
+     */
+    private final boolean batchResponses;
+
+    /**
+     * The successful responses decoded during the current read, null if none.
+     */
+    private ResponseBatch responseBatch;
+
     /**
      * If continuous keepalive is enabled, holds the future for continuous execution.
      *
@@ -197,11 +246,22 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         this.currentDecodingState = DecodingState.INITIAL;
         this.isTransient = isTransient;
         this.traceEnabled = LOGGER.isTraceEnabled();
-        this.sentRequestTimings = new ArrayDeque<Long>();
-        this.classNameCache = new IdentityHashMap<Class<? extends CouchbaseRequest>, String>();
+        this.sentRequestTimings = new ArrayDeque<InFlightRequest<REQUEST>>();
+        this.metricsIdentifiers =
+            new IdentityHashMap<Class<? extends CouchbaseRequest>, NetworkLatencyMetricsIdentifier[]>();
         this.moveResponseOut = env() == null || !env().callbacksOnIoPool();
-        this.sentQueueLimit = Integer.parseInt(System.getProperty("com.couchbase.sentRequestQueueLimit", "5120"));
+        this.batchResponses = env() != null && env().responseBatchingEnabled();
+        InFlightLimiter limiter = endpoint == null ? null : endpoint.inFlightLimiter();
+        this.inFlightLimiter = limiter != null ? limiter : InFlightLimiter.create(env());
         this.keepAliveThreshold = 0;
+        this.expiredRequests = Collections.newSetFromMap(new IdentityHashMap<REQUEST, Boolean>());
+        this.deadlineListener = new RequestDeadlineWheel.Listener() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void expired(final CouchbaseRequest request, final long token) {
+                expire((REQUEST) request, token);
+            }
+        };
     }
 
     /**
@@ -238,20 +298,26 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
     protected abstract ServiceType serviceType();
 
     @Override
+    @SuppressWarnings("unchecked")
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-        if (!pipeline && (!sentRequestQueue.isEmpty() || currentDecodingState != DecodingState.INITIAL)) {
+        if (!pipeline && (sentRequestCount() > 0 || currentDecodingState != DecodingState.INITIAL)) {
             if (traceEnabled) {
                 LOGGER.trace("Rescheduling {} because pipelining disable and a request is in-flight.", msg);
             }
-            RetryHelper.retryOrCancel(env(), (CouchbaseRequest) msg, responseBuffer);
+            RetryHelper.retryOrCancel(env(), (CouchbaseRequest) msg, responseBuffer, RetryReason.QUEUE_FULL);
+            return;
+        }
+
+        if (enforcesDeadlines() && msg instanceof CouchbaseRequest && ((CouchbaseRequest) msg).isExpired()) {
+            failExpired((REQUEST) msg, "before it was written");
             return;
         }
 
-        if (sentRequestQueue.size() < sentQueueLimit) {
+        if (inFlightLimiter.canWrite(sentRequestCount())) {
             super.write(ctx, msg, promise);
         } else {
-            LOGGER.debug("Rescheduling {} because sentRequestQueueLimit reached.", msg);
-            RetryHelper.retryOrCancel(env(), (CouchbaseRequest) msg, responseBuffer);
+            LOGGER.debug("Rescheduling {} because the in-flight limit of {} is reached.", msg, inFlightLimiter.limit());
+            RetryHelper.retryOrCancel(env(), (CouchbaseRequest) msg, responseBuffer, RetryReason.BACKPRESSURE);
         }
     }
 
@@ -266,15 +332,49 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
             // or at least one message encoded. just returning won't work
             throw ex;
         }
-        sentRequestQueue.offer(msg);
-        out.add(request);
-        sentRequestTimings.offer(System.nanoTime());
+        long token = 0;
+        InFlightRequest<REQUEST> inFlight = new InFlightRequest<REQUEST>(msg, System.nanoTime());
+        if (sentRequestMap != null) {
+            InFlightRequest<REQUEST> previous = sentRequestMap.put(opaqueExtractor.requestOpaque(msg), inFlight);
+            if (previous != null) {
+                LOGGER.warn("{}Duplicate opaque for in-flight request {}, cancelling it.",
+                    logIdent(ctx, endpoint), previous.request);
+                previous.cancelDeadline();
+                cancel(previous.request);
+            }
+            out.add(request);
+        } else {
+            token = polledRequests + sentRequestQueue.size();
+            sentRequestQueue.offer(msg);
+            out.add(request);
+            sentRequestTimings.offer(inFlight);
+        }
+        if (msg.deadline() != 0 && enforcesDeadlines()) {
+            inFlight.deadlineEntry = RequestDeadlineWheel.forExecutor(ctx.executor())
+                .schedule(msg, token, deadlineListener);
+        }
+        endpoint.setOutstandingRequests(sentRequestCount());
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, RESPONSE msg, List<Object> out) throws Exception {
         if (currentDecodingState == DecodingState.INITIAL) {
-            initialDecodeTasks(ctx);
+            initialDecodeTasks(ctx, msg);
+            if (currentRequest == null && sentRequestMap != null) {
+                LOGGER.debug("{}Ignoring response {} without matching request.", logIdent(ctx, endpoint), msg);
+                currentDecodingState = DecodingState.INITIAL;
+                return;
+            }
+            if (currentRequest != null && enforcesDeadlines() && isExpired(currentRequest)) {
+                if (traceEnabled) {
+                    LOGGER.trace("{}Dropping response of expired request {}.", logIdent(ctx, endpoint),
+                        currentRequest);
+                }
+                endpoint.notifyResponseDecoded(false);
+                resetStatesAfterDecode(ctx);
+                endpoint.setOutstandingRequests(sentRequestCount());
+                return;
+            }
         }
 
         try {
@@ -283,8 +383,13 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
                 publishResponse(response, currentRequest.observable());
                 if (currentDecodingState == DecodingState.FINISHED) {
                     writeMetrics(response);
+                    if (pipeline && currentOpTime >= 0) {
+                        inFlightLimiter.record(currentOpTime, sentRequestCount());
+                    }
                     if (currentRequest instanceof KeepAlive) {
                         endpoint.setLastKeepAliveLatency(currentOpTime);
+                    } else {
+                        endpoint.recordResponseLatency(currentOpTime);
                     }
                 }
             }
@@ -297,6 +402,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         if (currentDecodingState == DecodingState.FINISHED) {
             endpoint.notifyResponseDecoded(currentRequest instanceof KeepAlive);
             resetStatesAfterDecode(ctx);
+            endpoint.setOutstandingRequests(sentRequestCount());
         }
     }
 
@@ -310,20 +416,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
             && env().networkLatencyMetricsCollector().isEnabled()) {
 
             try {
-                Class<? extends CouchbaseRequest> requestClass = currentRequest.getClass();
-                String simpleName = classNameCache.get(requestClass);
-                if (simpleName == null) {
-                    simpleName = requestClass.getSimpleName();
-                    classNameCache.put(requestClass, simpleName);
-                }
-
-                NetworkLatencyMetricsIdentifier identifier = new NetworkLatencyMetricsIdentifier(
-                        remoteHostname,
-                        serviceType().toString(),
-                        simpleName,
-                        response.status().toString()
-                );
-                env().networkLatencyMetricsCollector().record(identifier, currentOpTime);
+                env().networkLatencyMetricsCollector().record(metricsIdentifier(response.status()), currentOpTime);
             } catch (Throwable e) {
                 LOGGER.warn("Could not collect latency metric for request + "
                     + currentRequest + "(" + currentOpTime + ")", e);
@@ -331,6 +424,33 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         }
     }
 
+    /**
+     * Returns the interned metrics identifier for the current request and the given status.
+     *
+     * @param status the status of the response.
+     * @return the identifier, created on first use.
+     */
+    private NetworkLatencyMetricsIdentifier metricsIdentifier(final ResponseStatus status) {
+        Class<? extends CouchbaseRequest> requestClass = currentRequest.getClass();
+        NetworkLatencyMetricsIdentifier[] identifiers = metricsIdentifiers.get(requestClass);
+        if (identifiers == null) {
+            identifiers = new NetworkLatencyMetricsIdentifier[ResponseStatus.values().length];
+            metricsIdentifiers.put(requestClass, identifiers);
+        }
+
+        NetworkLatencyMetricsIdentifier identifier = identifiers[status.ordinal()];
+        if (identifier == null) {
+            identifier = new NetworkLatencyMetricsIdentifier(
+                remoteHostname,
+                serviceType().toString(),
+                requestClass.getSimpleName(),
+                status.toString()
+            );
+            identifiers[status.ordinal()] = identifier;
+        }
+        return identifier;
+    }
+
     /**
      * Helper method which performs the final tasks in the decoding process.
      *
@@ -348,17 +468,29 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
      * Helper method which performs the initial decoding process.
      *
      * @param ctx the channel handler context for logging purposes.
+     * @param msg the response which starts to be decoded.
      */
-    private void initialDecodeTasks(final ChannelHandlerContext ctx) {
-        currentRequest = sentRequestQueue.poll();
+    private void initialDecodeTasks(final ChannelHandlerContext ctx, final RESPONSE msg) {
         currentDecodingState = DecodingState.STARTED;
 
-        if (currentRequest != null) {
-            Long st = sentRequestTimings.poll();
-            if (st != null) {
-                currentOpTime = System.nanoTime() - st;
-            } else {
-                currentOpTime = -1;
+        if (sentRequestMap != null) {
+            InFlightRequest<REQUEST> inFlight = sentRequestMap.remove(opaqueExtractor.responseOpaque(msg));
+            currentRequest = inFlight == null ? null : inFlight.request;
+            currentOpTime = inFlight == null ? -1 : System.nanoTime() - inFlight.sentTime;
+            if (inFlight != null) {
+                inFlight.cancelDeadline();
+            }
+        } else {
+            currentRequest = sentRequestQueue.poll();
+            if (currentRequest != null) {
+                polledRequests++;
+                InFlightRequest<REQUEST> inFlight = sentRequestTimings.poll();
+                if (inFlight != null) {
+                    currentOpTime = System.nanoTime() - inFlight.sentTime;
+                    inFlight.cancelDeadline();
+                } else {
+                    currentOpTime = -1;
+                }
             }
         }
 
@@ -376,7 +508,14 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
     protected void publishResponse(final CouchbaseResponse response,
         final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
         if (response.status() != ResponseStatus.RETRY && observable != null) {
-            if (moveResponseOut) {
+            if (moveResponseOut && batchResponses) {
+                if (responseBatch == null) {
+                    responseBatch = new ResponseBatch();
+                }
+                if (responseBatch.add(response, observable)) {
+                    dispatchResponseBatch();
+                }
+            } else if (moveResponseOut) {
                 Scheduler scheduler = env().scheduler();
                 if (scheduler instanceof CoreScheduler) {
                     scheduleDirect((CoreScheduler) scheduler, response, observable);
@@ -391,6 +530,16 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         }
     }
 
+    /**
+     * Hands the successful responses decoded so far to the scheduler to be completed.
+     */
+    private void dispatchResponseBatch() {
+        if (responseBatch != null) {
+            responseBatch.dispatch(env().scheduler());
+            responseBatch = null;
+        }
+    }
+
     /**
      * Fulfill and complete the response observable.
      *
@@ -457,9 +606,17 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         }
     }
 
+    @Override
+    public void channelReadComplete(final ChannelHandlerContext ctx) throws Exception {
+        dispatchResponseBatch();
+        ctx.fireChannelReadComplete();
+    }
+
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
         LOGGER.debug(logIdent(ctx, endpoint) + "Channel Inactive.");
+        dispatchResponseBatch();
+        endpoint.setOutstandingRequests(0);
         endpoint.notifyChannelInactive();
         ctx.fireChannelInactive();
     }
@@ -553,27 +710,172 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
      * @param ctx the handler context.
      */
     private void handleOutstandingOperations(final ChannelHandlerContext ctx) {
-        if (sentRequestQueue.isEmpty()) {
+        if (sentRequestCount() == 0) {
             LOGGER.trace(logIdent(ctx, endpoint) + "Not cancelling operations - sent queue is empty.");
             return;
         }
 
-        LOGGER.debug(logIdent(ctx, endpoint) + "Cancelling " + sentRequestQueue.size() + " outstanding requests.");
+        LOGGER.debug(logIdent(ctx, endpoint) + "Cancelling " + sentRequestCount() + " outstanding requests.");
         while (!sentRequestQueue.isEmpty()) {
-            REQUEST req = sentRequestQueue.poll();
-            try {
-                sideEffectRequestToCancel(req);
-                failSafe(env().scheduler(), moveResponseOut, req.observable(),
-                        new RequestCancelledException("Request cancelled in-flight."));
-            } catch (Exception ex) {
-                LOGGER.info("Exception thrown while cancelling outstanding operation: " + req, ex);
+            REQUEST request = sentRequestQueue.poll();
+            polledRequests++;
+            if (!expiredRequests.remove(request)) {
+                cancel(request);
             }
         }
+        for (InFlightRequest<REQUEST> inFlight : sentRequestTimings) {
+            inFlight.cancelDeadline();
+        }
+        sentRequestTimings.clear();
+        expiredRequests.clear();
 
+        if (sentRequestMap != null) {
+            for (InFlightRequest<REQUEST> inFlight : sentRequestMap.values()) {
+                inFlight.cancelDeadline();
+                cancel(inFlight.request);
+            }
+            sentRequestMap.clear();
+        }
+    }
+
+    /**
+     * Cancels a single request which has been written but will not receive a response anymore.
+     *
+     * @param req the request to cancel.
+     */
+    private void cancel(final REQUEST req) {
+        try {
+            sideEffectRequestToCancel(req);
+            failSafe(env().scheduler(), moveResponseOut, req.observable(),
+                    new RequestCancelledException("Request cancelled in-flight."));
+        } catch (Exception ex) {
+            LOGGER.info("Exception thrown while cancelling outstanding operation: " + req, ex);
+        }
+    }
+
+    /**
+     * Returns true if this handler fails written requests once their deadline has passed and drops their
+     * late responses.
+     *
+     * Only handlers which receive each response as one message can drop it, so this is disabled by default.
+     *
+     * @return true if deadlines are enforced.
+     */
+    protected boolean enforcesDeadlines() {
+        return false;
+    }
+
+    /**
+     * Checks if the request which is about to be decoded expired, failing it if that did not happen yet.
+     *
+     * @param request the request.
+     * @return true if its response should be dropped.
+     */
+    private boolean isExpired(final REQUEST request) {
+        if (!expiredRequests.isEmpty() && expiredRequests.remove(request)) {
+            return true;
+        }
+        if (request.isExpired()) {
+            failExpired(request, "before its response was decoded");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called from the deadline wheel, fails the request if it is still outstanding.
+     *
+     * A request matched by opaque is removed right away so its late response is ignored. A request matched
+     * in order needs to stay in the queue until its response arrives, it is remembered to drop that response.
+     *
+     * @param request the expired request.
+     * @param token the number of requests polled from the queue before this one, if written in order.
+     */
+    private void expire(final REQUEST request, final long token) {
+        if (sentRequestMap != null) {
+            int opaque = opaqueExtractor.requestOpaque(request);
+            InFlightRequest<REQUEST> inFlight = sentRequestMap.get(opaque);
+            if (inFlight == null || inFlight.request != request) {
+                return;
+            }
+            sentRequestMap.remove(opaque);
+        } else {
+            if (token < polledRequests) {
+                return;
+            }
+            expiredRequests.add(request);
+        }
+        failExpired(request, "while waiting for its response");
+        endpoint.setOutstandingRequests(sentRequestCount());
+    }
+
+    /**
+     * Fails a request because its deadline has passed.
+     *
+     * @param request the request to fail.
+     * @param stage where the request was when its deadline passed, for the error message.
+     */
+    private void failExpired(final REQUEST request, final String stage) {
+        try {
+            sideEffectRequestToCancel(request);
+            failSafe(env().scheduler(), moveResponseOut, request.observable(),
+                new TimeoutException("Deadline of the request passed " + stage + "."));
+        } catch (Exception ex) {
+            LOGGER.info("Exception thrown while failing expired operation: " + request, ex);
+        }
+    }
+
+    /**
+     * Returns the number of requests which are written but did not receive a response yet.
+     *
+     * @return the number of outstanding requests.
+     */
+    private int sentRequestCount() {
+        return sentRequestMap == null ? sentRequestQueue.size() : sentRequestMap.size();
+    }
+
+    /**
+     * Switches this handler from matching responses in order to matching them by their opaque,
+     * which allows the server to respond in any order. Requests which are already outstanding
+     * are moved over.
+     *
+     * @param extractor extracts the opaques of the requests and responses of this handler.
+     */
+    protected void enableUnorderedExecution(final OpaqueExtractor<REQUEST, RESPONSE> extractor) {
+        if (extractor == null) {
+            throw new IllegalArgumentException("An opaque extractor needs to be provided for unordered execution.");
+        }
+        if (sentRequestMap != null) {
+            return;
+        }
+
+        IntObjectHashMap<InFlightRequest<REQUEST>> map = new IntObjectHashMap<InFlightRequest<REQUEST>>();
+        while (!sentRequestQueue.isEmpty()) {
+            REQUEST request = sentRequestQueue.poll();
+            polledRequests++;
+            InFlightRequest<REQUEST> inFlight = sentRequestTimings.poll();
+            if (expiredRequests.remove(request)) {
+                continue;
+            }
+            map.put(extractor.requestOpaque(request),
+                inFlight != null ? inFlight : new InFlightRequest<REQUEST>(request, System.nanoTime()));
+        }
         sentRequestTimings.clear();
+        opaqueExtractor = extractor;
+        sentRequestMap = map;
+    }
+
+    /**
+     * Returns true if responses are matched by their opaque instead of in order.
+     *
+     * @return true if unordered execution is enabled.
+     */
+    protected boolean unorderedExecutionEnabled() {
+        return sentRequestMap != null;
     }
 
 
+
     /**
      * This method can be overridden as it is called every time an operation is cancelled.
      *
@@ -629,7 +931,7 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
 
         // if pipelining is disabled, only send if the request queue is empty and no response
         // is currently being decoded.
-        return sentRequestQueue.isEmpty() && currentDecodingState == DecodingState.INITIAL;
+        return sentRequestCount() == 0 && currentDecodingState == DecodingState.INITIAL;
     }
 
     /**
@@ -800,4 +1102,54 @@ public abstract class AbstractGenericHandler<RESPONSE, ENCODED, REQUEST extends
         return this.currentDecodingState;
     }
 
+    /**
+     * Extracts the opaques which match the responses of a handler to their requests once unordered
+     * execution is enabled.
+     *
+     * @param <REQUEST> the type of the requests.
+     * @param <RESPONSE> the type of the responses.
+     */
+    protected interface OpaqueExtractor<REQUEST, RESPONSE> {
+
+        /**
+         * Returns the opaque of the given request.
+         *
+         * @param request the request.
+         * @return the opaque which the response will carry as well.
+         */
+        int requestOpaque(REQUEST request);
+
+        /**
+         * Returns the opaque of the given response.
+         *
+         * @param response the response.
+         * @return the opaque of the request this response belongs to.
+         */
+        int responseOpaque(RESPONSE response);
+    }
+
+    /**
+     * An outstanding request together with the time it has been written and its deadline entry, if any.
+     */
+    private static final class InFlightRequest<R> {
+
+        private final R request;
+        private final long sentTime;
+        private RequestDeadlineWheel.Entry deadlineEntry;
+
+        InFlightRequest(final R request, final long sentTime) {
+            this.request = request;
+            this.sentTime = sentTime;
+        }
+
+        /**
+         * Takes the request off the deadline wheel, so that it is not referenced until its deadline.
+         */
+        void cancelDeadline() {
+            if (deadlineEntry != null) {
+                deadlineEntry.cancel();
+                deadlineEntry = null;
+            }
+        }
+    }
 }
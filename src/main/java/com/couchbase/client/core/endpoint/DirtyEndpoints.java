@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the endpoints written to by the current thread during a batch, so that only those need to be
+ * flushed at the end of it instead of signalling every node, service and endpoint.
+ *
+ * A thread opts in with {@link #forCurrentThread()}, endpoints written to from threads which never did so
+ * are flushed right away since nobody would flush them otherwise.
+ *
+ * @since 1.5.3
+ */
+public final class DirtyEndpoints {
+
+    private static final FastThreadLocal<DirtyEndpoints> CURRENT = new FastThreadLocal<DirtyEndpoints>() {
+        @Override
+        protected DirtyEndpoints initialValue() {
+            return new DirtyEndpoints();
+        }
+    };
+
+    private final List<AbstractEndpoint> endpoints = new ArrayList<AbstractEndpoint>();
+    private boolean tracking;
+
+    private DirtyEndpoints() {
+    }
+
+    /**
+     * Returns the dirty endpoints of the current thread and starts tracking them from now on.
+     *
+     * @return the dirty endpoints of the current thread.
+     */
+    public static DirtyEndpoints forCurrentThread() {
+        DirtyEndpoints dirty = CURRENT.get();
+        dirty.tracking = true;
+        return dirty;
+    }
+
+    /**
+     * Adds the endpoint to the dirty endpoints of the current thread, if it tracks them.
+     *
+     * @param endpoint the endpoint which has been written to.
+     * @return true if it will be flushed at the end of the batch, false if not tracked.
+     */
+    static boolean add(final AbstractEndpoint endpoint) {
+        DirtyEndpoints dirty = CURRENT.get();
+        if (!dirty.tracking) {
+            return false;
+        }
+        dirty.endpoints.add(endpoint);
+        return true;
+    }
+
+    /**
+     * Flushes all endpoints written to since the last call according to their flush policy.
+     *
+     * @return the number of endpoints which have been dirty.
+     */
+    public int flush() {
+        int size = endpoints.size();
+        for (int i = 0; i < size; i++) {
+            endpoints.get(i).flushBatch();
+        }
+        endpoints.clear();
+        return size;
+    }
+
+    /**
+     * Returns the number of endpoints written to since the last flush.
+     *
+     * @return the number of dirty endpoints.
+     */
+    public int size() {
+        return endpoints.size();
+    }
+
+}
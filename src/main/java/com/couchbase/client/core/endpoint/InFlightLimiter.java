@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.env.CoreEnvironment;
+
+/**
+ * Limits the number of requests an endpoint may have in flight, optionally adapted to the latency it observes.
+ *
+ * If not adaptive, the limit is the static upper bound. If adaptive, this is a gradient limiter which starts
+ * at the upper bound: the short term average of the round trip times is compared to their long term average.
+ * As long as the short term average stays within twice the long term one (which it does for a steady mix of
+ * small and large documents), the limit is kept and grows back by roughly the square root of the limit per
+ * sample if the endpoint uses at least half of it. Only once latency clearly inflates because requests queue
+ * up on the server or on the wire, the limit shrinks proportionally, so an overloaded node sheds load early.
+ *
+ * Samples are recorded from the event loop of the endpoint only, the current limit can be read
+ * from any thread.
+ *
+ * @since 1.5.3
+ */
+@InterfaceAudience.Private
+public class InFlightLimiter {
+
+    /**
+     * The lower bound for the limit, so that a latency spike does not starve the endpoint.
+     */
+    public static final int MIN_LIMIT = 32;
+
+    /**
+     * How much the short term round trip time may exceed the long term one before the limit shrinks.
+     */
+    private static final double TOLERANCE = 2.0;
+
+    /**
+     * How much of a newly computed limit is applied per sample.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * The weight of a sample in the short term average of the round trip time.
+     */
+    private static final double SHORT_WEIGHT = 1.0 / 8;
+
+    /**
+     * The weight of a sample in the long term average of the round trip time, so that it follows a
+     * permanently changing baseline (i.e. after a network change) within a few hundred samples.
+     */
+    private static final double LONG_WEIGHT = 1.0 / 500;
+
+    private final int maxLimit;
+    private final boolean adaptive;
+
+    private volatile int limit;
+    private double estimatedLimit;
+
+    private double shortRtt;
+    private double longRtt;
+
+    /**
+     * Creates a new limiter which never allows more than the given number of requests in flight.
+     *
+     * @param maxLimit the upper bound of the limit.
+     * @param adaptive true if the limit should be adapted to the observed latency.
+     */
+    public InFlightLimiter(final int maxLimit, final boolean adaptive) {
+        this.adaptive = adaptive;
+        this.maxLimit = adaptive ? Math.max(MIN_LIMIT, maxLimit) : maxLimit;
+        this.estimatedLimit = this.maxLimit;
+        this.limit = this.maxLimit;
+    }
+
+    /**
+     * Creates the limiter for an endpoint, bounded by the sent request queue limit.
+     *
+     * @param env the environment, may be null in which case the limit is static.
+     * @return the created limiter.
+     */
+    public static InFlightLimiter create(final CoreEnvironment env) {
+        return new InFlightLimiter(
+            Integer.parseInt(System.getProperty("com.couchbase.sentRequestQueueLimit", "5120")),
+            env != null && env.adaptiveInFlightLimitEnabled()
+        );
+    }
+
+    /**
+     * Checks if another request can be written.
+     *
+     * @param inFlight the number of requests currently in flight.
+     * @return true if the request can be written, false if it should be retried elsewhere or later.
+     */
+    public boolean canWrite(final int inFlight) {
+        return inFlight < limit;
+    }
+
+    /**
+     * Records the round trip time of a completed request and adapts the limit, if adaptive.
+     *
+     * @param rttNanos the round trip time of the request in nanoseconds.
+     * @param inFlight the number of requests in flight when the response arrived.
+     */
+    public void record(final long rttNanos, final int inFlight) {
+        if (!adaptive || rttNanos <= 0) {
+            return;
+        }
+
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt += (rttNanos - longRtt) * LONG_WEIGHT;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient;
+        if (gradient >= 1.0 && inFlight >= estimatedLimit / 2) {
+            newLimit += Math.sqrt(estimatedLimit);
+        }
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        estimatedLimit = Math.max(MIN_LIMIT, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Returns the current limit of requests in flight.
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the upper bound of the limit.
+     */
+    public int maxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Returns true if the limit is adapted to the observed latency.
+     */
+    public boolean adaptive() {
+        return adaptive;
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the deadlines of written requests on a hashed wheel, one per event loop.
+ *
+ * All channels of an event loop share the wheel, so there is at most one scheduled tick per event loop
+ * no matter how many requests are in flight, and the tick is only scheduled while the wheel holds entries.
+ * Once the response of a request is matched, its {@link Entry} is cancelled so that the request is not
+ * referenced anymore, an entry which reaches its deadline hands the request to the {@link Listener} which
+ * decides if it is still outstanding at that point. Deadlines are rounded up to the next tick.
+ *
+ * The wheel is not thread safe, it must only be used from the thread of its event loop.
+ *
+ * @since 1.5.3
+ */
+final class RequestDeadlineWheel {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(RequestDeadlineWheel.class);
+
+    /**
+     * The duration of a tick in nanoseconds.
+     */
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The number of slots on the wheel, a power of two.
+     */
+    static final int WHEEL_SIZE = 512;
+
+    private static final FastThreadLocal<RequestDeadlineWheel> WHEELS = new FastThreadLocal<RequestDeadlineWheel>();
+
+    private final EventExecutor executor;
+    private final long startTime;
+    private final int mask;
+    private final List<Entry>[] slots;
+    private final Runnable tickTask;
+
+    /**
+     * The next tick to process.
+     */
+    private long tick;
+    private int size;
+    private ScheduledFuture<?> tickFuture;
+
+    @SuppressWarnings("unchecked")
+    private RequestDeadlineWheel(final EventExecutor executor) {
+        this.executor = executor;
+        this.startTime = System.nanoTime();
+        this.mask = WHEEL_SIZE - 1;
+        this.slots = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            slots[i] = new ArrayList<Entry>();
+        }
+        this.tickTask = new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        };
+    }
+
+    /**
+     * Returns the wheel of the given event loop, which must be the one of the calling thread.
+     *
+     * @param executor the event loop.
+     * @return the wheel of the event loop.
+     */
+    static RequestDeadlineWheel forExecutor(final EventExecutor executor) {
+        RequestDeadlineWheel wheel = WHEELS.get();
+        if (wheel == null || wheel.executor != executor) {
+            wheel = new RequestDeadlineWheel(executor);
+            WHEELS.set(wheel);
+        }
+        return wheel;
+    }
+
+    /**
+     * Puts the request on the wheel, the listener is called once its deadline has passed.
+     *
+     * @param request the request with a deadline.
+     * @param token an opaque value handed back to the listener.
+     * @param listener the listener to call on expiry.
+     * @return the entry, to be cancelled once the request is not outstanding anymore.
+     */
+    Entry schedule(final CouchbaseRequest request, final long token, final Listener listener) {
+        long deadline = request.deadline();
+        long elapsed = deadline - startTime;
+        long deadlineTick = elapsed <= 0 ? 0 : (elapsed + TICK_NANOS - 1) / TICK_NANOS;
+        Entry entry = new Entry(request, deadline, token, listener);
+        slots[(int) (Math.max(deadlineTick, tick) & mask)].add(entry);
+        size++;
+        if (tickFuture == null) {
+            tickFuture = executor.schedule(tickTask, TICK_NANOS, TimeUnit.NANOSECONDS);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the number of entries on the wheel which have not been cancelled.
+     *
+     * @return the number of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Processes all slots up to the current tick, at most one round of the wheel.
+     */
+    private void tick() {
+        tickFuture = null;
+        long now = System.nanoTime();
+        long current = (now - startTime) / TICK_NANOS;
+        long last = Math.min(current, tick + mask);
+        for (; tick <= last; tick++) {
+            expire(slots[(int) (tick & mask)], now);
+        }
+        tick = Math.max(tick, current + 1);
+        if (size > 0) {
+            tickFuture = executor.schedule(tickTask, TICK_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void expire(final List<Entry> slot, final long now) {
+        int kept = 0;
+        for (int i = 0; i < slot.size(); i++) {
+            Entry entry = slot.get(i);
+            CouchbaseRequest request = entry.request;
+            if (request == null) {
+                continue;
+            }
+            if (entry.deadline - now <= 0) {
+                Listener listener = entry.listener;
+                entry.clear();
+                try {
+                    listener.expired(request, entry.token);
+                } catch (Throwable t) {
+                    LOGGER.warn("Exception while expiring request {}.", request, t);
+                }
+            } else {
+                slot.set(kept++, entry);
+            }
+        }
+        slot.subList(kept, slot.size()).clear();
+    }
+
+    /**
+     * Called from the event loop once the deadline of a request has passed.
+     */
+    interface Listener {
+
+        /**
+         * Called once the deadline of the request has passed.
+         *
+         * @param request the request.
+         * @param token the token it was scheduled with.
+         */
+        void expired(CouchbaseRequest request, long token);
+    }
+
+    /**
+     * A request waiting on the wheel.
+     */
+    final class Entry {
+        private final long deadline;
+        private final long token;
+        private CouchbaseRequest request;
+        private Listener listener;
+
+        Entry(final CouchbaseRequest request, final long deadline, final long token, final Listener listener) {
+            this.request = request;
+            this.deadline = deadline;
+            this.token = token;
+            this.listener = listener;
+        }
+
+        /**
+         * Removes the request from the wheel before its deadline, the empty entry is dropped with its slot.
+         *
+         * Must be called from the event loop of the wheel.
+         */
+        void cancel() {
+            if (request != null) {
+                clear();
+            }
+        }
+
+        private void clear() {
+            request = null;
+            listener = null;
+            size--;
+        }
+    }
+}
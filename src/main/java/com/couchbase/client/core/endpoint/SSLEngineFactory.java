@@ -18,6 +18,11 @@ package com.couchbase.client.core.endpoint;
 import com.couchbase.client.core.env.SecureEnvironment;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -25,10 +30,17 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.FileInputStream;
 import java.security.KeyStore;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Creates a {@link SSLEngine} which will be passed into the handler if SSL is enabled.
  *
+ * The key and trust stores are only loaded once per environment, when the first engine is created, and all
+ * engines of the environment share the same context afterwards. Since the engines are created for the remote
+ * host and port, earlier TLS sessions with the same node can be resumed, so that reconnects do not need a
+ * full handshake.
+ *
  * @author Michael Nitschinger
  * @since 1.0
  */
@@ -39,11 +51,21 @@ public class SSLEngineFactory {
      */
     private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(SSLEngineFactory.class);
 
+    /**
+     * The contexts shared by all factories of an environment, dropped once the environment is collected.
+     */
+    private static final Map<SecureEnvironment, Contexts> CONTEXTS = new WeakHashMap<SecureEnvironment, Contexts>();
+
     /**
      * The global environment which is shared.
      */
     private final SecureEnvironment env;
 
+    /**
+     * The contexts of the environment.
+     */
+    private final Contexts contexts;
+
     /**
      * Create a new engine factory.
      *
@@ -51,6 +73,14 @@ public class SSLEngineFactory {
      */
     public SSLEngineFactory(SecureEnvironment env) {
         this.env = env;
+        synchronized (CONTEXTS) {
+            Contexts shared = CONTEXTS.get(env);
+            if (shared == null) {
+                shared = new Contexts();
+                CONTEXTS.put(env, shared);
+            }
+            this.contexts = shared;
+        }
     }
 
     /**
@@ -59,7 +89,103 @@ public class SSLEngineFactory {
      * @return a {@link SSLEngine} ready to be used.
      */
     public SSLEngine get() {
+        return get(ByteBufAllocator.DEFAULT, null, -1);
+    }
+
+    /**
+     * Returns a new {@link SSLEngine} for the given remote node constructed from the config settings,
+     * which allows to resume an earlier session with the same node.
+     *
+     * @param allocator the allocator of the channel the engine is used for.
+     * @param hostname the hostname of the remote node, null if unknown.
+     * @param port the port of the remote node.
+     * @return a {@link SSLEngine} ready to be used.
+     */
+    public SSLEngine get(final ByteBufAllocator allocator, final String hostname, final int port) {
         try {
+            if (env.openSslEnabled()) {
+                SslContext context = contexts.openSsl(env);
+                if (context != null) {
+                    return hostname == null ? context.newEngine(allocator) : context.newEngine(allocator, hostname, port);
+                }
+            }
+
+            SSLContext context = contexts.jdk(env);
+            SSLEngine engine = hostname == null ? context.createSSLEngine() : context.createSSLEngine(hostname, port);
+            engine.setUseClientMode(true);
+            return engine;
+        } catch (Exception ex) {
+            throw new SSLException("Could not create SSLEngine.", ex);
+        }
+    }
+
+    /**
+     * The lazily created contexts of one environment, which must not reference the environment itself
+     * so that it can still be collected.
+     */
+    private static final class Contexts {
+
+        private volatile SSLContext jdk;
+        private volatile SslContext openSsl;
+        private boolean openSslUnavailable;
+        private KeyManagerFactory keyManagerFactory;
+        private TrustManagerFactory trustManagerFactory;
+
+        /**
+         * Returns the JDK context, creating it on first use.
+         */
+        SSLContext jdk(final SecureEnvironment env) throws Exception {
+            SSLContext context = jdk;
+            if (context == null) {
+                synchronized (this) {
+                    context = jdk;
+                    if (context == null) {
+                        loadStores(env);
+                        context = SSLContext.getInstance("TLS");
+                        context.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+                        jdk = context;
+                    }
+                }
+            }
+            return context;
+        }
+
+        /**
+         * Returns the OpenSSL context, creating it on first use, or null if OpenSSL is not available.
+         */
+        SslContext openSsl(final SecureEnvironment env) throws Exception {
+            SslContext context = openSsl;
+            if (context == null) {
+                synchronized (this) {
+                    context = openSsl;
+                    if (context == null && !openSslUnavailable) {
+                        if (!OpenSsl.isAvailable()) {
+                            openSslUnavailable = true;
+                            LOGGER.info("OpenSSL is not available, using the JDK for SSL instead.",
+                                OpenSsl.unavailabilityCause());
+                            return null;
+                        }
+                        loadStores(env);
+                        context = SslContextBuilder.forClient()
+                            .sslProvider(SslProvider.OPENSSL)
+                            .keyManager(keyManagerFactory)
+                            .trustManager(trustManagerFactory)
+                            .build();
+                        openSsl = context;
+                    }
+                }
+            }
+            return context;
+        }
+
+        /**
+         * Loads the key and trust stores and initializes the manager factories from them, if not done already.
+         */
+        private void loadStores(final SecureEnvironment env) throws Exception {
+            if (keyManagerFactory != null) {
+                return;
+            }
+
             String pass = env.sslKeystorePassword();
             char[] password = pass == null || pass.isEmpty() ? null : pass.toCharArray();
 
@@ -100,15 +226,8 @@ public class SSLEngineFactory {
             TrustManagerFactory tmf = TrustManagerFactory.getInstance(defaultAlgorithm);
             kmf.init(ks, password);
             tmf.init(ts);
-
-            SSLContext ctx = SSLContext.getInstance("TLS");
-            ctx.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
-
-            SSLEngine engine = ctx.createSSLEngine();
-            engine.setUseClientMode(true);
-            return engine;
-        } catch (Exception ex) {
-            throw new SSLException("Could not create SSLEngine.", ex);
+            trustManagerFactory = tmf;
+            keyManagerFactory = kmf;
         }
     }
 }
@@ -75,7 +75,37 @@ public enum ServerFeatures {
      *
      * @since  Couchbase Server Spock (5.0)
      */
-    SELECT_BUCKET((short) 0x08);
+    SELECT_BUCKET((short) 0x08),
+
+    /**
+     * Enable snappy compressed document bodies.
+     *
+     * @since Couchbase Server Vulcan (5.5)
+     */
+    SNAPPY((short) 0x0a),
+
+    /**
+     * Allow the server to send requests of its own to the client over the same connection.
+     *
+     * @since Couchbase Server Vulcan (5.5)
+     */
+    DUPLEX((short) 0x0c),
+
+    /**
+     * Ask the server to push a notification with the new clustermap whenever it changes,
+     * requires {@link #DUPLEX}.
+     *
+     * @since Couchbase Server Vulcan (5.5)
+     */
+    CLUSTERMAP_CHANGE_NOTIFICATION((short) 0x0d),
+
+    /**
+     * Allow the server to execute requests out of order and return their responses
+     * in any order.
+     *
+     * @since Couchbase Server Vulcan (5.5)
+     */
+    UNORDERED_EXECUTION((short) 0x0e);
 
     /**
      * The actual byte representation on the wire.
@@ -104,6 +134,10 @@ public enum ServerFeatures {
             case 0x06: return XATTR;
             case 0x07: return XERROR;
             case 0x08: return SELECT_BUCKET;
+            case 0x0a: return SNAPPY;
+            case 0x0c: return DUPLEX;
+            case 0x0d: return CLUSTERMAP_CHANGE_NOTIFICATION;
+            case 0x0e: return UNORDERED_EXECUTION;
             default: throw new IllegalStateException("Unrequested server feature: " + input);
         }
     }
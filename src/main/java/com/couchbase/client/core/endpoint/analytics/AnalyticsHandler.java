@@ -20,6 +20,7 @@ import com.couchbase.client.core.endpoint.AbstractEndpoint;
 import com.couchbase.client.core.endpoint.AbstractGenericHandler;
 import com.couchbase.client.core.endpoint.ResponseStatusConverter;
 import com.couchbase.client.core.endpoint.util.ClosingPositionBufProcessor;
+import com.couchbase.client.core.endpoint.util.StreamingRowSubject;
 import com.couchbase.client.core.endpoint.util.StringClosingPositionBufProcessor;
 import com.couchbase.client.core.endpoint.util.WhitespaceSkipper;
 import com.couchbase.client.core.logging.CouchbaseLogger;
@@ -53,6 +54,7 @@ import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import rx.Scheduler;
 import rx.subjects.AsyncSubject;
+import rx.subjects.Subject;
 
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
@@ -112,7 +114,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
     /**
      * Represents an observable that sends result chunks.
      */
-    private UnicastAutoReleaseSubject<ByteBuf> queryRowObservable;
+    private Subject<ByteBuf, ByteBuf> queryRowObservable;
 
     /**
      * Represents an observable that has the signature of the Analytics results if there are any.
@@ -229,7 +231,7 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
             } else if (currentRequest() instanceof GenericAnalyticsRequest) {
                 if (queryRowObservable == null) {
                     //still in initial parsing
-                    response = handleGenericAnalyticsResponse(lastChunk);
+                    response = handleGenericAnalyticsResponse(ctx, lastChunk);
                     //null response indicates need for more data before continuing parsing
                     if (response != null) {
                         parseQueryResponse(lastChunk);
@@ -277,9 +279,14 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
      * It waits for the first few bytes on the actual response to determine if an error is raised or if a successful
      * response can be expected. The actual error and/or chunk parsing is deferred to other parts of this handler.
      *
+     * If a streaming row window is configured, the rows are emitted according to the demand of their subscriber
+     * and reading from the channel is paused while the window is full.
+     *
+     * @param ctx the channel handler context of the response.
+     * @param lastChunk true if the response is complete.
      * @return a {@link CouchbaseResponse} if eligible.
      */
-    private CouchbaseResponse handleGenericAnalyticsResponse(boolean lastChunk) {
+    private CouchbaseResponse handleGenericAnalyticsResponse(final ChannelHandlerContext ctx, boolean lastChunk) {
         String requestId;
         String clientId = "";
 
@@ -355,7 +362,10 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
 
         Scheduler scheduler = env().scheduler();
         long ttl = env().autoreleaseAfter();
-        queryRowObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        String rid = clientId == null ? requestId : clientId + " / " + requestId;
+        int rowWindow = env().streamingRowWindow();
+        queryRowObservable = StreamingRowSubject.createRows(ctx.channel(), rowWindow, ttl, TimeUnit.MILLISECONDS,
+            scheduler, "queryRow." + rid);
         queryErrorObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
         queryStatusObservable = AsyncSubject.create();
         queryInfoObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
@@ -363,8 +373,6 @@ public class AnalyticsHandler extends AbstractGenericHandler<HttpObject, HttpReq
 
         //set up trace ids on all these UnicastAutoReleaseSubjects, so that if they get in a bad state
         // (multiple subscribers or subscriber coming in too late) we can trace back to here
-        String rid = clientId == null ? requestId : clientId + " / " + requestId;
-        queryRowObservable.withTraceIdentifier("queryRow." + rid).onBackpressureBuffer();
         queryErrorObservable.withTraceIdentifier("queryError." + rid).onBackpressureBuffer();
         queryInfoObservable.withTraceIdentifier("queryInfo." + rid).onBackpressureBuffer();
         querySignatureObservable.withTraceIdentifier("querySignature." + rid).onBackpressureBuffer();
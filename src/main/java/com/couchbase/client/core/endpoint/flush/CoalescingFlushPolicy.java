@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.flush;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FlushPolicy} which coalesces the writes of several batches into one flush.
+ *
+ * An endpoint is flushed as soon as the given number of requests is pending, otherwise its flush at the
+ * end of a batch is deferred by the given delay, so that the requests of the following batches are
+ * flushed with it. The number of requests stands in for the number of bytes, which are only known once
+ * the requests have been encoded on the event loop.
+ *
+ * @since 1.5.3
+ */
+public class CoalescingFlushPolicy implements FlushPolicy {
+
+    private final int maxPendingWrites;
+    private final long maxDelay;
+
+    private CoalescingFlushPolicy(final int maxPendingWrites, final long maxDelay, final TimeUnit unit) {
+        if (maxPendingWrites < 1) {
+            throw new IllegalArgumentException("The number of pending writes must be greater than 0.");
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("The flush delay must not be negative.");
+        }
+        this.maxPendingWrites = maxPendingWrites;
+        this.maxDelay = unit.toNanos(maxDelay);
+    }
+
+    /**
+     * Creates a new {@link CoalescingFlushPolicy}.
+     *
+     * @param maxPendingWrites the number of pending requests after which an endpoint is flushed right away.
+     * @param maxDelay the maximum delay of a flush after the end of the batch.
+     * @param unit the unit of the delay.
+     * @return the created policy.
+     */
+    public static CoalescingFlushPolicy create(final int maxPendingWrites, final long maxDelay,
+        final TimeUnit unit) {
+        return new CoalescingFlushPolicy(maxPendingWrites, maxDelay, unit);
+    }
+
+    @Override
+    public boolean flushAfterWrite(final int pendingWrites) {
+        return pendingWrites >= maxPendingWrites;
+    }
+
+    @Override
+    public long flushDelay(final int pendingWrites) {
+        return maxDelay;
+    }
+
+    @Override
+    public String toString() {
+        return "Coalescing{maxPendingWrites=" + maxPendingWrites + ", maxDelay=" + maxDelay + "ns}";
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.flush;
+
+/**
+ * A {@link FlushPolicy} which flushes every endpoint written to once at the end of each batch.
+ *
+ * @since 1.5.3
+ */
+public class EndOfBatchFlushPolicy implements FlushPolicy {
+
+    /**
+     * A reusable instance of this policy.
+     */
+    public static final EndOfBatchFlushPolicy INSTANCE = new EndOfBatchFlushPolicy();
+
+    private EndOfBatchFlushPolicy() {
+    }
+
+    @Override
+    public boolean flushAfterWrite(final int pendingWrites) {
+        return false;
+    }
+
+    @Override
+    public long flushDelay(final int pendingWrites) {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "EndOfBatch";
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.flush;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+
+/**
+ * Decides when the requests written to an endpoint are flushed to the socket.
+ *
+ * Requests dispatched from the request ring buffer are written to their endpoints without flushing,
+ * every endpoint written to during a batch is then flushed once the batch has been dispatched. A
+ * policy can flush earlier, right after a write, or later, by deferring the flush at the end of the
+ * batch so that the writes of several batches end up in the same flush.
+ *
+ * @since 1.5.3
+ */
+@InterfaceStability.Experimental
+@InterfaceAudience.Public
+public interface FlushPolicy {
+
+    /**
+     * Decides if an endpoint should be flushed right after a request has been written to it.
+     *
+     * @param pendingWrites the number of requests written since the last flush, including this one.
+     * @return true if the endpoint should be flushed now.
+     */
+    boolean flushAfterWrite(int pendingWrites);
+
+    /**
+     * Returns by how much the flush of an endpoint written to during a batch is deferred once the batch
+     * has been dispatched.
+     *
+     * @param pendingWrites the number of requests written since the last flush.
+     * @return the delay in nanoseconds, 0 to flush at the end of the batch.
+     */
+    long flushDelay(int pendingWrites);
+
+}
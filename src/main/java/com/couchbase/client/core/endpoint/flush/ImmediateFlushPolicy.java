@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.flush;
+
+/**
+ * A {@link FlushPolicy} which flushes every request right after it has been written, trading
+ * throughput for the lowest possible latency of single requests.
+ *
+ * @since 1.5.3
+ */
+public class ImmediateFlushPolicy implements FlushPolicy {
+
+    /**
+     * A reusable instance of this policy.
+     */
+    public static final ImmediateFlushPolicy INSTANCE = new ImmediateFlushPolicy();
+
+    private ImmediateFlushPolicy() {
+    }
+
+    @Override
+    public boolean flushAfterWrite(final int pendingWrites) {
+        return true;
+    }
+
+    @Override
+    public long flushDelay(final int pendingWrites) {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Immediate";
+    }
+}
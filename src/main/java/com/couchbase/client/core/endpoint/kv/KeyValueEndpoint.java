@@ -24,6 +24,7 @@ import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelPipeline;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheClientCodec;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheObjectAggregator;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheRequestEncoder;
 import io.netty.handler.timeout.IdleStateHandler;
 
 import java.util.concurrent.TimeUnit;
@@ -75,9 +76,21 @@ public class KeyValueEndpoint extends AbstractEndpoint {
             System.getProperty("com.couchbase.authBeforeHello", "false")
         );
 
-        pipeline
-            .addLast(new BinaryMemcacheClientCodec())
-            .addLast(new BinaryMemcacheObjectAggregator(Integer.MAX_VALUE));
+        // Falls back to the chunked decoder and the aggregator, which copy every response body.
+        // Undocumented, only meant as a safety net.
+        boolean aggregateResponses = Boolean.parseBoolean(
+            System.getProperty("com.couchbase.kvResponseAggregation", "false")
+        );
+
+        if (aggregateResponses) {
+            pipeline
+                .addLast(new BinaryMemcacheClientCodec())
+                .addLast(new BinaryMemcacheObjectAggregator(Integer.MAX_VALUE));
+        } else {
+            pipeline
+                .addLast(new BinaryMemcacheRequestEncoder())
+                .addLast(new KeyValueResponseDecoder());
+        }
 
         if (authBeforeHello) {
             LOGGER.info("Manually enforced authentication before \"HELLO\" for backwards " +
@@ -81,6 +81,16 @@ public class KeyValueFeatureHandler extends SimpleChannelInboundHandler<FullBina
         if (xerrorEnabled) {
             features.add(ServerFeatures.XERROR);
         }
+        if (environment.compressionEnabled()) {
+            features.add(ServerFeatures.SNAPPY);
+        }
+        if (environment.unorderedExecutionEnabled()) {
+            features.add(ServerFeatures.UNORDERED_EXECUTION);
+        }
+        if (environment.clustermapNotificationsEnabled()) {
+            features.add(ServerFeatures.DUPLEX);
+            features.add(ServerFeatures.CLUSTERMAP_CHANGE_NOTIFICATION);
+        }
     }
 
     @Override
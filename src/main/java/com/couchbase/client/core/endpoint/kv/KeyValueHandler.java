@@ -81,11 +81,13 @@ import com.couchbase.client.core.message.kv.subdoc.simple.SubExistRequest;
 import com.couchbase.client.core.message.kv.subdoc.simple.SubGetCountRequest;
 import com.couchbase.client.core.message.kv.subdoc.simple.SubGetRequest;
 import com.couchbase.client.core.service.ServiceType;
+import com.couchbase.client.core.utils.Snappy;
 import com.couchbase.client.core.time.Delay;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheOpcodes;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheRequest;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultBinaryMemcacheRequest;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultFullBinaryMemcacheRequest;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultFullBinaryMemcacheResponse;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.FullBinaryMemcacheRequest;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.FullBinaryMemcacheResponse;
 import com.lmax.disruptor.EventSink;
@@ -95,6 +97,8 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.IllegalReferenceCountException;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -131,6 +135,27 @@ public class KeyValueHandler
      */
     private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(KeyValueHandler.class);
 
+    /**
+     * Matches the responses to their requests by the opaque once the server executes them unordered.
+     */
+    /**
+     * The largest document the server stores, compressed responses claiming to inflate beyond are corrupt.
+     */
+    private static final int MAX_INFLATED_LENGTH = 20 * 1024 * 1024;
+
+    private static final OpaqueExtractor<BinaryRequest, FullBinaryMemcacheResponse> OPAQUE_EXTRACTOR =
+        new OpaqueExtractor<BinaryRequest, FullBinaryMemcacheResponse>() {
+            @Override
+            public int requestOpaque(final BinaryRequest request) {
+                return request.opaque();
+            }
+
+            @Override
+            public int responseOpaque(final FullBinaryMemcacheResponse response) {
+                return response.getOpaque();
+            }
+        };
+
     //Memcached OPCODES are defined on 1 byte. Some cbserver specific commands are casted
     // to byte to conform to this limitation and exploit the negative range.
     public static final byte OP_GET_BUCKET_CONFIG = (byte) 0xb5;
@@ -154,6 +179,16 @@ public class KeyValueHandler
     public static final byte OP_STAT = BinaryMemcacheOpcodes.STAT;
     public static final byte OP_GET_ALL_MUTATION_TOKENS = (byte) 0x48;
 
+    /**
+     * The magic byte of a request the server sends to the client over a duplex connection.
+     */
+    public static final byte MAGIC_SERVER_REQUEST = (byte) 0x82;
+
+    /**
+     * The opcode of a server request which carries a new clustermap.
+     */
+    public static final byte OP_CLUSTERMAP_CHANGE_NOTIFICATION = 0x01;
+
     public static final byte OP_SUB_GET = (byte) 0xc5;
     public static final byte OP_SUB_EXIST = (byte) 0xc6;
     public static final byte OP_SUB_DICT_ADD = (byte) 0xc7;
@@ -195,8 +230,22 @@ public class KeyValueHandler
      */
     public static final byte SUBDOC_DOCFLAG_ACCESS_DELETED = (byte) 0x04;
 
+    /**
+     * The bitmask for the datatype field which marks a snappy compressed body.
+     */
+    public static final byte DATATYPE_SNAPPY = (byte) 0x02;
+
     boolean seqOnMutation = false;
 
+    /**
+     * If the server negotiated snappy and compression is enabled on the environment.
+     */
+    boolean snappyEnabled = false;
+
+    /**
+     * If the server negotiated to push clustermap change notifications over this connection.
+     */
+    boolean clustermapNotifications = false;
 
     /**
      * Creates a new {@link KeyValueHandler} with the default queue for requests.
@@ -235,6 +284,15 @@ public class KeyValueHandler
 
         request.setOpaque(msg.opaque());
 
+        if (snappyEnabled) {
+            BinaryMemcacheRequest compressed = maybeCompress(ctx, msg, request);
+            if (compressed != request) {
+                // the compressed body is owned by the new request, the original content stays with
+                // the message so it can be retried or freed later on.
+                return compressed;
+            }
+        }
+
         try {
             // Retain just the content, since a response could be "Not my Vbucket".
             // The response handler checks the status and then releases if needed.
@@ -259,6 +317,49 @@ public class KeyValueHandler
         return request;
     }
 
+    /**
+     * Compresses the body of a document mutation with snappy if it is large enough and the
+     * compressed version is small enough, according to the environment settings.
+     *
+     * @param ctx the handler context.
+     * @param msg the original request.
+     * @param request the encoded request.
+     * @return a new request with a compressed body or the original request if not compressed.
+     */
+    private BinaryMemcacheRequest maybeCompress(final ChannelHandlerContext ctx, final BinaryRequest msg,
+        final BinaryMemcacheRequest request) {
+        if (!(request instanceof FullBinaryMemcacheRequest) || !(msg instanceof BinaryStoreRequest
+            || msg instanceof AppendRequest || msg instanceof PrependRequest)) {
+            return request;
+        }
+
+        ByteBuf content = ((FullBinaryMemcacheRequest) request).content();
+        int length = content.readableBytes();
+        if (length < env().compressionMinSize()) {
+            return request;
+        }
+
+        ByteBuf compressed = ctx.alloc().buffer(Snappy.maxEncodedLength(length));
+        Snappy.encode(content.slice(), compressed);
+        if (compressed.readableBytes() > length * env().compressionMinRatio()) {
+            compressed.release();
+            return request;
+        }
+
+        FullBinaryMemcacheRequest compressedRequest = new DefaultFullBinaryMemcacheRequest(
+            request.getKey(), request.getExtras(), compressed);
+        compressedRequest
+            .setOpcode(request.getOpcode())
+            .setKeyLength(request.getKeyLength())
+            .setExtrasLength(request.getExtrasLength())
+            .setCAS(request.getCAS())
+            .setOpaque(request.getOpaque())
+            .setDataType((byte) (request.getDataType() | DATATYPE_SNAPPY))
+            .setTotalBodyLength(request.getKeyLength() + request.getExtrasLength() + compressed.readableBytes());
+        compressedRequest.setReserved(request.getReserved());
+        return compressedRequest;
+    }
+
     private BinaryMemcacheRequest encodeCommonRequest(final ChannelHandlerContext ctx, final BinaryRequest msg) {
         if (msg instanceof GetRequest) {
             return handleGetRequest(ctx, (GetRequest) msg);
@@ -326,6 +427,9 @@ public class KeyValueHandler
         } else if (msg.touch()) {
             opcode = OP_GET_AND_TOUCH;
             extras = ctx.alloc().buffer().writeInt(msg.expiry());
+        } else if (msg.replica() > 0) {
+            opcode = OP_GET_REPLICA;
+            extras = Unpooled.EMPTY_BUFFER;
         } else {
             opcode = OP_GET;
             extras = Unpooled.EMPTY_BUFFER;
@@ -749,6 +853,65 @@ public class KeyValueHandler
     @Override
     protected CouchbaseResponse decodeResponse(final ChannelHandlerContext ctx, final FullBinaryMemcacheResponse msg)
         throws Exception {
+        if ((msg.getDataType() & DATATYPE_SNAPPY) == 0) {
+            return decodeUncompressedResponse(ctx, msg);
+        }
+
+        FullBinaryMemcacheResponse inflated;
+        try {
+            inflated = inflate(ctx, msg);
+        } catch (RuntimeException ex) {
+            maybeFreeContent(currentRequest());
+            finishedDecoding();
+            throw ex;
+        }
+        try {
+            return decodeUncompressedResponse(ctx, inflated);
+        } finally {
+            inflated.release();
+        }
+    }
+
+    /**
+     * Inflates a snappy compressed response body into a new response, which needs to be released
+     * separately from the original one.
+     *
+     * @param ctx the handler context.
+     * @param msg the compressed response.
+     * @return the inflated response.
+     */
+    private static FullBinaryMemcacheResponse inflate(final ChannelHandlerContext ctx,
+        final FullBinaryMemcacheResponse msg) {
+        ByteBuf compressed = msg.content();
+        int length = Snappy.decodedLength(compressed);
+        if (length < 0 || length > MAX_INFLATED_LENGTH) {
+            throw new IllegalStateException("Snappy decoded length " + length + " exceeds the maximum document size");
+        }
+        ByteBuf content = ctx.alloc().buffer(length);
+        try {
+            Snappy.decode(compressed.slice(), content);
+        } catch (RuntimeException ex) {
+            content.release();
+            throw ex;
+        }
+
+        ByteBuf extras = msg.getExtras();
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(msg.getKey(),
+            extras == null ? null : extras.duplicate().retain(), content);
+        response
+            .setStatus(msg.getStatus())
+            .setOpcode(msg.getOpcode())
+            .setKeyLength(msg.getKeyLength())
+            .setExtrasLength(msg.getExtrasLength())
+            .setCAS(msg.getCAS())
+            .setOpaque(msg.getOpaque())
+            .setDataType((byte) (msg.getDataType() & ~DATATYPE_SNAPPY))
+            .setTotalBodyLength(msg.getKeyLength() + msg.getExtrasLength() + content.readableBytes());
+        return response;
+    }
+
+    private CouchbaseResponse decodeUncompressedResponse(final ChannelHandlerContext ctx,
+        final FullBinaryMemcacheResponse msg) throws Exception {
         BinaryRequest request = currentRequest();
 
         if (request.opaque() != msg.getOpaque()) {
@@ -1288,16 +1451,93 @@ public class KeyValueHandler
         }
     }
 
+    @Override
+    protected boolean enforcesDeadlines() {
+        return true;
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof ServerFeaturesEvent) {
             seqOnMutation = env().mutationTokensEnabled() &&
                 ((ServerFeaturesEvent) evt).supportedFeatures().contains(ServerFeatures.MUTATION_SEQNO);
+            snappyEnabled = env().compressionEnabled() &&
+                ((ServerFeaturesEvent) evt).supportedFeatures().contains(ServerFeatures.SNAPPY);
+            if (env().unorderedExecutionEnabled() &&
+                ((ServerFeaturesEvent) evt).supportedFeatures().contains(ServerFeatures.UNORDERED_EXECUTION)) {
+                enableUnorderedExecution(OPAQUE_EXTRACTOR);
+            }
+            if (env().clustermapNotificationsEnabled() && ((ServerFeaturesEvent) evt).supportedFeatures()
+                .contains(ServerFeatures.CLUSTERMAP_CHANGE_NOTIFICATION)) {
+                clustermapNotifications = true;
+                endpoint().signalClustermapNotifications(true);
+            }
         }
 
         super.userEventTriggered(ctx, evt);
     }
 
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+        if (clustermapNotifications) {
+            clustermapNotifications = false;
+            endpoint().signalClustermapNotifications(false);
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    protected void decode(final ChannelHandlerContext ctx, final FullBinaryMemcacheResponse msg,
+        final List<Object> out) throws Exception {
+        if (msg.getMagic() == MAGIC_SERVER_REQUEST) {
+            handleServerRequest(ctx, msg);
+        } else {
+            super.decode(ctx, msg, out);
+        }
+    }
+
+    /**
+     * Handles a request sent by the server, which is not matched against the outstanding requests.
+     *
+     * A clustermap change notification carries the bucket name as key and the new config as body (the
+     * revision in the extras is checked again when the config is proposed), no response is sent back.
+     * If the body is empty or the host placeholder can't be replaced, a config reload is signalled instead.
+     *
+     * @param ctx the handler context.
+     * @param msg the server request.
+     */
+    private void handleServerRequest(final ChannelHandlerContext ctx, final FullBinaryMemcacheResponse msg) {
+        if (msg.getOpcode() != OP_CLUSTERMAP_CHANGE_NOTIFICATION) {
+            LOGGER.debug("{}Ignoring unsupported server request with opcode {}.", logIdent(ctx, endpoint()),
+                msg.getOpcode());
+            return;
+        }
+
+        String bucket = msg.getKey() == null ? "" : new String(msg.getKey(), CHARSET);
+        String config = msg.content().toString(CHARSET).trim();
+        String host = remoteHost(ctx);
+        if (bucket.isEmpty() || !config.startsWith("{") || (host == null && config.contains("$HOST"))) {
+            LOGGER.debug("{}Received clustermap change notification without usable config, signalling "
+                + "a config reload.", logIdent(ctx, endpoint()));
+            endpoint().signalConfigReload();
+            return;
+        }
+        LOGGER.debug("{}Received clustermap change notification for bucket \"{}\".", logIdent(ctx, endpoint()),
+            bucket);
+        endpoint().signalClustermapChange(bucket, host == null ? config : config.replace("$HOST", host));
+    }
+
+    /**
+     * Returns the address of the remote host of the channel, null if it is not an inet address.
+     */
+    private static String remoteHost(final ChannelHandlerContext ctx) {
+        SocketAddress address = ctx.channel().remoteAddress();
+        if (address instanceof InetSocketAddress && ((InetSocketAddress) address).getAddress() != null) {
+            return ((InetSocketAddress) address).getAddress().getHostAddress();
+        }
+        return null;
+    }
+
     @Override
     protected CouchbaseRequest createKeepAliveRequest() {
         return new KeepAliveRequest();
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.kv;
+
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultFullBinaryMemcacheResponse;
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.FullBinaryMemcacheResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.List;
+
+/**
+ * Decodes binary memcache response frames straight into {@link FullBinaryMemcacheResponse}s.
+ *
+ * Unlike the chunked response decoder followed by the object aggregator, this decoder does not copy the
+ * extras and the value into a new buffer if the full frame is already readable. It hands out retained
+ * slices of the read buffer instead, which are released together with the response.
+ *
+ * Only if a frame spans more than one read, a buffer of exactly the frame size is allocated and the
+ * bytes are copied into it as they arrive, so large documents are copied once and not cumulated
+ * over and over.
+ *
+ * @since 1.5.3
+ */
+public class KeyValueResponseDecoder extends ByteToMessageDecoder {
+
+    /**
+     * The size of the fixed binary protocol header.
+     */
+    static final int HEADER_SIZE = 24;
+
+    private static final int TOTAL_BODY_LENGTH_OFFSET = 8;
+
+    /**
+     * Holds the frame which is currently aggregated because it spans reads, null otherwise.
+     */
+    private ByteBuf partialFrame;
+
+    @Override
+    protected void decode(final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out)
+        throws Exception {
+        if (partialFrame != null) {
+            partialFrame.writeBytes(in, Math.min(in.readableBytes(), partialFrame.writableBytes()));
+            if (partialFrame.isWritable()) {
+                return;
+            }
+
+            ByteBuf frame = partialFrame;
+            partialFrame = null;
+            try {
+                out.add(decodeFrame(frame, frame.readerIndex()));
+            } finally {
+                frame.release();
+            }
+            return;
+        }
+
+        if (in.readableBytes() < HEADER_SIZE) {
+            return;
+        }
+
+        int totalBodyLength = in.getInt(in.readerIndex() + TOTAL_BODY_LENGTH_OFFSET);
+        if (totalBodyLength < 0) {
+            in.skipBytes(in.readableBytes());
+            throw new CorruptedFrameException("Negative total body length in response header: " + totalBodyLength);
+        }
+
+        int frameLength = HEADER_SIZE + totalBodyLength;
+        if (in.readableBytes() >= frameLength) {
+            out.add(decodeFrame(in, in.readerIndex()));
+            in.skipBytes(frameLength);
+        } else {
+            partialFrame = ctx.alloc().buffer(frameLength, frameLength);
+            partialFrame.writeBytes(in);
+        }
+    }
+
+    /**
+     * Creates the response for the complete frame starting at the given index.
+     *
+     * The extras and the content are retained slices of the given buffer, the reader index is not modified.
+     *
+     * @param buf the buffer holding the complete frame.
+     * @param index the index where the frame starts.
+     * @return the decoded response.
+     */
+    private static FullBinaryMemcacheResponse decodeFrame(final ByteBuf buf, final int index) {
+        int keyLength = buf.getUnsignedShort(index + 2);
+        short extrasLength = buf.getUnsignedByte(index + 4);
+        int totalBodyLength = buf.getInt(index + TOTAL_BODY_LENGTH_OFFSET);
+        int valueLength = totalBodyLength - keyLength - extrasLength;
+        if (valueLength < 0) {
+            throw new CorruptedFrameException("Inconsistent lengths in response header (key: " + keyLength
+                + ", extras: " + extrasLength + ", total body: " + totalBodyLength + ")");
+        }
+
+        int extrasIndex = index + HEADER_SIZE;
+        int keyIndex = extrasIndex + extrasLength;
+        int valueIndex = keyIndex + keyLength;
+
+        ByteBuf extras = extrasLength > 0 ? buf.slice(extrasIndex, extrasLength).retain() : null;
+        byte[] key = null;
+        if (keyLength > 0) {
+            key = new byte[keyLength];
+            buf.getBytes(keyIndex, key);
+        }
+        ByteBuf content = valueLength > 0 ? buf.slice(valueIndex, valueLength).retain() : Unpooled.EMPTY_BUFFER;
+
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(key, extras, content);
+        response.setMagic(buf.getByte(index));
+        response.setOpcode(buf.getByte(index + 1));
+        response.setKeyLength((short) keyLength);
+        response.setExtrasLength((byte) extrasLength);
+        response.setDataType(buf.getByte(index + 5));
+        response.setStatus(buf.getShort(index + 6));
+        response.setTotalBodyLength(totalBodyLength);
+        response.setOpaque(buf.getInt(index + 12));
+        response.setCAS(buf.getLong(index + 16));
+        return response;
+    }
+
+    @Override
+    protected void handlerRemoved0(final ChannelHandlerContext ctx) throws Exception {
+        releasePartialFrame();
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+        releasePartialFrame();
+        super.channelInactive(ctx);
+    }
+
+    private void releasePartialFrame() {
+        if (partialFrame != null) {
+            partialFrame.release();
+            partialFrame = null;
+        }
+    }
+}
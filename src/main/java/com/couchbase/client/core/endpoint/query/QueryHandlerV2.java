@@ -81,7 +81,8 @@ public class QueryHandlerV2 extends AbstractGenericHandler<HttpObject, HttpReque
     public QueryHandlerV2(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseBuffer, boolean isTransient,
                         final boolean pipeline) {
         super(endpoint, responseBuffer, isTransient, pipeline);
-        parser = new YasjlQueryResponseParser(env().scheduler(), env().autoreleaseAfter());
+        parser = new YasjlQueryResponseParser(env().scheduler(), env().autoreleaseAfter(),
+            env().streamingRowWindow());
     }
 
     /**
@@ -94,7 +95,8 @@ public class QueryHandlerV2 extends AbstractGenericHandler<HttpObject, HttpReque
     QueryHandlerV2(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseBuffer, Queue<QueryRequest> queue,
                  boolean isTransient, final boolean pipeline) {
         super(endpoint, responseBuffer, queue, isTransient, pipeline);
-        parser = new YasjlQueryResponseParser(env().scheduler(), env().autoreleaseAfter());
+        parser = new YasjlQueryResponseParser(env().scheduler(), env().autoreleaseAfter(),
+            env().streamingRowWindow());
     }
 
 
@@ -155,7 +157,8 @@ public class QueryHandlerV2 extends AbstractGenericHandler<HttpObject, HttpReque
 
             //initialize parser for current response
             if (!parser.isInitialized()) {
-                parser.initialize(responseContent, ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), currentRequest());
+                parser.initialize(responseContent, ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()),
+                    currentRequest(), ctx.channel());
             }
 
             //important to place the RawQueryRequest test before, as it extends GenericQueryRequest
@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core.endpoint.query.parser;
 
+import com.couchbase.client.core.endpoint.util.StreamingRowSubject;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.CouchbaseRequest;
@@ -27,9 +28,11 @@ import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
 import com.couchbase.client.core.utils.yasjl.JsonPointer;
 import java.io.EOFException;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.util.CharsetUtil;
 import rx.Scheduler;
 import rx.subjects.AsyncSubject;
+import rx.subjects.Subject;
 
 import java.nio.charset.Charset;
 import java.util.concurrent.TimeUnit;
@@ -63,15 +66,21 @@ public class YasjlQueryResponseParser {
      */
     private final long ttl;
 
+    /**
+     * The maximum number of buffered rows before reading is paused, 0 if unbounded.
+     */
+    private final int rowWindow;
+
     /**
      * The actual yasjl parser handling the response.
      */
     private final ByteBufJsonParser parser;
 
     /**
-     * Represents an observable that sends result chunks.
+     * Represents an observable that sends result chunks, a {@link StreamingRowSubject} if the rows are
+     * streamed with a window.
      */
-    private UnicastAutoReleaseSubject<ByteBuf> queryRowObservable;
+    private Subject<ByteBuf, ByteBuf> queryRowObservable;
 
     /**
      * Represents an observable that has the signature of the N1QL results if there are any.
@@ -146,8 +155,21 @@ public class YasjlQueryResponseParser {
      * @param ttl the ttl used for the subjects until their contents are garbage collected.
      */
     public YasjlQueryResponseParser(final Scheduler scheduler, final long ttl) {
+        this(scheduler, ttl, 0);
+    }
+
+    /**
+     * Create a new {@link YasjlQueryResponseParser} which streams rows with a window.
+     *
+     * @param scheduler the scheduler which should be used when computations are moved out.
+     * @param ttl the ttl used for the subjects until their contents are garbage collected.
+     * @param rowWindow the maximum number of buffered rows before reading from the channel is paused,
+     *                  0 if unbounded.
+     */
+    public YasjlQueryResponseParser(final Scheduler scheduler, final long ttl, final int rowWindow) {
         this.scheduler = scheduler;
         this.ttl = ttl;
+        this.rowWindow = rowWindow;
         this.response = null;
 
         JsonPointer[] jsonPointers = {
@@ -156,9 +178,7 @@ public class YasjlQueryResponseParser {
                         requestID = buf.toString(CHARSET);
                         requestID = requestID.substring(1, requestID.length() - 1);
                         buf.release();
-                        if (queryRowObservable != null) {
-                            queryRowObservable.withTraceIdentifier("queryRow." + requestID);
-                        }
+                        StreamingRowSubject.traceIdentifier(queryRowObservable, "queryRow." + requestID);
                         if (queryErrorObservable != null) {
                             queryErrorObservable.withTraceIdentifier("queryError." + requestID);
                         }
@@ -277,6 +297,22 @@ public class YasjlQueryResponseParser {
      */
     public void initialize(final ByteBuf responseContent, final ResponseStatus responseStatus,
         final CouchbaseRequest request) {
+        initialize(responseContent, responseStatus, request, null);
+    }
+
+    /**
+     * Initialize this parser for a response parsing cycle.
+     *
+     * If a row window is configured and the channel is given, the rows are streamed according to the
+     * demand of their subscriber and reading from the channel is paused while the window is full.
+     *
+     * @param responseContent the raw content to parse from.
+     * @param responseStatus the status of the response.
+     * @param request the original request.
+     * @param channel the channel the response is read from, may be null.
+     */
+    public void initialize(final ByteBuf responseContent, final ResponseStatus responseStatus,
+        final CouchbaseRequest request, final Channel channel) {
         this.requestID = "";
         this.clientContextID = ""; //initialize to empty string instead of null as it is optional on the wire
         this.sentResponse = false;
@@ -285,7 +321,8 @@ public class YasjlQueryResponseParser {
         this.responseContent = responseContent;
         this.currentRequest = request;
 
-        queryRowObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        queryRowObservable = StreamingRowSubject.createRows(channel, rowWindow, ttl, TimeUnit.MILLISECONDS,
+            scheduler, null);
         queryErrorObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
         queryStatusObservable = AsyncSubject.create();
         queryInfoObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
@@ -302,7 +339,7 @@ public class YasjlQueryResponseParser {
     private void createResponse() {
         response = new GenericQueryResponse(
             queryErrorObservable.onBackpressureBuffer(),
-            queryRowObservable.onBackpressureBuffer(),
+            StreamingRowSubject.rows(queryRowObservable),
             querySignatureObservable.onBackpressureBuffer(),
             queryStatusObservable.onBackpressureBuffer(),
             queryInfoObservable.onBackpressureBuffer(),
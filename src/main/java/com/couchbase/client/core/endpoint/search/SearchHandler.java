@@ -19,6 +19,7 @@ import com.couchbase.client.core.ResponseEvent;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
 import com.couchbase.client.core.endpoint.AbstractGenericHandler;
 import com.couchbase.client.core.endpoint.ResponseStatusConverter;
+import com.couchbase.client.core.endpoint.search.parser.YasjlSearchResponseParser;
 import com.couchbase.client.core.logging.CouchbaseLogger;
 import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
@@ -35,6 +36,7 @@ import com.couchbase.client.core.message.search.RemoveSearchIndexResponse;
 import com.couchbase.client.core.message.search.SearchQueryRequest;
 import com.couchbase.client.core.message.search.SearchQueryResponse;
 import com.couchbase.client.core.message.search.SearchRequest;
+import com.couchbase.client.core.message.search.StreamingSearchQueryRequest;
 import com.couchbase.client.core.service.ServiceType;
 import com.lmax.disruptor.EventSink;
 import com.lmax.disruptor.RingBuffer;
@@ -76,6 +78,11 @@ public class SearchHandler extends AbstractGenericHandler<HttpObject, HttpReques
      */
     private ByteBuf responseContent;
 
+    /**
+     * The parser for the responses of {@link StreamingSearchQueryRequest}s, created on first use.
+     */
+    private YasjlSearchResponseParser parser;
+
     public SearchHandler(AbstractEndpoint endpoint, EventSink<ResponseEvent> responseBuffer, boolean isTransient,
                          final boolean pipeline) {
         super(endpoint, responseBuffer, isTransient, pipeline);
@@ -162,6 +169,22 @@ public class SearchHandler extends AbstractGenericHandler<HttpObject, HttpReques
                 responseContent.discardReadBytes();
                 finishedDecoding();
             }
+        } else if (request instanceof StreamingSearchQueryRequest) {
+            if (msg instanceof HttpContent) {
+                if (parser == null) {
+                    parser = new YasjlSearchResponseParser(env().scheduler(), env().autoreleaseAfter(),
+                        env().streamingRowWindow());
+                }
+                if (!parser.isInitialized()) {
+                    parser.initialize(responseContent, responseHeader.getStatus().code(),
+                        ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), request, ctx.channel());
+                }
+                response = parser.parse();
+                if (msg instanceof LastHttpContent) {
+                    parser.finishParsingAndReset();
+                    finishedDecoding();
+                }
+            }
         } else if (msg instanceof LastHttpContent) {
             ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
             String body = responseContent.readableBytes() > 0
@@ -183,6 +206,18 @@ public class SearchHandler extends AbstractGenericHandler<HttpObject, HttpReques
         return response;
     }
 
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        if (parser != null && parser.isInitialized()) {
+            parser.finishParsingAndReset();
+        }
+        if (responseContent != null && responseContent.refCnt() > 0) {
+            responseContent.release();
+            responseContent = null;
+        }
+        super.handlerRemoved(ctx);
+    }
+
     @Override
     protected ServiceType serviceType() {
         return ServiceType.SEARCH;
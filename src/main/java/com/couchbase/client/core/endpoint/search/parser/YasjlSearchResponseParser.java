@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.search.parser;
+
+import com.couchbase.client.core.endpoint.util.StreamingRowSubject;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.search.StreamingSearchQueryResponse;
+import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
+import com.couchbase.client.core.utils.yasjl.ByteBufJsonParser;
+import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
+import com.couchbase.client.core.utils.yasjl.JsonPointer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.CharsetUtil;
+import rx.Scheduler;
+import rx.subjects.AsyncSubject;
+import rx.subjects.Subject;
+
+import java.io.EOFException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A search query response parser, based on yasjl.
+ *
+ * Each hit is emitted as soon as the parser has seen its closing bracket and the parsed bytes are
+ * discarded after every chunk, so neither the full body nor a string copy of it is kept. The status
+ * and facets are emitted once parsed, the info (total hits, max score and took) at the end of the
+ * response. The body of a response which failed on the HTTP level is emitted as an error at the end.
+ *
+ * @since 1.5.3
+ */
+public class YasjlSearchResponseParser {
+
+    /**
+     * The logger used for this parser.
+     */
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(YasjlSearchResponseParser.class);
+
+    /**
+     * The default charset used when decoding.
+     */
+    private static final Charset CHARSET = CharsetUtil.UTF_8;
+
+    /**
+     * Scheduler for search response
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * TTL for response observables
+     */
+    private final long ttl;
+
+    /**
+     * The maximum number of buffered hits before reading is paused, 0 if unbounded.
+     */
+    private final int rowWindow;
+
+    /**
+     * The actual yasjl parser handling the response.
+     */
+    private final ByteBufJsonParser parser;
+
+    /**
+     * Represents an observable that sends the hits, a {@link StreamingRowSubject} if the hits are
+     * streamed with a window.
+     */
+    private Subject<ByteBuf, ByteBuf> hitObservable;
+
+    /**
+     * Contains the facets of the response, if any.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> facetObservable;
+
+    /**
+     * Contains the status object of the response.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> statusObservable;
+
+    /**
+     * Contains the total hits, max score and took fields of the response.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> infoObservable;
+
+    /**
+     * Contains the body of a response which failed on the HTTP level.
+     */
+    private AsyncSubject<String> errorObservable;
+
+    /**
+     * The raw total hits value, if received.
+     */
+    private ByteBuf totalHits;
+
+    /**
+     * The raw max score value, if received.
+     */
+    private ByteBuf maxScore;
+
+    /**
+     * The raw took value, if received.
+     */
+    private ByteBuf took;
+
+    /**
+     * True if the response has been returned already.
+     */
+    private boolean sentResponse;
+
+    /**
+     * Flag to indicate if the parser is initialized
+     */
+    private boolean initialized;
+
+    /**
+     * True if the http status code of the current response signals success.
+     */
+    private boolean success;
+
+    /**
+     * Response status
+     */
+    private ResponseStatus status;
+
+    /**
+     * Represents the current request
+     */
+    private CouchbaseRequest currentRequest;
+
+    /**
+     * A buffer for the current raw response content.
+     */
+    private ByteBuf responseContent;
+
+    /**
+     * Create a new {@link YasjlSearchResponseParser}.
+     *
+     * @param scheduler the scheduler which should be used when computations are moved out.
+     * @param ttl the ttl used for the subjects until their contents are garbage collected.
+     * @param rowWindow the maximum number of buffered hits before reading from the channel is paused,
+     *                  0 if unbounded.
+     */
+    public YasjlSearchResponseParser(final Scheduler scheduler, final long ttl, final int rowWindow) {
+        this.scheduler = scheduler;
+        this.ttl = ttl;
+        this.rowWindow = rowWindow;
+
+        JsonPointer[] jsonPointers = {
+            new JsonPointer("/status", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (statusObservable != null) {
+                        statusObservable.onNext(buf);
+                        statusObservable.onCompleted();
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/hits/-", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (hitObservable != null) {
+                        hitObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/facets", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (facetObservable != null && !isNull(buf)) {
+                        facetObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/total_hits", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (totalHits != null) {
+                        totalHits.release();
+                    }
+                    totalHits = buf;
+                }
+            }),
+            new JsonPointer("/max_score", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (maxScore != null) {
+                        maxScore.release();
+                    }
+                    maxScore = buf;
+                }
+            }),
+            new JsonPointer("/took", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (took != null) {
+                        took.release();
+                    }
+                    took = buf;
+                }
+            })
+        };
+        this.parser = new ByteBufJsonParser(jsonPointers);
+    }
+
+    /**
+     * True if this parser is currently initialized and ready to parse a response.
+     *
+     * @return true if initialized, false otherwise.
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Initialize this parser for a response parsing cycle.
+     *
+     * If a row window is configured and the channel is given, the hits are streamed according to the
+     * demand of their subscriber and reading from the channel is paused while the window is full.
+     *
+     * @param responseContent the raw content to parse from.
+     * @param code the http status code of the response.
+     * @param responseStatus the status of the response.
+     * @param request the original request.
+     * @param channel the channel the response is read from, may be null.
+     */
+    public void initialize(final ByteBuf responseContent, final int code, final ResponseStatus responseStatus,
+        final CouchbaseRequest request, final Channel channel) {
+        this.responseContent = responseContent;
+        this.success = code == 200;
+        this.status = responseStatus;
+        this.currentRequest = request;
+        this.sentResponse = false;
+
+        hitObservable = StreamingRowSubject.createRows(channel, rowWindow, ttl, TimeUnit.MILLISECONDS, scheduler,
+            "searchHit");
+        facetObservable = UnicastAutoReleaseSubject.<ByteBuf>create(ttl, TimeUnit.MILLISECONDS, scheduler)
+            .withTraceIdentifier("searchFacets");
+        statusObservable = UnicastAutoReleaseSubject.<ByteBuf>create(ttl, TimeUnit.MILLISECONDS, scheduler)
+            .withTraceIdentifier("searchStatus");
+        infoObservable = UnicastAutoReleaseSubject.<ByteBuf>create(ttl, TimeUnit.MILLISECONDS, scheduler)
+            .withTraceIdentifier("searchInfo");
+        errorObservable = AsyncSubject.create();
+
+        if (success) {
+            parser.initialize(responseContent);
+        } else {
+            // the body of a failed response is the error itself, there is nothing to stream.
+            hitObservable.onCompleted();
+            facetObservable.onCompleted();
+            statusObservable.onCompleted();
+            infoObservable.onCompleted();
+        }
+        initialized = true;
+    }
+
+    /**
+     * Instruct the parser to run a new parsing cycle on the current response content.
+     *
+     * @return the {@link StreamingSearchQueryResponse} on the first call for a response, null afterwards.
+     * @throws Exception if the internal parsing can't complete.
+     */
+    public StreamingSearchQueryResponse parse() throws Exception {
+        if (success) {
+            try {
+                parser.parse();
+                responseContent.discardSomeReadBytes();
+            } catch (EOFException ex) {
+                parser.discardParsedBytes();
+                LOGGER.trace("Still expecting more data for search response");
+            }
+        }
+
+        if (!sentResponse) {
+            sentResponse = true;
+            return new StreamingSearchQueryResponse(
+                StreamingRowSubject.rows(hitObservable).observeOn(scheduler),
+                facetObservable.onBackpressureBuffer().observeOn(scheduler),
+                statusObservable.onBackpressureBuffer().observeOn(scheduler),
+                infoObservable.onBackpressureBuffer().observeOn(scheduler),
+                errorObservable.observeOn(scheduler),
+                status,
+                currentRequest
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Emits the info object from the fields received, if any.
+     */
+    private void emitInfo() {
+        if (totalHits == null && maxScore == null && took == null) {
+            return;
+        }
+
+        ByteBuf info = responseContent.alloc().buffer();
+        info.writeByte('{');
+        appendField(info, "total_hits", totalHits);
+        appendField(info, "max_score", maxScore);
+        appendField(info, "took", took);
+        info.writeByte('}');
+        infoObservable.onNext(info);
+    }
+
+    private static void appendField(final ByteBuf info, final String name, final ByteBuf value) {
+        if (value == null) {
+            return;
+        }
+        if (info.readableBytes() > 1) {
+            info.writeByte(',');
+        }
+        info.writeByte('"').writeBytes(name.getBytes(CHARSET)).writeByte('"').writeByte(':').writeBytes(value);
+    }
+
+    private static boolean isNull(final ByteBuf buf) {
+        return buf.readableBytes() == 4 && buf.toString(CHARSET).equals("null");
+    }
+
+    /**
+     * Instruct the parser to finish the parsing and reset its internal state, turning it
+     * back to uninitialized as well.
+     */
+    public void finishParsingAndReset() {
+        if (hitObservable != null) {
+            hitObservable.onCompleted();
+        }
+        if (facetObservable != null) {
+            facetObservable.onCompleted();
+        }
+        if (statusObservable != null) {
+            statusObservable.onCompleted();
+        }
+        if (infoObservable != null) {
+            if (success) {
+                emitInfo();
+            }
+            infoObservable.onCompleted();
+        }
+        if (errorObservable != null) {
+            if (!success) {
+                errorObservable.onNext(responseContent.toString(CHARSET));
+            }
+            errorObservable.onCompleted();
+        }
+        releaseFields();
+        hitObservable = null;
+        facetObservable = null;
+        statusObservable = null;
+        infoObservable = null;
+        errorObservable = null;
+        responseContent = null;
+        currentRequest = null;
+        initialized = false;
+    }
+
+    /**
+     * Releases the raw fields which have not been emitted.
+     */
+    private void releaseFields() {
+        if (totalHits != null) {
+            totalHits.release();
+            totalHits = null;
+        }
+        if (maxScore != null) {
+            maxScore.release();
+            maxScore = null;
+        }
+        if (took != null) {
+            took.release();
+            took = null;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.util;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+import rx.Observable;
+import rx.Producer;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.exceptions.Exceptions;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.subjects.Subject;
+import rx.subscriptions.Subscriptions;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A unicast subject for streamed rows which honors the demand of its subscriber and pauses reading
+ * from the channel while too many rows are buffered.
+ *
+ * Rows are buffered until the subscriber requests them. Once the given window of rows is buffered,
+ * auto read is disabled on the channel so that no more data is pulled off the socket. It is enabled
+ * again when the buffer drains to half the window, when the stream terminates (so the next response
+ * on the channel is not held up) and when the rows are discarded because the subscriber unsubscribed
+ * or did not show up within the no subscription timeout.
+ *
+ * Like the {@link UnicastAutoReleaseSubject}, only one subscriber is allowed and rows which are never
+ * delivered are released. Rows are produced from the event loop of the channel, they can be requested
+ * from any thread.
+ *
+ * @since 1.5.3
+ */
+@InterfaceAudience.Private
+public final class StreamingRowSubject<T> extends Subject<T, T> {
+
+    private final State<T> state;
+
+    private StreamingRowSubject(final State<T> state) {
+        super(state);
+        this.state = state;
+    }
+
+    /**
+     * Creates a new {@link StreamingRowSubject}.
+     *
+     * @param channel the channel the rows are read from.
+     * @param window the maximum number of buffered rows before reading is paused.
+     * @param noSubscriptionTimeout the time after the first row after which the rows are discarded if
+     *                              nobody subscribed.
+     * @param timeUnit the unit of the timeout.
+     * @param timeoutScheduler the scheduler to run the timeout on.
+     * @param <T> the type of the rows.
+     * @return the created subject.
+     */
+    public static <T> StreamingRowSubject<T> create(final Channel channel, final int window,
+        final long noSubscriptionTimeout, final TimeUnit timeUnit, final Scheduler timeoutScheduler) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The window must be greater than 0");
+        }
+        return new StreamingRowSubject<T>(new State<T>(channel, window,
+            Observable.timer(noSubscriptionTimeout, timeUnit, timeoutScheduler)));
+    }
+
+    /**
+     * Creates the subject for the rows of a response, which is streamed with the given window if a channel
+     * is given and the window is greater than 0, otherwise the rows are buffered by an
+     * {@link UnicastAutoReleaseSubject}.
+     *
+     * @param channel the channel the rows are read from, may be null.
+     * @param window the maximum number of buffered rows before reading is paused, 0 if unbounded.
+     * @param ttl the time after which the rows are discarded if nobody subscribed.
+     * @param timeUnit the unit of the ttl.
+     * @param scheduler the scheduler to run the timeout on.
+     * @param traceId the trace identifier of the subject, may be null.
+     * @param <T> the type of the rows.
+     * @return the created subject.
+     */
+    public static <T> Subject<T, T> createRows(final Channel channel, final int window, final long ttl,
+        final TimeUnit timeUnit, final Scheduler scheduler, final String traceId) {
+        if (window > 0 && channel != null) {
+            return StreamingRowSubject.<T>create(channel, window, ttl, timeUnit, scheduler)
+                .withTraceIdentifier(traceId);
+        }
+        return UnicastAutoReleaseSubject.<T>create(ttl, timeUnit, scheduler).withTraceIdentifier(traceId);
+    }
+
+    /**
+     * Returns the observable of rows created by {@link #createRows(Channel, int, long, TimeUnit, Scheduler, String)}
+     * which is handed out with the response, only buffered without bounds if the rows are not streamed.
+     *
+     * @param rows the subject of the rows.
+     * @param <T> the type of the rows.
+     * @return the observable of the rows.
+     */
+    public static <T> Observable<T> rows(final Subject<T, T> rows) {
+        return rows instanceof StreamingRowSubject ? rows : rows.onBackpressureBuffer();
+    }
+
+    /**
+     * Sets the trace identifier of a subject created by
+     * {@link #createRows(Channel, int, long, TimeUnit, Scheduler, String)}.
+     *
+     * @param rows the subject of the rows.
+     * @param id the trace identifier.
+     */
+    public static void traceIdentifier(final Subject<?, ?> rows, final String id) {
+        if (rows instanceof StreamingRowSubject) {
+            ((StreamingRowSubject<?>) rows).withTraceIdentifier(id);
+        } else if (rows instanceof UnicastAutoReleaseSubject) {
+            ((UnicastAutoReleaseSubject<?>) rows).withTraceIdentifier(id);
+        }
+    }
+
+    public StreamingRowSubject<T> withTraceIdentifier(final String id) {
+        state.traceId = id;
+        return this;
+    }
+
+    /**
+     * Discards all rows if nobody subscribed yet, see
+     * {@link UnicastAutoReleaseSubject#disposeIfNotSubscribed()}.
+     *
+     * @return true if the subject was disposed by this call.
+     */
+    public boolean disposeIfNotSubscribed() {
+        if (state.subscriptionState.compareAndSet(State.UNSUBSCRIBED, State.DISPOSED)) {
+            state.drain();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if reading from the channel is currently paused by this subject.
+     */
+    public boolean isPaused() {
+        return state.paused;
+    }
+
+    @Override
+    public void onNext(final T row) {
+        state.queue.offer(row);
+        if (state.queued.incrementAndGet() >= state.window && !state.paused) {
+            state.pause();
+        }
+
+        if (state.timeoutScheduled.compareAndSet(false, true)
+            && state.subscriptionState.get() == State.UNSUBSCRIBED) {
+            state.timeoutSubscription = state.timeout.subscribe(new Action1<Long>() {
+                @Override
+                public void call(Long ignored) {
+                    disposeIfNotSubscribed();
+                }
+            });
+        }
+        state.drain();
+    }
+
+    @Override
+    public void onError(final Throwable e) {
+        state.error = e;
+        state.done = true;
+        state.scheduleResume();
+        state.drain();
+    }
+
+    @Override
+    public void onCompleted() {
+        state.done = true;
+        state.scheduleResume();
+        state.drain();
+    }
+
+    @Override
+    public boolean hasObservers() {
+        return state.subscriptionState.get() == State.SUBSCRIBED;
+    }
+
+    /**
+     * The state shared between the subject and its single subscriber.
+     */
+    private static final class State<T> implements OnSubscribe<T>, Producer {
+
+        static final int UNSUBSCRIBED = 0;
+        static final int SUBSCRIBED = 1;
+        static final int DISPOSED = 2;
+
+        private final Channel channel;
+        private final int window;
+        private final int lowWatermark;
+        private final Observable<Long> timeout;
+
+        private final Queue<T> queue = new ConcurrentLinkedQueue<T>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger subscriptionState = new AtomicInteger(UNSUBSCRIBED);
+        private final AtomicBoolean timeoutScheduled = new AtomicBoolean();
+        private final AtomicBoolean resumeScheduled = new AtomicBoolean();
+
+        private volatile Subscriber<? super T> subscriber;
+        private volatile Subscription timeoutSubscription;
+        private volatile boolean done;
+        private volatile boolean paused;
+        private Throwable error;
+        private boolean terminated;
+        private String traceId;
+
+        /**
+         * Re-enables reading on the event loop if the reason for pausing is gone.
+         */
+        private final Runnable resumeTask = new Runnable() {
+            @Override
+            public void run() {
+                resumeScheduled.set(false);
+                if (paused && (queued.get() <= lowWatermark || done || subscriptionState.get() == DISPOSED)) {
+                    paused = false;
+                    channel.config().setAutoRead(true);
+                }
+            }
+        };
+
+        State(final Channel channel, final int window, final Observable<Long> timeout) {
+            this.channel = channel;
+            this.window = window;
+            this.lowWatermark = window / 2;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public void call(final Subscriber<? super T> subscriber) {
+            if (subscriptionState.compareAndSet(UNSUBSCRIBED, SUBSCRIBED)) {
+                subscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        drain();
+                    }
+                }));
+                this.subscriber = subscriber;
+                if (timeoutSubscription != null) {
+                    timeoutSubscription.unsubscribe();
+                }
+                subscriber.setProducer(this);
+                drain();
+            } else {
+                String thisObservable = traceId == null ? "This Observable " : "This Observable (" + traceId + ") ";
+                if (subscriptionState.get() == SUBSCRIBED) {
+                    subscriber.onError(new IllegalStateException(thisObservable + "can only have one subscription. "
+                        + "Use Observable.publish() if you want to multicast."));
+                } else {
+                    subscriber.onError(new IllegalStateException(thisObservable + "is already released. "
+                        + "Subscribe earlier or tune the CouchbaseEnvironment#autoreleaseAfter() setting."));
+                }
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n >= 0 required but it was " + n);
+            }
+            if (n > 0) {
+                for (;;) {
+                    long current = requested.get();
+                    long next = current + n;
+                    if (next < 0) {
+                        next = Long.MAX_VALUE;
+                    }
+                    if (current == Long.MAX_VALUE || requested.compareAndSet(current, next)) {
+                        break;
+                    }
+                }
+                drain();
+            }
+        }
+
+        /**
+         * Disables reading, only called from the event loop when a row is added.
+         */
+        void pause() {
+            paused = true;
+            channel.config().setAutoRead(false);
+            // the subscriber might have drained the buffer before it saw the flag, so check again.
+            if (queued.get() <= lowWatermark) {
+                scheduleResume();
+            }
+        }
+
+        void scheduleResume() {
+            if (paused && resumeScheduled.compareAndSet(false, true)) {
+                if (channel.eventLoop().inEventLoop()) {
+                    resumeTask.run();
+                } else {
+                    channel.eventLoop().execute(resumeTask);
+                }
+            }
+        }
+
+        /**
+         * Emits buffered rows as requested, completes the subscriber and releases discarded rows.
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            for (;;) {
+                Subscriber<? super T> s = subscriber;
+                if (subscriptionState.get() == DISPOSED || (s != null && s.isUnsubscribed())) {
+                    discard();
+                } else if (s != null && !terminated) {
+                    emit(s);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void emit(final Subscriber<? super T> s) {
+            long r = requested.get();
+            long e = 0;
+            while (e != r) {
+                T row = queue.poll();
+                if (row == null) {
+                    break;
+                }
+                queued.decrementAndGet();
+                try {
+                    s.onNext(row);
+                } catch (Throwable t) {
+                    Exceptions.throwIfFatal(t);
+                    terminated = true;
+                    subscriptionState.set(DISPOSED);
+                    discard();
+                    s.onError(t);
+                    return;
+                }
+                e++;
+            }
+
+            if (e != 0) {
+                if (r != Long.MAX_VALUE) {
+                    requested.addAndGet(-e);
+                }
+                if (queued.get() <= lowWatermark) {
+                    scheduleResume();
+                }
+            }
+
+            if (done && queue.isEmpty()) {
+                terminated = true;
+                Throwable t = error;
+                if (t != null) {
+                    s.onError(t);
+                } else {
+                    s.onCompleted();
+                }
+            }
+        }
+
+        private void discard() {
+            subscriptionState.set(DISPOSED);
+            T row;
+            while ((row = queue.poll()) != null) {
+                queued.decrementAndGet();
+                ReferenceCountUtil.release(row);
+            }
+            scheduleResume();
+        }
+    }
+
+}
@@ -47,9 +47,13 @@ public class ViewEndpoint extends AbstractEndpoint {
         if (environment().keepAliveInterval() > 0) {
             pipeline.addLast(new IdleStateHandler(environment().keepAliveInterval(), 0, 0, TimeUnit.MILLISECONDS));
         }
-        pipeline
-            .addLast(new HttpClientCodec())
-            .addLast(new ViewHandler(this, responseBuffer(), false, false));
+        pipeline.addLast(new HttpClientCodec());
+        boolean enableV2 = Boolean.parseBoolean(System.getProperty("com.couchbase.enableYasjlViewResponseParser", "true"));
+        if (!enableV2) {
+            pipeline.addLast(new ViewHandler(this, responseBuffer(), false, false));
+        } else {
+            pipeline.addLast(new ViewHandlerV2(this, responseBuffer(), false, false));
+        }
     }
 
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import com.couchbase.client.core.endpoint.AbstractEndpoint;
 import com.couchbase.client.core.endpoint.AbstractGenericHandler;
 import com.couchbase.client.core.endpoint.ResponseStatusConverter;
 import com.couchbase.client.core.endpoint.util.ClosingPositionBufProcessor;
+import com.couchbase.client.core.endpoint.util.StreamingRowSubject;
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.AbstractCouchbaseResponse;
 import com.couchbase.client.core.message.CouchbaseRequest;
@@ -53,8 +54,10 @@ import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.CharsetUtil;
+import rx.Observable;
 import rx.Scheduler;
 import rx.subjects.AsyncSubject;
+import rx.subjects.Subject;
 
 import java.net.URLEncoder;
 import java.util.Queue;
@@ -91,7 +94,7 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
     /**
      * Represents a observable that sends config chunks if instructed.
      */
-    private UnicastAutoReleaseSubject<ByteBuf> viewRowObservable;
+    private Subject<ByteBuf, ByteBuf> viewRowObservable;
 
     /**
      * Contains info-level data about the view response.
@@ -263,7 +266,7 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
 
             if (currentRequest() instanceof ViewQueryRequest) {
                 if (viewRowObservable == null) {
-                    response = handleViewQueryResponse();
+                    response = handleViewQueryResponse(ctx);
                 }
 
                 parseQueryResponse(msg instanceof LastHttpContent);
@@ -315,25 +318,31 @@ public class ViewHandler extends AbstractGenericHandler<HttpObject, HttpRequest,
      *
      * Note that observables are attached to this response which are completed later in the response cycle.
      *
+     * If a streaming row window is configured, the rows are emitted according to the demand of their
+     * subscriber and reading from the channel is paused while the window is full.
+     *
+     * @param ctx the channel handler context of the response.
      * @return the initial response.
      */
-    private CouchbaseResponse handleViewQueryResponse() {
+    private CouchbaseResponse handleViewQueryResponse(final ChannelHandlerContext ctx) {
         int code = responseHeader.getStatus().code();
         String phrase = responseHeader.getStatus().reasonPhrase();
         ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
         Scheduler scheduler = env().scheduler();
         long ttl = env().autoreleaseAfter();
-        viewRowObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
+        int rowWindow = env().streamingRowWindow();
+        viewRowObservable = StreamingRowSubject.createRows(ctx.channel(), rowWindow, ttl, TimeUnit.MILLISECONDS,
+            scheduler, "viewRow");
+        Observable<ByteBuf> rows = StreamingRowSubject.rows(viewRowObservable).observeOn(scheduler);
         viewInfoObservable = UnicastAutoReleaseSubject.create(ttl, TimeUnit.MILLISECONDS, scheduler);
         viewErrorObservable = AsyncSubject.create();
 
         //set up trace ids on all these UnicastAutoReleaseSubjects, so that if they get in a bad state
         // (multiple subscribers or subscriber coming in too late) we can trace back to here
-        viewRowObservable.withTraceIdentifier("viewRow");
         viewInfoObservable.withTraceIdentifier("viewInfo");
 
         return new ViewQueryResponse(
-            viewRowObservable.onBackpressureBuffer().observeOn(scheduler),
+            rows,
             viewInfoObservable.onBackpressureBuffer().observeOn(scheduler),
             viewErrorObservable.observeOn(scheduler),
             code,
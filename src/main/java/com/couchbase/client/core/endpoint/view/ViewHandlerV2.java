@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.view;
+
+import com.couchbase.client.core.ResponseEvent;
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.AbstractGenericHandler;
+import com.couchbase.client.core.endpoint.ResponseStatusConverter;
+import com.couchbase.client.core.endpoint.view.parser.YasjlViewResponseParser;
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.message.AbstractCouchbaseResponse;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.KeepAlive;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.view.GetDesignDocumentRequest;
+import com.couchbase.client.core.message.view.GetDesignDocumentResponse;
+import com.couchbase.client.core.message.view.RemoveDesignDocumentRequest;
+import com.couchbase.client.core.message.view.RemoveDesignDocumentResponse;
+import com.couchbase.client.core.message.view.UpsertDesignDocumentRequest;
+import com.couchbase.client.core.message.view.UpsertDesignDocumentResponse;
+import com.couchbase.client.core.message.view.ViewQueryRequest;
+import com.couchbase.client.core.message.view.ViewRequest;
+import com.couchbase.client.core.service.ServiceType;
+import com.lmax.disruptor.RingBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.net.URLEncoder;
+import java.util.Queue;
+
+/**
+ * The {@link ViewHandlerV2} is responsible for encoding {@link ViewRequest}s into lower level
+ * {@link HttpRequest}s as well as decoding {@link HttpObject}s into
+ * {@link CouchbaseResponse}s. The view query response parser uses {@link YasjlViewResponseParser}.
+ *
+ * @since 1.5.3
+ */
+public class ViewHandlerV2 extends AbstractGenericHandler<HttpObject, HttpRequest, ViewRequest> {
+
+    private static final int MAX_GET_LENGTH = 2048;
+
+    /**
+     * Contains the current pending response header if set.
+     */
+    private HttpResponse responseHeader;
+
+    /**
+     * Contains the accumulating buffer for the response content.
+     */
+    private ByteBuf responseContent;
+
+    /**
+     * The parser for view query responses.
+     */
+    private final YasjlViewResponseParser parser;
+
+    /**
+     * Creates a new {@link ViewHandlerV2} with the default queue for requests.
+     *
+     * @param endpoint the {@link AbstractEndpoint} to coordinate with.
+     * @param responseBuffer the {@link RingBuffer} to push responses into.
+     */
+    public ViewHandlerV2(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseBuffer, boolean isTransient,
+                         final boolean pipeline) {
+        super(endpoint, responseBuffer, isTransient, pipeline);
+        parser = new YasjlViewResponseParser(env().scheduler(), env().autoreleaseAfter(),
+            env().streamingRowWindow());
+    }
+
+    /**
+     * Creates a new {@link ViewHandlerV2} with a custom queue for requests (suitable for tests).
+     *
+     * @param endpoint the {@link AbstractEndpoint} to coordinate with.
+     * @param responseBuffer the {@link RingBuffer} to push responses into.
+     * @param queue the queue which holds all outstanding open requests.
+     */
+    ViewHandlerV2(AbstractEndpoint endpoint, RingBuffer<ResponseEvent> responseBuffer, Queue<ViewRequest> queue,
+                  boolean isTransient, final boolean pipeline) {
+        super(endpoint, responseBuffer, queue, isTransient, pipeline);
+        parser = new YasjlViewResponseParser(env().scheduler(), env().autoreleaseAfter(),
+            env().streamingRowWindow());
+    }
+
+    @Override
+    protected HttpRequest encodeRequest(final ChannelHandlerContext ctx, final ViewRequest msg) throws Exception {
+        if (msg instanceof KeepAliveRequest) {
+            FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.HEAD, "/",
+                    Unpooled.EMPTY_BUFFER);
+            request.headers().set(HttpHeaders.Names.USER_AGENT, env().userAgent());
+            request.headers().set(HttpHeaders.Names.CONTENT_LENGTH, 0);
+            return request;
+        }
+
+        StringBuilder path = new StringBuilder();
+
+        HttpMethod method = HttpMethod.GET;
+        ByteBuf content = null;
+        if (msg instanceof ViewQueryRequest) {
+            ViewQueryRequest queryMsg = (ViewQueryRequest) msg;
+            path.append("/").append(msg.bucket()).append("/_design/");
+            path.append(queryMsg.development() ? "dev_" + queryMsg.design() : queryMsg.design());
+            if (queryMsg.spatial()) {
+                path.append("/_spatial/");
+            } else {
+                path.append("/_view/");
+            }
+            path.append(queryMsg.view());
+
+            int queryLength = queryMsg.query() == null ? 0 : queryMsg.query().length();
+            int keysLength = queryMsg.keys() == null ? 0 : queryMsg.keys().length();
+            boolean hasQuery = queryLength > 0;
+            boolean hasKeys = keysLength > 0;
+
+            if (hasQuery || hasKeys) {
+                if (queryLength + keysLength < MAX_GET_LENGTH) {
+                    //the query is short enough for GET
+                    //it has query, query+keys or keys only
+                    if (hasQuery) {
+                        path.append("?").append(queryMsg.query());
+                        if (hasKeys) {
+                            path.append("&keys=").append(encodeKeysGet(queryMsg.keys()));
+                        }
+                    } else {
+                        //it surely has keys if not query
+                        path.append("?keys=").append(encodeKeysGet(queryMsg.keys()));
+                    }
+                } else {
+                    //the query is too long for GET, use the keys as JSON body
+                    if (hasQuery) {
+                        path.append("?").append(queryMsg.query());
+                    }
+                    String keysContent = encodeKeysPost(queryMsg.keys());
+
+                    //switch to POST
+                    method = HttpMethod.POST;
+                    //body is "keys" but in JSON
+                    content = ctx.alloc().buffer(keysContent.length());
+                    content.writeBytes(keysContent.getBytes(CHARSET));
+                }
+            }
+        } else if (msg instanceof GetDesignDocumentRequest) {
+            GetDesignDocumentRequest queryMsg = (GetDesignDocumentRequest) msg;
+            path.append("/").append(msg.bucket()).append("/_design/");
+            path.append(queryMsg.development() ? "dev_" + queryMsg.name() : queryMsg.name());
+        } else if (msg instanceof UpsertDesignDocumentRequest) {
+            method = HttpMethod.PUT;
+            UpsertDesignDocumentRequest queryMsg = (UpsertDesignDocumentRequest) msg;
+            path.append("/").append(msg.bucket()).append("/_design/");
+            path.append(queryMsg.development() ? "dev_" + queryMsg.name() : queryMsg.name());
+            content = Unpooled.copiedBuffer(queryMsg.body(), CHARSET);
+        } else if (msg instanceof RemoveDesignDocumentRequest) {
+            method = HttpMethod.DELETE;
+            RemoveDesignDocumentRequest queryMsg = (RemoveDesignDocumentRequest) msg;
+            path.append("/").append(msg.bucket()).append("/_design/");
+            path.append(queryMsg.development() ? "dev_" + queryMsg.name() : queryMsg.name());
+        } else {
+            throw new IllegalArgumentException("Unknown incoming ViewRequest type "
+                + msg.getClass());
+        }
+
+        if (content == null) {
+            content =  Unpooled.buffer(0);
+        }
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, path.toString(), content);
+        request.headers().set(HttpHeaders.Names.USER_AGENT, env().userAgent());
+        request.headers().set(HttpHeaders.Names.CONTENT_LENGTH, content.readableBytes());
+        request.headers().set(HttpHeaders.Names.CONTENT_TYPE, "application/json");
+        request.headers().set(HttpHeaders.Names.HOST, remoteHttpHost(ctx));
+        addHttpBasicAuth(ctx, request, msg.username(), msg.password());
+
+        return request;
+    }
+
+    /**
+     * Encodes the "keys" JSON array into a JSON object suitable for a POST body on query service.
+     */
+    private String encodeKeysPost(String keys) {
+        return "{\"keys\":" + keys + "}";
+    }
+
+    /**
+     * Encodes the "keys" JSON array into an URL-encoded form suitable for a GET on query service.
+     */
+    private String encodeKeysGet(String keys) {
+        try {
+            return URLEncoder.encode(keys, "UTF-8");
+        } catch(Exception ex) {
+            throw new RuntimeException("Could not prepare view argument: " + ex);
+        }
+    }
+
+    @Override
+    protected CouchbaseResponse decodeResponse(final ChannelHandlerContext ctx, final HttpObject msg) throws Exception {
+        ViewRequest request = currentRequest();
+        CouchbaseResponse response = null;
+
+        if (msg instanceof HttpResponse) {
+            responseHeader = (HttpResponse) msg;
+
+            if (responseContent != null) {
+                responseContent.clear();
+            } else {
+                responseContent = ctx.alloc().buffer();
+            }
+        }
+
+        if (request instanceof KeepAliveRequest) {
+            response = new KeepAliveResponse(ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), request);
+            responseContent.clear();
+            responseContent.discardReadBytes();
+        } else if (msg instanceof HttpContent) {
+            responseContent.writeBytes(((HttpContent) msg).content());
+
+            if (request instanceof ViewQueryRequest) {
+                if (!parser.isInitialized()) {
+                    parser.initialize(responseContent, responseHeader.getStatus().code(),
+                        responseHeader.getStatus().reasonPhrase(),
+                        ResponseStatusConverter.fromHttp(responseHeader.getStatus().code()), request, ctx.channel());
+                }
+                response = parser.parse();
+                if (msg instanceof LastHttpContent) {
+                    parser.finishParsingAndReset();
+                    finishedDecoding();
+                }
+            }
+        }
+
+        if (msg instanceof LastHttpContent) {
+            if (request instanceof GetDesignDocumentRequest) {
+                response = handleGetDesignDocumentResponse((GetDesignDocumentRequest) request);
+                finishedDecoding();
+            } else if (request instanceof UpsertDesignDocumentRequest) {
+                response = handleUpsertDesignDocumentResponse((UpsertDesignDocumentRequest) request);
+                finishedDecoding();
+            } else if (request instanceof RemoveDesignDocumentRequest) {
+                response = handleRemoveDesignDocumentResponse((RemoveDesignDocumentRequest) request);
+                finishedDecoding();
+            } else if (request instanceof KeepAliveRequest) {
+                finishedDecoding();
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Creates a {@link GetDesignDocumentResponse} from its request based on the returned info.
+     *
+     * @param request the outgoing request.
+     * @return the parsed response.
+     */
+    private CouchbaseResponse handleGetDesignDocumentResponse(final GetDesignDocumentRequest request) {
+        ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
+        return new GetDesignDocumentResponse(request.name(), request.development(), responseContent.copy(), status,
+            request);
+    }
+
+    private CouchbaseResponse handleUpsertDesignDocumentResponse(final UpsertDesignDocumentRequest request) {
+        ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
+        return new UpsertDesignDocumentResponse(status, responseContent.copy(), request);
+    }
+
+    private CouchbaseResponse handleRemoveDesignDocumentResponse(final RemoveDesignDocumentRequest request) {
+        ResponseStatus status = ResponseStatusConverter.fromHttp(responseHeader.getStatus().code());
+        return new RemoveDesignDocumentResponse(status, responseContent.copy(), request);
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        if (parser.isInitialized()) {
+            parser.finishParsingAndReset();
+        }
+        if (responseContent != null && responseContent.refCnt() > 0) {
+            responseContent.release();
+        }
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    protected CouchbaseRequest createKeepAliveRequest() {
+        return new KeepAliveRequest();
+    }
+
+    protected static class KeepAliveRequest extends AbstractCouchbaseRequest implements ViewRequest, KeepAlive {
+        protected KeepAliveRequest() {
+            super(null, null);
+        }
+    }
+
+    protected static class KeepAliveResponse extends AbstractCouchbaseResponse {
+        protected KeepAliveResponse(ResponseStatus status, CouchbaseRequest request) {
+            super(status, request);
+        }
+    }
+
+    @Override
+    protected ServiceType serviceType() {
+        return ServiceType.VIEW;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.view.parser;
+
+import com.couchbase.client.core.endpoint.util.StreamingRowSubject;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.view.ViewQueryResponse;
+import com.couchbase.client.core.utils.UnicastAutoReleaseSubject;
+import com.couchbase.client.core.utils.yasjl.ByteBufJsonParser;
+import com.couchbase.client.core.utils.yasjl.Callbacks.JsonPointerCB1;
+import com.couchbase.client.core.utils.yasjl.JsonPointer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.util.CharsetUtil;
+import rx.Scheduler;
+import rx.subjects.AsyncSubject;
+import rx.subjects.Subject;
+
+import java.io.EOFException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A view query response parser, based on yasjl.
+ *
+ * Each row is emitted as soon as the parser has seen its closing bracket, the bytes of a row are only
+ * looked at again if the row is split across chunks. The info (total rows and debug info) is emitted
+ * with the first row or at the end of the response if there are no rows, errors of a successful
+ * response are emitted at the end.
+ *
+ * @since 1.5.3
+ */
+public class YasjlViewResponseParser {
+
+    /**
+     * The logger used for this parser.
+     */
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(YasjlViewResponseParser.class);
+
+    /**
+     * The default charset used when decoding.
+     */
+    private static final Charset CHARSET = CharsetUtil.UTF_8;
+
+    /**
+     * Scheduler for view response
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * TTL for response observables
+     */
+    private final long ttl;
+
+    /**
+     * The maximum number of buffered rows before reading is paused, 0 if unbounded.
+     */
+    private final int rowWindow;
+
+    /**
+     * The actual yasjl parser handling the response.
+     */
+    private final ByteBufJsonParser parser;
+
+    /**
+     * Represents an observable that sends the rows, a {@link StreamingRowSubject} if the rows are
+     * streamed with a window.
+     */
+    private Subject<ByteBuf, ByteBuf> viewRowObservable;
+
+    /**
+     * Contains info-level data about the view response.
+     */
+    private UnicastAutoReleaseSubject<ByteBuf> viewInfoObservable;
+
+    /**
+     * Contains optional errors that happened during execution.
+     */
+    private AsyncSubject<String> viewErrorObservable;
+
+    /**
+     * The raw total rows value, if received.
+     */
+    private ByteBuf totalRows;
+
+    /**
+     * The raw debug info object, if received.
+     */
+    private ByteBuf debugInfo;
+
+    /**
+     * The raw errors array of a successful response, if received.
+     */
+    private ByteBuf errors;
+
+    /**
+     * True if the info has been emitted already.
+     */
+    private boolean sentInfo;
+
+    /**
+     * True if the response has been returned already.
+     */
+    private boolean sentResponse;
+
+    /**
+     * Flag to indicate if the parser is initialized
+     */
+    private boolean initialized;
+
+    /**
+     * The http status code of the current response.
+     */
+    private int code;
+
+    /**
+     * The http reason phrase of the current response.
+     */
+    private String phrase;
+
+    /**
+     * Response status
+     */
+    private ResponseStatus status;
+
+    /**
+     * Represents the current request
+     */
+    private CouchbaseRequest currentRequest;
+
+    /**
+     * A buffer for the current raw response content.
+     */
+    private ByteBuf responseContent;
+
+    /**
+     * Create a new {@link YasjlViewResponseParser}.
+     *
+     * @param scheduler the scheduler which should be used when computations are moved out.
+     * @param ttl the ttl used for the subjects until their contents are garbage collected.
+     * @param rowWindow the maximum number of buffered rows before reading from the channel is paused,
+     *                  0 if unbounded.
+     */
+    public YasjlViewResponseParser(final Scheduler scheduler, final long ttl, final int rowWindow) {
+        this.scheduler = scheduler;
+        this.ttl = ttl;
+        this.rowWindow = rowWindow;
+
+        JsonPointer[] jsonPointers = {
+            new JsonPointer("/total_rows", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (totalRows != null) {
+                        totalRows.release();
+                    }
+                    totalRows = buf;
+                }
+            }),
+            new JsonPointer("/debug_info", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (debugInfo != null) {
+                        debugInfo.release();
+                    }
+                    debugInfo = buf;
+                }
+            }),
+            new JsonPointer("/rows/-", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (viewRowObservable != null) {
+                        emitInfo();
+                        viewRowObservable.onNext(buf);
+                    } else {
+                        buf.release();
+                    }
+                }
+            }),
+            new JsonPointer("/errors", new JsonPointerCB1() {
+                public void call(ByteBuf buf) {
+                    if (errors != null) {
+                        errors.release();
+                    }
+                    errors = buf;
+                }
+            })
+        };
+        this.parser = new ByteBufJsonParser(jsonPointers);
+    }
+
+    /**
+     * True if this parser is currently initialized and ready to parse a response.
+     *
+     * @return true if initialized, false otherwise.
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Initialize this parser for a response parsing cycle.
+     *
+     * If a row window is configured and the channel is given, the rows are streamed according to the
+     * demand of their subscriber and reading from the channel is paused while the window is full.
+     *
+     * @param responseContent the raw content to parse from.
+     * @param code the http status code of the response.
+     * @param phrase the http reason phrase of the response.
+     * @param responseStatus the status of the response.
+     * @param request the original request.
+     * @param channel the channel the response is read from, may be null.
+     */
+    public void initialize(final ByteBuf responseContent, final int code, final String phrase,
+        final ResponseStatus responseStatus, final CouchbaseRequest request, final Channel channel) {
+        this.responseContent = responseContent;
+        this.code = code;
+        this.phrase = phrase;
+        this.status = responseStatus;
+        this.currentRequest = request;
+        this.sentInfo = false;
+        this.sentResponse = false;
+
+        viewRowObservable = StreamingRowSubject.createRows(channel, rowWindow, ttl, TimeUnit.MILLISECONDS, scheduler,
+            "viewRow");
+        viewInfoObservable = UnicastAutoReleaseSubject.<ByteBuf>create(ttl, TimeUnit.MILLISECONDS, scheduler)
+            .withTraceIdentifier("viewInfo");
+        viewErrorObservable = AsyncSubject.create();
+
+        if (code == 200) {
+            parser.initialize(responseContent);
+        } else {
+            // the body of a failed response is the error itself, there are neither info nor rows.
+            sentInfo = true;
+            viewInfoObservable.onCompleted();
+            viewRowObservable.onCompleted();
+        }
+        initialized = true;
+    }
+
+    /**
+     * Instruct the parser to run a new parsing cycle on the current response content.
+     *
+     * @return the {@link ViewQueryResponse} on the first call for a response, null afterwards.
+     * @throws Exception if the internal parsing can't complete.
+     */
+    public ViewQueryResponse parse() throws Exception {
+        if (code == 200) {
+            try {
+                parser.parse();
+                responseContent.discardSomeReadBytes();
+            } catch (EOFException ex) {
+                parser.discardParsedBytes();
+                LOGGER.trace("Still expecting more data for view response");
+            }
+        }
+
+        if (!sentResponse) {
+            sentResponse = true;
+            return new ViewQueryResponse(
+                StreamingRowSubject.rows(viewRowObservable).observeOn(scheduler),
+                viewInfoObservable.onBackpressureBuffer().observeOn(scheduler),
+                viewErrorObservable.observeOn(scheduler),
+                code,
+                phrase,
+                status,
+                currentRequest
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Emits the info object from the fields received so far, if not done already.
+     */
+    private void emitInfo() {
+        if (sentInfo) {
+            return;
+        }
+        sentInfo = true;
+
+        if (totalRows == null && debugInfo == null) {
+            viewInfoObservable.onNext(Unpooled.EMPTY_BUFFER);
+        } else {
+            ByteBuf info = responseContent.alloc().buffer();
+            info.writeByte('{');
+            if (debugInfo != null) {
+                info.writeBytes("\"debug_info\":".getBytes(CHARSET)).writeBytes(debugInfo);
+                debugInfo.release();
+                debugInfo = null;
+            }
+            if (totalRows != null) {
+                if (info.readableBytes() > 1) {
+                    info.writeByte(',');
+                }
+                info.writeBytes("\"total_rows\":".getBytes(CHARSET)).writeBytes(totalRows);
+                totalRows.release();
+                totalRows = null;
+            }
+            info.writeByte('}');
+            viewInfoObservable.onNext(info);
+        }
+        viewInfoObservable.onCompleted();
+    }
+
+    /**
+     * Instruct the parser to finish the parsing and reset its internal state, turning it
+     * back to uninitialized as well.
+     */
+    public void finishParsingAndReset() {
+        if (viewInfoObservable != null) {
+            emitInfo();
+        }
+        if (viewRowObservable != null) {
+            viewRowObservable.onCompleted();
+        }
+        if (viewErrorObservable != null) {
+            if (code != 200) {
+                viewErrorObservable.onNext("{\"errors\":[" + responseContent.toString(CHARSET) + "]}");
+            } else if (errors != null) {
+                viewErrorObservable.onNext("{\"errors\":" + errors.toString(CHARSET) + "}");
+            }
+            viewErrorObservable.onCompleted();
+        }
+        releaseFields();
+        viewInfoObservable = null;
+        viewRowObservable = null;
+        viewErrorObservable = null;
+        responseContent = null;
+        currentRequest = null;
+        initialized = false;
+    }
+
+    /**
+     * Releases the raw fields which have not been emitted.
+     */
+    private void releaseFields() {
+        if (totalRows != null) {
+            totalRows.release();
+            totalRows = null;
+        }
+        if (debugInfo != null) {
+            debugInfo.release();
+            debugInfo = null;
+        }
+        if (errors != null) {
+            errors.release();
+            errors = null;
+        }
+    }
+}
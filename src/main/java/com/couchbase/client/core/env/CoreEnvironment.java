@@ -17,6 +17,7 @@ package com.couchbase.client.core.env;
 
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.endpoint.flush.FlushPolicy;
 import com.couchbase.client.core.event.EventBus;
 import com.couchbase.client.core.hooks.CouchbaseCoreSendHook;
 import com.couchbase.client.core.message.observe.Observe;
@@ -488,4 +489,121 @@ public interface CoreEnvironment extends SecureEnvironment, ConfigParserEnvironm
      */
     boolean forceSaslPlain();
 
+    /**
+     * Returns true if snappy compression of KV document bodies should be negotiated with the server.
+     *
+     * Note that the server also needs to support it, otherwise bodies are sent and received uncompressed.
+     *
+     * @return true if compression is enabled.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean compressionEnabled();
+
+    /**
+     * Returns the minimum size in bytes a document body needs to have before compression is attempted.
+     *
+     * @return the minimum size for compression.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    int compressionMinSize();
+
+    /**
+     * Returns the maximum ratio of compressed to original size for which the compressed body is sent.
+     *
+     * If compression does not shrink the document to at least this ratio, the original body is sent
+     * instead so that the server does not need to inflate it for no benefit.
+     *
+     * @return the minimum compression ratio.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    double compressionMinRatio();
+
+    /**
+     * Returns true if the KV service may execute requests out of order, if supported by the server.
+     *
+     * @return true if unordered execution is enabled.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean unorderedExecutionEnabled();
+
+    /**
+     * Returns true if successful responses are completed in batches on the scheduler instead of one
+     * task per response.
+     *
+     * @return true if response batching is enabled.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean responseBatchingEnabled();
+
+    /**
+     * Returns the number of request ringbuffers (each with its own request handler thread) requests
+     * are spread across.
+     *
+     * @return the number of request ringbuffer shards.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    int requestBufferShards();
+
+    /**
+     * Returns the maximum number of rows of a streaming query, view or analytics response which are
+     * buffered for a subscriber before reading from the socket is paused, 0 if unbounded.
+     *
+     * @return the streaming row window.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    int streamingRowWindow();
+
+    /**
+     * Returns true if the KV connections ask the server to push clustermap change notifications.
+     *
+     * @return true if clustermap notifications are enabled.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean clustermapNotificationsEnabled();
+
+    /**
+     * Returns the estimated number of recent reads after which a key is considered hot and its
+     * replica readable gets are spread across the master and the replica nodes, 0 if disabled.
+     *
+     * @return the hot key replica read threshold.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    int hotKeyReplicaReadThreshold();
+
+    /**
+     * Returns the {@link FlushPolicy} which decides when the requests written to an endpoint are flushed.
+     *
+     * @return the flush policy.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    FlushPolicy flushPolicy();
+
+    /**
+     * Returns the directory in which the last known bucket configurations are persisted, null if disabled.
+     *
+     * @return the config cache directory or null.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    String configCacheDirectory();
+
+    /**
+     * Returns true if the number of requests in flight per endpoint is adapted to the observed latency.
+     *
+     * @return true if the in-flight limit is adaptive.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean adaptiveInFlightLimitEnabled();
+
 }
@@ -18,6 +18,8 @@ package com.couchbase.client.core.env;
 import com.couchbase.client.core.ClusterFacade;
 import com.couchbase.client.core.annotations.InterfaceAudience;
 import com.couchbase.client.core.annotations.InterfaceStability;
+import com.couchbase.client.core.endpoint.flush.EndOfBatchFlushPolicy;
+import com.couchbase.client.core.endpoint.flush.FlushPolicy;
 import com.couchbase.client.core.env.resources.IoPoolShutdownHook;
 import com.couchbase.client.core.env.resources.NettyShutdownHook;
 import com.couchbase.client.core.env.resources.NoOpShutdownHook;
@@ -113,6 +115,19 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
     public static final long CONFIG_POLL_FLOOR_INTERVAL = 50;
     public static final boolean CERT_AUTH_ENABLED = false;
     public static final boolean FORCE_SASL_PLAIN = false;
+    public static final boolean COMPRESSION_ENABLED = true;
+    public static final int COMPRESSION_MIN_SIZE = 32;
+    public static final double COMPRESSION_MIN_RATIO = 0.83;
+    public static final boolean UNORDERED_EXECUTION_ENABLED = false;
+    public static final boolean RESPONSE_BATCHING_ENABLED = false;
+    public static final int REQUEST_BUFFER_SHARDS = 1;
+    public static final int STREAMING_ROW_WINDOW = 0;
+    public static final boolean CLUSTERMAP_NOTIFICATIONS_ENABLED = false;
+    public static final int HOT_KEY_REPLICA_READ_THRESHOLD = 0;
+    public static final FlushPolicy FLUSH_POLICY = EndOfBatchFlushPolicy.INSTANCE;
+    public static final boolean OPENSSL_ENABLED = false;
+    public static final String CONFIG_CACHE_DIRECTORY = null;
+    public static final boolean ADAPTIVE_IN_FLIGHT_LIMIT_ENABLED = false;
 
     public static String CORE_VERSION;
     public static String CORE_GIT_VERSION;
@@ -227,6 +242,19 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
     private final long configPollInterval;
     private final long configPollFloorInterval;
     private final boolean certAuthEnabled;
+    private final boolean compressionEnabled;
+    private final int compressionMinSize;
+    private final double compressionMinRatio;
+    private final boolean unorderedExecutionEnabled;
+    private final boolean responseBatchingEnabled;
+    private final int requestBufferShards;
+    private final int streamingRowWindow;
+    private final boolean clustermapNotificationsEnabled;
+    private final int hotKeyReplicaReadThreshold;
+    private final FlushPolicy flushPolicy;
+    private final boolean openSslEnabled;
+    private final String configCacheDirectory;
+    private final boolean adaptiveInFlightLimitEnabled;
 
     private static final int MAX_ALLOWED_INSTANCES = 1;
     private static volatile int instanceCounter = 0;
@@ -316,6 +344,19 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         );
         keepAliveErrorThreshold = longPropertyOr("keepAliveErrorThreshold", builder.keepAliveErrorThreshold);
         keepAliveTimeout = longPropertyOr("keepAliveTimeout", builder.keepAliveTimeout);
+        compressionEnabled = booleanPropertyOr("compressionEnabled", builder.compressionEnabled);
+        compressionMinSize = intPropertyOr("compressionMinSize", builder.compressionMinSize);
+        compressionMinRatio = doublePropertyOr("compressionMinRatio", builder.compressionMinRatio);
+        unorderedExecutionEnabled = booleanPropertyOr("unorderedExecutionEnabled", builder.unorderedExecutionEnabled);
+        responseBatchingEnabled = booleanPropertyOr("responseBatchingEnabled", builder.responseBatchingEnabled);
+        requestBufferShards = intPropertyOr("requestBufferShards", builder.requestBufferShards);
+        streamingRowWindow = intPropertyOr("streamingRowWindow", builder.streamingRowWindow);
+        clustermapNotificationsEnabled = booleanPropertyOr("clustermapNotificationsEnabled", builder.clustermapNotificationsEnabled);
+        hotKeyReplicaReadThreshold = intPropertyOr("hotKeyReplicaReadThreshold", builder.hotKeyReplicaReadThreshold);
+        flushPolicy = builder.flushPolicy;
+        openSslEnabled = booleanPropertyOr("openSslEnabled", builder.openSslEnabled);
+        configCacheDirectory = stringPropertyOr("configCacheDirectory", builder.configCacheDirectory);
+        adaptiveInFlightLimitEnabled = booleanPropertyOr("adaptiveInFlightLimitEnabled", builder.adaptiveInFlightLimitEnabled);
 
         if (ioPoolSize < MIN_POOL_SIZE) {
             LOGGER.info("ioPoolSize is less than {} ({}), setting to: {}", MIN_POOL_SIZE, ioPoolSize, MIN_POOL_SIZE);
@@ -938,6 +979,71 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         return forceSaslPlain;
     }
 
+    @Override
+    public boolean compressionEnabled() {
+        return compressionEnabled;
+    }
+
+    @Override
+    public int compressionMinSize() {
+        return compressionMinSize;
+    }
+
+    @Override
+    public double compressionMinRatio() {
+        return compressionMinRatio;
+    }
+
+    @Override
+    public boolean unorderedExecutionEnabled() {
+        return unorderedExecutionEnabled;
+    }
+
+    @Override
+    public boolean responseBatchingEnabled() {
+        return responseBatchingEnabled;
+    }
+
+    @Override
+    public int requestBufferShards() {
+        return requestBufferShards;
+    }
+
+    @Override
+    public int streamingRowWindow() {
+        return streamingRowWindow;
+    }
+
+    @Override
+    public boolean clustermapNotificationsEnabled() {
+        return clustermapNotificationsEnabled;
+    }
+
+    @Override
+    public int hotKeyReplicaReadThreshold() {
+        return hotKeyReplicaReadThreshold;
+    }
+
+    @Override
+    public FlushPolicy flushPolicy() {
+        return flushPolicy;
+    }
+
+    @Override
+    public boolean openSslEnabled() {
+        return openSslEnabled;
+    }
+
+    @Override
+    public String configCacheDirectory() {
+        return configCacheDirectory;
+    }
+
+    @Override
+    public boolean adaptiveInFlightLimitEnabled() {
+        return adaptiveInFlightLimitEnabled;
+    }
+
     public static class Builder {
 
         private boolean sslEnabled = SSL_ENABLED;
@@ -999,6 +1105,19 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         private boolean certAuthEnabled = CERT_AUTH_ENABLED;
         private CouchbaseCoreSendHook couchbaseCoreSendHook;
         private boolean forceSaslPlain = FORCE_SASL_PLAIN;
+        private boolean compressionEnabled = COMPRESSION_ENABLED;
+        private int compressionMinSize = COMPRESSION_MIN_SIZE;
+        private double compressionMinRatio = COMPRESSION_MIN_RATIO;
+        private boolean unorderedExecutionEnabled = UNORDERED_EXECUTION_ENABLED;
+        private boolean responseBatchingEnabled = RESPONSE_BATCHING_ENABLED;
+        private int requestBufferShards = REQUEST_BUFFER_SHARDS;
+        private int streamingRowWindow = STREAMING_ROW_WINDOW;
+        private boolean clustermapNotificationsEnabled = CLUSTERMAP_NOTIFICATIONS_ENABLED;
+        private int hotKeyReplicaReadThreshold = HOT_KEY_REPLICA_READ_THRESHOLD;
+        private FlushPolicy flushPolicy = FLUSH_POLICY;
+        private boolean openSslEnabled = OPENSSL_ENABLED;
+        private String configCacheDirectory = CONFIG_CACHE_DIRECTORY;
+        private boolean adaptiveInFlightLimitEnabled = ADAPTIVE_IN_FLIGHT_LIMIT_ENABLED;
 
         private MetricsCollectorConfig runtimeMetricsCollectorConfig;
         private LatencyMetricsCollectorConfig networkLatencyMetricsCollectorConfig;
@@ -1699,6 +1818,187 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
             return this;
         }
 
+        /**
+         * Allows to enable or disable snappy compression of KV document bodies
+         * (default value {@value #COMPRESSION_ENABLED}).
+         *
+         * Compressed responses are always inflated transparently, this setting controls if the feature is
+         * negotiated at all.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder compressionEnabled(final boolean compressionEnabled) {
+            this.compressionEnabled = compressionEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the minimum size in bytes a document body needs to have before compression is attempted
+         * (default value {@value #COMPRESSION_MIN_SIZE}).
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder compressionMinSize(final int compressionMinSize) {
+            this.compressionMinSize = compressionMinSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum ratio of compressed to original size for which the compressed body is sent
+         * (default value {@value #COMPRESSION_MIN_RATIO}).
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder compressionMinRatio(final double compressionMinRatio) {
+            this.compressionMinRatio = compressionMinRatio;
+            return this;
+        }
+
+        /**
+         * If set to true, the client asks the server for unordered execution of KV requests during HELLO
+         * negotiation. The server is then free to reply in any order, so one slow operation does not
+         * hold up all other requests on the same socket. (default: false)
+         *
+         * If the server does not support it, responses are matched in order as before.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder unorderedExecutionEnabled(final boolean unorderedExecutionEnabled) {
+            this.unorderedExecutionEnabled = unorderedExecutionEnabled;
+            return this;
+        }
+
+        /**
+         * If set to true, successful responses which arrive together (at the end of a response ring buffer
+         * batch or a network read) are handed to the {@link #scheduler(Scheduler)} as a single task instead of
+         * one task per response. This cuts allocations and thread wakeups under high load. (default: false)
+         *
+         * Has no effect if {@link #callbacksOnIoPool(boolean)} is enabled.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder responseBatchingEnabled(final boolean responseBatchingEnabled) {
+            this.responseBatchingEnabled = responseBatchingEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the number of request RingBuffers, each consumed by its own thread (default value {@value #REQUEST_BUFFER_SHARDS}).
+         *
+         * All shards share the same cluster configuration and nodes. Key/value requests are routed by their
+         * key so that operations on the same document keep their order, all other requests by the calling
+         * thread. Each shard is sized with the {@link #requestBufferSize(int)}.
+         *
+         * This is an advanced parameter which can help if the single request handler thread becomes the
+         * bottleneck on hosts with many cores.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder requestBufferShards(final int requestBufferShards) {
+            this.requestBufferShards = requestBufferShards;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of rows of a streaming N1QL, view or analytics response which are buffered
+         * until the subscriber requests them (default value {@value #STREAMING_ROW_WINDOW}, which means unbounded).
+         *
+         * Once the window is full, reading from the socket is paused until the subscriber has consumed half of
+         * it, so a slow consumer of a large result keeps memory bounded. Note that the endpoint is occupied for
+         * as long as the rows are not consumed.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder streamingRowWindow(final int streamingRowWindow) {
+            this.streamingRowWindow = streamingRowWindow;
+            return this;
+        }
+
+        /**
+         * If set to true, the client asks the server to push clustermap change notifications over the KV
+         * connections during HELLO negotiation. New configurations are then applied as soon as the server
+         * sends them and the carrier refresher stops polling buckets which receive them. (default: false)
+         *
+         * If the server does not support it, the configs are polled as before.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder clustermapNotificationsEnabled(final boolean clustermapNotificationsEnabled) {
+            this.clustermapNotificationsEnabled = clustermapNotificationsEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the estimated number of recent reads after which a key is considered hot, so that its gets
+         * which allow replica reads are spread across the master and the replica nodes of its partition
+         * (default value {@value #HOT_KEY_REPLICA_READ_THRESHOLD}, which means disabled).
+         *
+         * The reads are counted with a small count-min sketch which decays over time, so that only keys which
+         * are read a lot more than others are balanced. Note that a value read from a replica may be stale.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder hotKeyReplicaReadThreshold(final int hotKeyReplicaReadThreshold) {
+            this.hotKeyReplicaReadThreshold = hotKeyReplicaReadThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the {@link FlushPolicy} which decides when the requests written to an endpoint are flushed
+         * (default: {@link EndOfBatchFlushPolicy}, which flushes every endpoint written to once at the end of
+         * each batch of requests).
+         *
+         * Use the {@link com.couchbase.client.core.endpoint.flush.ImmediateFlushPolicy} to flush after every
+         * request or the {@link com.couchbase.client.core.endpoint.flush.CoalescingFlushPolicy} to flush the
+         * requests of several batches at once.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder flushPolicy(final FlushPolicy flushPolicy) {
+            this.flushPolicy = flushPolicy;
+            return this;
+        }
+
+        /**
+         * If set to true, the SSL engines are created through netty with the OpenSSL (or BoringSSL) provider
+         * instead of the JDK. (default: false)
+         *
+         * This needs netty-tcnative on the classpath, if it is not available the JDK is used as before.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder openSslEnabled(final boolean openSslEnabled) {
+            this.openSslEnabled = openSslEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the directory in which the latest configuration of every open bucket is persisted (default: null,
+         * which disables the cache).
+         *
+         * When a bucket is opened again (for example after a restart of the application), the persisted config
+         * is applied right away so that the connections to all nodes are opened while the bootstrap against the
+         * seed nodes is still in progress. The live configuration always replaces the persisted one.
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder configCacheDirectory(final String configCacheDirectory) {
+            this.configCacheDirectory = configCacheDirectory;
+            return this;
+        }
+
+        /**
+         * If set to true, the number of requests in flight per endpoint starts at the static limit and shrinks
+         * once the latency of the endpoint clearly inflates, so that an overloaded node sheds load early
+         * (default: false, which keeps the static limit).
+         */
+        @InterfaceStability.Experimental
+        @InterfaceAudience.Public
+        public Builder adaptiveInFlightLimitEnabled(final boolean adaptiveInFlightLimitEnabled) {
+            this.adaptiveInFlightLimitEnabled = adaptiveInFlightLimitEnabled;
+            return this;
+        }
+
         public DefaultCoreEnvironment build() {
             return new DefaultCoreEnvironment(this);
         }
@@ -1800,6 +2100,19 @@ public class DefaultCoreEnvironment implements CoreEnvironment {
         sb.append(", coreSendHook=").append(couchbaseCoreSendHook == null ? "null" :
             couchbaseCoreSendHook.getClass().getSimpleName());
         sb.append(", forceSaslPlain=").append(forceSaslPlain);
+        sb.append(", compressionEnabled=").append(compressionEnabled);
+        sb.append(", compressionMinSize=").append(compressionMinSize);
+        sb.append(", compressionMinRatio=").append(compressionMinRatio);
+        sb.append(", unorderedExecutionEnabled=").append(unorderedExecutionEnabled);
+        sb.append(", responseBatchingEnabled=").append(responseBatchingEnabled);
+        sb.append(", requestBufferShards=").append(requestBufferShards);
+        sb.append(", streamingRowWindow=").append(streamingRowWindow);
+        sb.append(", clustermapNotificationsEnabled=").append(clustermapNotificationsEnabled);
+        sb.append(", hotKeyReplicaReadThreshold=").append(hotKeyReplicaReadThreshold);
+        sb.append(", flushPolicy=").append(flushPolicy);
+        sb.append(", openSslEnabled=").append(openSslEnabled);
+        sb.append(", configCacheDirectory=").append(configCacheDirectory);
+        sb.append(", adaptiveInFlightLimitEnabled=").append(adaptiveInFlightLimitEnabled);
         return sb;
     }
 
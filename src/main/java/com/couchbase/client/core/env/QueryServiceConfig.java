@@ -16,10 +16,15 @@
 
 package com.couchbase.client.core.env;
 
+import com.couchbase.client.core.service.strategies.SelectionStrategy;
+
 public final class QueryServiceConfig extends AbstractServiceConfig {
 
-    private QueryServiceConfig(int minEndpoints, int maxEndpoints, int idleTime) {
+    private final SelectionStrategy selectionStrategy;
+
+    private QueryServiceConfig(int minEndpoints, int maxEndpoints, int idleTime, SelectionStrategy selectionStrategy) {
         super(minEndpoints, maxEndpoints, false, idleTime);
+        this.selectionStrategy = selectionStrategy;
     }
 
     public static QueryServiceConfig create(int minEndpoints, int maxEndpoints) {
@@ -27,11 +32,32 @@ public final class QueryServiceConfig extends AbstractServiceConfig {
     }
 
     public static QueryServiceConfig create(int minEndpoints, int maxEndpoints, int idleTime) {
+        return create(minEndpoints, maxEndpoints, idleTime, null);
+    }
+
+    /**
+     * Creates a new config which uses a custom {@link SelectionStrategy} to pick the endpoint for a request.
+     *
+     * @param minEndpoints the minimum number of endpoints per node.
+     * @param maxEndpoints the maximum number of endpoints per node.
+     * @param idleTime the idle time in seconds after which an endpoint is closed, 0 to disable.
+     * @param selectionStrategy the strategy to select endpoints, null for the default (round-robin) one.
+     * @return the created config.
+     */
+    public static QueryServiceConfig create(int minEndpoints, int maxEndpoints, int idleTime,
+        SelectionStrategy selectionStrategy) {
         if (idleTime > 0 && idleTime < 10) {
             throw new IllegalArgumentException("Idle time must either be 0 (disabled) or greater than 9 seconds");
         }
 
-        return new QueryServiceConfig(minEndpoints, maxEndpoints, idleTime);
+        return new QueryServiceConfig(minEndpoints, maxEndpoints, idleTime, selectionStrategy);
+    }
+
+    /**
+     * The custom strategy to select endpoints, null if the service default is used.
+     */
+    public SelectionStrategy selectionStrategy() {
+        return selectionStrategy;
     }
 
     @Override
@@ -41,6 +67,8 @@ public final class QueryServiceConfig extends AbstractServiceConfig {
                 ", maxEndpoints=" + maxEndpoints() +
                 ", pipelined=" + isPipelined() +
                 ", idleTime=" + idleTime() +
+                (selectionStrategy == null ? ""
+                    : ", selectionStrategy=" + selectionStrategy.getClass().getSimpleName()) +
                 '}';
     }
 
@@ -16,6 +16,8 @@
 package com.couchbase.client.core.env;
 
 import java.security.KeyStore;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
 import com.couchbase.client.core.endpoint.SSLEngineFactory;
 
 import javax.net.ssl.TrustManagerFactory;
@@ -105,4 +107,13 @@ public interface SecureEnvironment {
      */
     KeyStore sslTruststore();
 
+    /**
+     * Returns true if the SSL engines are created by OpenSSL instead of the JDK, if available.
+     *
+     * @return true if OpenSSL should be used.
+     */
+    @InterfaceStability.Experimental
+    @InterfaceAudience.Public
+    boolean openSslEnabled();
+
 }
@@ -66,6 +66,8 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
 
     private volatile String dispatchHostname;
 
+    private volatile long deadline;
+
     private Delay retryDelay;
 
     /**
@@ -205,6 +207,22 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
         this.dispatchHostname = hostname;
     }
 
+    @Override
+    public void deadline(final long deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public long deadline() {
+        return deadline;
+    }
+
+    @Override
+    public boolean isExpired() {
+        long deadline = this.deadline;
+        return deadline != 0 && System.nanoTime() - deadline >= 0;
+    }
+
     @Override
     public void emit(final CouchbaseResponse response) {
         observable.onNext(response);
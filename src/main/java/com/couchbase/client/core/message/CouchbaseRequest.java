@@ -161,4 +161,32 @@ public interface CouchbaseRequest extends CouchbaseMessage {
     String dispatchHostname();
 
     void dispatchHostname(String hostname);
+
+    /**
+     * Sets the deadline of this request, after which the core stops dispatching it and fails it with a
+     * {@link java.util.concurrent.TimeoutException} instead of waiting for its response.
+     *
+     * @param deadline the deadline in {@link System#nanoTime()} terms, 0 if the request has no deadline.
+     */
+    @InterfaceAudience.Public
+    @InterfaceStability.Experimental
+    void deadline(long deadline);
+
+    /**
+     * Returns the deadline of this request in {@link System#nanoTime()} terms.
+     *
+     * @return the deadline, 0 if the request has no deadline.
+     */
+    @InterfaceAudience.Public
+    @InterfaceStability.Experimental
+    long deadline();
+
+    /**
+     * Checks if the deadline of this request has passed.
+     *
+     * @return true if the request has a deadline and it has passed.
+     */
+    @InterfaceAudience.Private
+    @InterfaceStability.Experimental
+    boolean isExpired();
 }
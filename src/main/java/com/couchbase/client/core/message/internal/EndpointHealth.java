@@ -43,9 +43,14 @@ public class EndpointHealth {
     private final InetSocketAddress remote;
     private final long lastActivityUs;
     private final long pingLatencyUs;
-
+    private final int inFlightLimit;
 
     public EndpointHealth(ServiceType type, LifecycleState state, SocketAddress localAddr, SocketAddress remoteAddr, long lastActivityUs, long pingLatencyUs) {
+        this(type, state, localAddr, remoteAddr, lastActivityUs, pingLatencyUs, -1);
+    }
+
+    public EndpointHealth(ServiceType type, LifecycleState state, SocketAddress localAddr, SocketAddress remoteAddr,
+        long lastActivityUs, long pingLatencyUs, int inFlightLimit) {
         this.type = type;
         this.state = state;
 
@@ -67,6 +72,7 @@ public class EndpointHealth {
 
         this.lastActivityUs = lastActivityUs;
         this.pingLatencyUs = pingLatencyUs;
+        this.inFlightLimit = inFlightLimit;
     }
 
     public ServiceType type() {
@@ -93,6 +99,13 @@ public class EndpointHealth {
         return pingLatencyUs;
     }
 
+    /**
+     * The number of requests the endpoint currently allows in flight, or -1 if not known.
+     */
+    public int inFlightLimit() {
+        return inFlightLimit;
+    }
+
     public Map<String, Object> toMap() {
         NetworkAddress ra = remote() == null ? null : NetworkAddress.create(remote().getAddress().getHostAddress());
         NetworkAddress la = local() == null ? null : NetworkAddress.create(local().getAddress().getHostAddress());
@@ -102,6 +115,9 @@ public class EndpointHealth {
         map.put("state", state().toString().toLowerCase());
         map.put("last_activity_us", lastActivity());
         map.put("latency_us", pingLatency());
+        if (inFlightLimit >= 0) {
+            map.put("in_flight_limit", inFlightLimit);
+        }
         return map;
     }
 
@@ -113,6 +129,7 @@ public class EndpointHealth {
             ", local=" + local +
             ", remote=" + remote +
             ", lastActivity=" + lastActivityUs +
+            ", inFlightLimit=" + inFlightLimit +
             '}';
     }
 }
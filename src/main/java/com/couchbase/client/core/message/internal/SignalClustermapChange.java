@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.internal;
+
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+
+/**
+ * Signals a bucket configuration pushed by the server as a clustermap change notification.
+ *
+ * @since 1.5.3
+ */
+public class SignalClustermapChange extends AbstractCouchbaseRequest {
+
+    private final String config;
+
+    /**
+     * Creates a new {@link SignalClustermapChange}.
+     *
+     * @param bucket the name of the bucket the config belongs to.
+     * @param config the raw config, with the host placeholder already replaced.
+     */
+    public SignalClustermapChange(final String bucket, final String config) {
+        super(bucket, null);
+        this.config = config;
+    }
+
+    /**
+     * Returns the raw config pushed by the server.
+     *
+     * @return the raw config.
+     */
+    public String config() {
+        return config;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.internal;
+
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+
+/**
+ * Signals that a KV connection of a bucket started or stopped to receive clustermap change
+ * notifications from the server.
+ *
+ * @since 1.5.3
+ */
+public class SignalClustermapNotifications extends AbstractCouchbaseRequest {
+
+    private final boolean enabled;
+
+    /**
+     * Creates a new {@link SignalClustermapNotifications}.
+     *
+     * @param bucket the name of the bucket of the connection.
+     * @param enabled true if the connection negotiated notifications, false if it has been closed.
+     */
+    public SignalClustermapNotifications(final String bucket, final boolean enabled) {
+        super(bucket, null);
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns true if the connection negotiated notifications, false if it has been closed.
+     *
+     * @return true if enabled.
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+}
@@ -26,12 +26,35 @@ public class GetRequest extends AbstractKeyValueRequest {
     private final boolean lock;
     private final boolean touch;
     private final int expiry;
+    private final boolean replicaReadAllowed;
+
+    /**
+     * The replica this request has been routed to, 0 for the master.
+     */
+    private volatile short replica;
 
     public GetRequest(final String key, final String bucket) {
         this(key, bucket, false, false, 0);
     }
 
+    /**
+     * Creates a plain get which, if replicaReadAllowed is true, may be served by a replica node
+     * when the key is hot and thus return a stale value.
+     *
+     * @param key the key of the document.
+     * @param bucket the name of the bucket.
+     * @param replicaReadAllowed true if the get may be served by a replica.
+     */
+    public GetRequest(final String key, final String bucket, final boolean replicaReadAllowed) {
+        this(key, bucket, false, false, 0, replicaReadAllowed);
+    }
+
     public GetRequest(final String key, final String bucket, final boolean lock, final boolean touch, final int expiry) {
+        this(key, bucket, lock, touch, expiry, false);
+    }
+
+    private GetRequest(final String key, final String bucket, final boolean lock, final boolean touch,
+        final int expiry, final boolean replicaReadAllowed) {
         super(key, bucket);
         if (lock && touch) {
             throw new IllegalArgumentException("Locking and touching in the same request is not supported.");
@@ -42,6 +65,7 @@ public class GetRequest extends AbstractKeyValueRequest {
         this.lock = lock;
         this.touch = touch;
         this.expiry = expiry;
+        this.replicaReadAllowed = replicaReadAllowed;
     }
 
     public boolean lock() {
@@ -55,4 +79,33 @@ public class GetRequest extends AbstractKeyValueRequest {
     public int expiry() {
         return expiry;
     }
+
+    /**
+     * Returns true if this get may be served by a replica node.
+     *
+     * @return true if replica reads are allowed.
+     */
+    public boolean replicaReadAllowed() {
+        return replicaReadAllowed;
+    }
+
+    /**
+     * Returns the replica this get has been routed to, 0 if it is sent to the master.
+     *
+     * @return the replica number starting at 1, or 0.
+     */
+    public short replica() {
+        return replica;
+    }
+
+    /**
+     * Sets the replica this get is routed to, only done by the locator.
+     *
+     * @param replica the replica number starting at 1, or 0 for the master.
+     * @return this request for chaining purposes.
+     */
+    public GetRequest replica(final short replica) {
+        this.replica = replica;
+        return this;
+    }
 }
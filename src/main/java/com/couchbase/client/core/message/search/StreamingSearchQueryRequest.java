@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.search;
+
+/**
+ * Runs a query against a search index and streams the hits of the response instead of
+ * aggregating the full body.
+ *
+ * The response to this request is a {@link StreamingSearchQueryResponse}.
+ *
+ * @since 1.5.3
+ */
+public class StreamingSearchQueryRequest extends SearchQueryRequest {
+
+    public StreamingSearchQueryRequest(String indexName, String payload, String bucket, String username,
+        String password) {
+        super(indexName, payload, bucket, username, password);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.message.search;
+
+import com.couchbase.client.core.message.AbstractCouchbaseResponse;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import io.netty.buffer.ByteBuf;
+import rx.Observable;
+
+/**
+ * Result of a {@link StreamingSearchQueryRequest}, whose parts can be asynchronously fed.
+ *
+ * The hits are emitted one by one while the response is still being received, the status, facets and
+ * info objects are emitted once they have been parsed. All {@link ByteBuf}s need to be released by the
+ * subscriber.
+ *
+ * @since 1.5.3
+ */
+public class StreamingSearchQueryResponse extends AbstractCouchbaseResponse {
+
+    private final Observable<ByteBuf> hits;
+    private final Observable<ByteBuf> facets;
+    private final Observable<ByteBuf> searchStatus;
+    private final Observable<ByteBuf> info;
+    private final Observable<String> errors;
+
+    public StreamingSearchQueryResponse(Observable<ByteBuf> hits, Observable<ByteBuf> facets,
+        Observable<ByteBuf> searchStatus, Observable<ByteBuf> info, Observable<String> errors, ResponseStatus status,
+        CouchbaseRequest request) {
+        super(status, request);
+        this.hits = hits;
+        this.facets = facets;
+        this.searchStatus = searchStatus;
+        this.info = info;
+        this.errors = errors;
+    }
+
+    /**
+     * Contains each hit of the response, as a raw JSON object.
+     */
+    public Observable<ByteBuf> hits() {
+        return hits;
+    }
+
+    /**
+     * Contains the raw JSON facets object, if the response has facets.
+     */
+    public Observable<ByteBuf> facets() {
+        return facets;
+    }
+
+    /**
+     * Contains the raw JSON status object of the search, with the number of successful and failed
+     * index partitions and their errors.
+     */
+    public Observable<ByteBuf> searchStatus() {
+        return searchStatus;
+    }
+
+    /**
+     * Contains a raw JSON object with the total hits, max score and took fields of the response.
+     */
+    public Observable<ByteBuf> info() {
+        return info;
+    }
+
+    /**
+     * Contains the raw body of a response which failed on the HTTP level.
+     */
+    public Observable<String> errors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingSearchQueryResponse{"
+                + "status=" + status()
+                + ", request=" + request()
+                + '}';
+    }
+}
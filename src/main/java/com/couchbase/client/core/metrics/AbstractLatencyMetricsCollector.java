@@ -28,6 +28,7 @@ import rx.Scheduler;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -73,7 +74,7 @@ public abstract class AbstractLatencyMetricsCollector<I extends LatencyMetricsId
     private final PauseDetector pauseDetector;
     private final AtomicBoolean pauseDetectorHeld;
 
-    private final Map<I, LatencyStats> latencyMetrics;
+    private final ConcurrentMap<I, LatencyStats> latencyMetrics;
     private final LatencyMetricsCollectorConfig config;
 
     protected AbstractLatencyMetricsCollector(EventBus eventBus, Scheduler scheduler, LatencyMetricsCollectorConfig config) {
@@ -99,8 +100,14 @@ public abstract class AbstractLatencyMetricsCollector<I extends LatencyMetricsId
 
         LatencyStats metric = latencyMetrics.get(identifier);
         if (metric == null) {
-            metric = LatencyStats.Builder.create().pauseDetector(pauseDetector).build();
-            latencyMetrics.put(identifier, metric);
+            LatencyStats created = LatencyStats.Builder.create().pauseDetector(pauseDetector).build();
+            metric = latencyMetrics.putIfAbsent(identifier, created);
+            if (metric == null) {
+                metric = created;
+            } else {
+                // another thread registered the stats first, so record into those and drop ours.
+                created.stop();
+            }
         }
         metric.recordLatency(latency);
     }
@@ -32,11 +32,22 @@ public class NetworkLatencyMetricsIdentifier implements LatencyMetricsIdentifier
     private final String request;
     private final String status;
 
+    /**
+     * The hash code is precomputed since identifiers are used as map keys on every recorded latency.
+     */
+    private final int hashCode;
+
+    /**
+     * The lazily computed string representation, also used for sorting.
+     */
+    private String stringRepresentation;
+
     public NetworkLatencyMetricsIdentifier(String host, String service, String request, String status) {
         this.host = host;
         this.service = service;
         this.request = request;
         this.status = status;
+        this.hashCode = computeHashCode();
     }
 
     public String host() {
@@ -62,7 +73,12 @@ public class NetworkLatencyMetricsIdentifier implements LatencyMetricsIdentifier
 
     @Override
     public String toString() {
-        return host + "->" + service + "->" + request + "->" + status;
+        String result = stringRepresentation;
+        if (result == null) {
+            result = host + "->" + service + "->" + request + "->" + status;
+            stringRepresentation = result;
+        }
+        return result;
     }
 
     @Override
@@ -72,6 +88,7 @@ public class NetworkLatencyMetricsIdentifier implements LatencyMetricsIdentifier
 
         NetworkLatencyMetricsIdentifier that = (NetworkLatencyMetricsIdentifier) o;
 
+        if (hashCode != that.hashCode) return false;
         if (host != null ? !host.equals(that.host) : that.host != null) return false;
         if (service != null ? !service.equals(that.service) : that.service != null) return false;
         if (request != null ? !request.equals(that.request) : that.request != null) return false;
@@ -81,6 +98,10 @@ public class NetworkLatencyMetricsIdentifier implements LatencyMetricsIdentifier
 
     @Override
     public int hashCode() {
+        return hashCode;
+    }
+
+    private int computeHashCode() {
         int result = host != null ? host.hashCode() : 0;
         result = 31 * result + (service != null ? service.hashCode() : 0);
         result = 31 * result + (request != null ? request.hashCode() : 0);
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.node.locate;
+
+/**
+ * Estimates how often keys have been read recently with a count-min sketch, so that hot keys can be
+ * told apart from the rest without keeping any per key state.
+ *
+ * Every observed key increments one counter in each row of the sketch (only the smallest ones, which
+ * keeps the overestimation of colliding keys low) and its estimate is the minimum of those counters. After
+ * every {@link #DECAY_INTERVAL} observations all counters are halved, so that keys which are no longer read
+ * cool down again. The detector is not thread safe, every dispatching thread keeps its own one.
+ *
+ * @since 1.5.3
+ */
+final class HotKeyDetector {
+
+    /**
+     * The number of counters per row, needs to be a power of two.
+     */
+    static final int WIDTH = 1024;
+
+    /**
+     * The number of rows, each one indexed by a different hash of the key.
+     */
+    static final int DEPTH = 4;
+
+    /**
+     * The number of observations after which all counters are halved.
+     */
+    static final int DECAY_INTERVAL = WIDTH * 8;
+
+    private final int[] counters = new int[WIDTH * DEPTH];
+    private int observations;
+
+    /**
+     * Records a read of the given key and returns its estimated number of recent reads.
+     *
+     * @param key the key which has been read.
+     * @return the estimated number of recent reads, including this one.
+     */
+    int record(final byte[] key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int count = counters[index(h1, h2, i)];
+            if (count < min) {
+                min = count;
+            }
+        }
+        for (int i = 0; i < DEPTH; i++) {
+            int index = index(h1, h2, i);
+            if (counters[index] == min) {
+                counters[index] = min + 1;
+            }
+        }
+
+        if (++observations >= DECAY_INTERVAL) {
+            decay();
+        }
+        return min + 1;
+    }
+
+    /**
+     * Returns the estimated number of recent reads of the given key without recording one.
+     *
+     * @param key the key to look up.
+     * @return the estimated number of recent reads.
+     */
+    int estimate(final byte[] key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, counters[index(h1, h2, i)]);
+        }
+        return min;
+    }
+
+    /**
+     * Halves all counters.
+     */
+    private void decay() {
+        observations = 0;
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>>= 1;
+        }
+    }
+
+    /**
+     * Returns the counter index of the given row, derived from two independent halves of the key hash.
+     */
+    private static int index(final int h1, final int h2, final int row) {
+        return row * WIDTH + ((h1 + row * h2) & (WIDTH - 1));
+    }
+
+    /**
+     * Hashes the key with FNV-1a, followed by the murmur3 finalizer to spread its bits over both halves.
+     */
+    private static long hash(final byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -31,6 +31,7 @@ import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.kv.BinaryRequest;
 import com.couchbase.client.core.message.kv.GetAllMutationTokensRequest;
 import com.couchbase.client.core.message.kv.GetBucketConfigRequest;
+import com.couchbase.client.core.message.kv.GetRequest;
 import com.couchbase.client.core.message.kv.ObserveRequest;
 import com.couchbase.client.core.message.kv.ObserveSeqnoRequest;
 import com.couchbase.client.core.message.kv.ReplicaGetRequest;
@@ -40,8 +41,12 @@ import com.couchbase.client.core.retry.RetryHelper;
 import com.couchbase.client.core.state.LifecycleState;
 import com.couchbase.client.core.utils.NetworkAddress;
 import com.lmax.disruptor.RingBuffer;
+import io.netty.util.concurrent.FastThreadLocal;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.CRC32;
 
 /**
@@ -50,6 +55,9 @@ import java.util.zip.CRC32;
  * Depending on the bucket type used, it either uses partition/vbucket (couchbase) or ketama (memcache) hashing. For
  * broadcast-type operations, it will return all suitable nodes without hashing by key.
  *
+ * Plain gets which allow replica reads are spread across the master and the replicas of their partition
+ * once their key is hot, if enabled through {@link CoreEnvironment#hotKeyReplicaReadThreshold()}.
+ *
  * @since 1.0.0
  * @author Michael Nitschinger
  * @author Simon Baslé
@@ -64,6 +72,56 @@ public class KeyValueLocator implements Locator {
     private static final int MIN_KEY_BYTES = 1;
     private static final int MAX_KEY_BYTES = 250;
 
+    /**
+     * The {@link CRC32} used to hash keys, reused per thread so that hashing does not allocate.
+     */
+    private static final ThreadLocal<CRC32> CRC32_HASHER = new ThreadLocal<CRC32>() {
+        @Override
+        protected CRC32 initialValue() {
+            return new CRC32();
+        }
+    };
+
+    /**
+     * The routing tables for all couchbase buckets, by bucket name.
+     */
+    private volatile Map<String, KeyValueRoutingTable> routingTables = Collections.emptyMap();
+
+    /**
+     * The hot key state of each dispatching thread, created once hot key replica reads are used on it.
+     *
+     * Gets are routed to the request shards by their key, so all (not retried) reads of a key are recorded
+     * by the same thread and no state is shared between threads.
+     */
+    private final FastThreadLocal<HotKeys> hotKeys = new FastThreadLocal<HotKeys>() {
+        @Override
+        protected HotKeys initialValue() {
+            return new HotKeys();
+        }
+    };
+
+    /**
+     * Rebuilds the routing tables for all couchbase buckets in the given config against the current nodes.
+     *
+     * This needs to be called whenever the config or the list of nodes changes. If a table is missing or
+     * stale, requests are still located correctly, just without the precomputed fast path.
+     *
+     * @param config the current cluster config.
+     * @param nodes the currently managed nodes.
+     */
+    public synchronized void updateRoutingTables(final ClusterConfig config, final List<Node> nodes) {
+        Map<String, KeyValueRoutingTable> tables = new HashMap<String, KeyValueRoutingTable>();
+        if (config != null && config.bucketConfigs() != null) {
+            for (BucketConfig bucketConfig : config.bucketConfigs().values()) {
+                if (bucketConfig instanceof CouchbaseBucketConfig) {
+                    tables.put(bucketConfig.name(), KeyValueRoutingTable.create(
+                        (CouchbaseBucketConfig) bucketConfig, nodes, routingTables.get(bucketConfig.name())));
+                }
+            }
+        }
+        routingTables = tables;
+    }
+
     @Override
     public void locateAndDispatch(final CouchbaseRequest request, final List<Node> nodes, final ClusterConfig cluster,
         CoreEnvironment env, RingBuffer<ResponseEvent> responseBuffer) {
@@ -112,7 +170,7 @@ public class KeyValueLocator implements Locator {
      * @param nodes the managed nodes.
      * @param config the bucket configuration.
      */
-    private static void locateForCouchbaseBucket(final BinaryRequest request, final List<Node> nodes,
+    private void locateForCouchbaseBucket(final BinaryRequest request, final List<Node> nodes,
         final CouchbaseBucketConfig config, CoreEnvironment env, RingBuffer<ResponseEvent> responseBuffer) {
 
         if (!keyIsValid(request)) {
@@ -122,7 +180,27 @@ public class KeyValueLocator implements Locator {
         int partitionId = partitionForKey(request.keyBytes(), config.numberOfPartitions());
         request.partition((short) partitionId);
 
-        int nodeId = calculateNodeId(partitionId, request, config);
+        int replica = replicaFor(request);
+        if (request instanceof GetRequest) {
+            replica = balancedReplica((GetRequest) request, partitionId, config, env);
+        }
+
+        KeyValueRoutingTable table = routingTables.get(config.name());
+        if (table != null && table.config() == config) {
+            boolean useFastForward = request.retryCount() > 0 && config.hasFastForwardMap();
+            int nodeId = table.nodeIndex(partitionId, replica, useFastForward);
+            if (nodeId < 0) {
+                errorObservables(nodeId, request, config.name(), env, responseBuffer);
+                return;
+            }
+            Node node = table.node(nodeId);
+            if (node != null) {
+                node.send(request);
+                return;
+            }
+        }
+
+        int nodeId = calculateNodeId(partitionId, replica, request, config);
         if (nodeId < 0) {
             errorObservables(nodeId, request, config.name(), env, responseBuffer);
             return;
@@ -149,24 +227,78 @@ public class KeyValueLocator implements Locator {
      * Helper method to calculate the node if for the given partition and request type.
      *
      * @param partitionId the partition id.
+     * @param replica the replica number starting at 1, or 0 if the master is targeted.
      * @param request the request used.
      * @param config the current bucket configuration.
      * @return the calculated node id.
      */
-    private static int calculateNodeId(int partitionId, BinaryRequest request, CouchbaseBucketConfig config) {
+    private static int calculateNodeId(int partitionId, int replica, BinaryRequest request,
+        CouchbaseBucketConfig config) {
         boolean useFastForward = request.retryCount() > 0 && config.hasFastForwardMap();
 
-        if (request instanceof ReplicaGetRequest) {
-            return config.nodeIndexForReplica(partitionId, ((ReplicaGetRequest) request).replica() - 1, useFastForward);
-        } else if (request instanceof ObserveRequest && ((ObserveRequest) request).replica() > 0) {
-            return config.nodeIndexForReplica(partitionId, ((ObserveRequest) request).replica() - 1, useFastForward);
-        } else if (request instanceof ObserveSeqnoRequest && ((ObserveSeqnoRequest) request).replica() > 0) {
-            return config.nodeIndexForReplica(partitionId, ((ObserveSeqnoRequest) request).replica() - 1, useFastForward);
+        if (replica > 0) {
+            return config.nodeIndexForReplica(partitionId, replica - 1, useFastForward);
         } else {
             return config.nodeIndexForMaster(partitionId, useFastForward);
         }
     }
 
+    /**
+     * Picks the node a plain get is sent to, spreading the gets of hot keys across the master and the
+     * replicas if the request allows it and hot key replica reads are enabled.
+     *
+     * Retried gets always go to the master, since they most likely hit a replica which has not been
+     * in sync with the config anymore. The same is true if the picked replica is currently not available.
+     *
+     * @param request the get request.
+     * @param partitionId the partition of its key.
+     * @param config the current bucket configuration.
+     * @param env the environment with the hot key threshold.
+     * @return the replica number starting at 1, or 0 if the master is targeted.
+     */
+    private int balancedReplica(final GetRequest request, final int partitionId, final CouchbaseBucketConfig config,
+        final CoreEnvironment env) {
+        request.replica((short) 0);
+        if (!request.replicaReadAllowed()) {
+            return 0;
+        }
+        int threshold = env.hotKeyReplicaReadThreshold();
+        if (threshold <= 0 || request.retryCount() > 0 || config.numberOfReplicas() == 0) {
+            return 0;
+        }
+
+        HotKeys state = hotKeys.get();
+        if (state.detector.record(request.keyBytes()) < threshold) {
+            return 0;
+        }
+
+        state.nextReplica = (state.nextReplica + 1) % (config.numberOfReplicas() + 1);
+        int replica = state.nextReplica;
+        if (replica > 0 && config.nodeIndexForReplica(partitionId, replica - 1, false) < 0) {
+            return 0;
+        }
+        request.replica((short) replica);
+        return replica;
+    }
+
+    /**
+     * Helper method to extract the replica number the request targets.
+     *
+     * @param request the request used.
+     * @return the replica number starting at 1, or 0 if the master is targeted.
+     */
+    private static int replicaFor(final BinaryRequest request) {
+        if (request instanceof ReplicaGetRequest) {
+            return ((ReplicaGetRequest) request).replica();
+        } else if (request instanceof ObserveRequest) {
+            return ((ObserveRequest) request).replica();
+        } else if (request instanceof ObserveSeqnoRequest) {
+            return ((ObserveSeqnoRequest) request).replica();
+        } else {
+            return 0;
+        }
+    }
+
     /**
      * Fail observables because the partitions do not match up.
      *
@@ -231,7 +363,8 @@ public class KeyValueLocator implements Locator {
      * @return the calculated partition.
      */
     private static int partitionForKey(byte[] key, int numPartitions) {
-        CRC32 crc32 = new CRC32();
+        CRC32 crc32 = CRC32_HASHER.get();
+        crc32.reset();
         crc32.update(key);
         long rv = (crc32.getValue() >> 16) & 0x7fff;
         return (int) rv &numPartitions - 1;
@@ -308,4 +441,19 @@ public class KeyValueLocator implements Locator {
         return true;
     }
 
+    /**
+     * The hot key state of one dispatching thread.
+     */
+    private static final class HotKeys {
+
+        /**
+         * Estimates the recent reads of the keys dispatched by the thread.
+         */
+        private final HotKeyDetector detector = new HotKeyDetector();
+
+        /**
+         * Rotates hot key gets across the master and the replicas.
+         */
+        private int nextReplica;
+    }
 }
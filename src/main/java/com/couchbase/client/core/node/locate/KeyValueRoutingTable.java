@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.node.locate;
+
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.DefaultCouchbaseBucketConfig;
+import com.couchbase.client.core.node.Node;
+import com.couchbase.client.core.utils.NetworkAddress;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the partition to {@link Node} mapping for one {@link CouchbaseBucketConfig}.
+ *
+ * All node indexes for the master, every replica and the fast forward map are flattened into arrays
+ * indexed by partition, and every node index is resolved to its {@link Node} once, so that locating a
+ * request does not need to walk partitions or compare hostnames.
+ *
+ * @since 1.5.3
+ */
+final class KeyValueRoutingTable {
+
+    private final CouchbaseBucketConfig config;
+    private final int numberOfPartitions;
+
+    /**
+     * Node indexes by partition for the regular map, the master in row 0 and the replicas afterwards.
+     */
+    private final short[][] partitions;
+
+    /**
+     * Node indexes by partition for the fast forward map, null if the config has none.
+     */
+    private final short[][] forwardPartitions;
+
+    /**
+     * The resolved nodes by their node index in the config, null if not (yet) part of the node list.
+     */
+    private final Node[] nodes;
+
+    private KeyValueRoutingTable(final CouchbaseBucketConfig config, final short[][] partitions,
+        final short[][] forwardPartitions, final Node[] nodes) {
+        this.config = config;
+        this.numberOfPartitions = config.numberOfPartitions();
+        this.partitions = partitions;
+        this.forwardPartitions = forwardPartitions;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Builds the routing table for the given bucket config and the nodes currently connected.
+     *
+     * @param config the bucket config.
+     * @param connected the nodes currently managed.
+     * @return the created routing table.
+     */
+    static KeyValueRoutingTable create(final CouchbaseBucketConfig config, final List<Node> connected) {
+        return create(config, connected, null);
+    }
+
+    /**
+     * Builds the routing table for the given bucket config and the nodes currently connected, reusing
+     * what did not change since the previous table of the same bucket.
+     *
+     * A row of node indexes is only copied if at least one of its partitions moved, the rows of a config
+     * which only changed its node list or rev are shared with the previous table.
+     *
+     * @param config the bucket config.
+     * @param connected the nodes currently managed.
+     * @param previous the previous table of the bucket, may be null.
+     * @return the created routing table.
+     */
+    static KeyValueRoutingTable create(final CouchbaseBucketConfig config, final List<Node> connected,
+        final KeyValueRoutingTable previous) {
+        short[][] partitions = buildPartitions(config, false, previous == null ? null : previous.partitions);
+        short[][] forwardPartitions = config.hasFastForwardMap()
+            ? buildPartitions(config, true, previous == null ? null : previous.forwardPartitions)
+            : null;
+
+        Node[] nodes = new Node[config.nodes().size()];
+        for (int i = 0; i < nodes.length; i++) {
+            NetworkAddress hostname = config.nodeAtIndex(i).hostname();
+            for (Node node : connected) {
+                if (node.hostname().equals(hostname)) {
+                    nodes[i] = node;
+                    break;
+                }
+            }
+        }
+        return new KeyValueRoutingTable(config, partitions, forwardPartitions, nodes);
+    }
+
+    private static short[][] buildPartitions(final CouchbaseBucketConfig config, final boolean useFastForward,
+        final short[][] previous) {
+        int numPartitions = config.numberOfPartitions();
+        short[][] rows = new short[config.numberOfReplicas() + 1][];
+        for (int r = 0; r < rows.length; r++) {
+            short[] previousRow = previous != null && r < previous.length && previous[r].length == numPartitions
+                ? previous[r] : null;
+            short[] row = previousRow == null ? new short[numPartitions] : previousRow;
+            for (int p = 0; p < numPartitions; p++) {
+                short index = r == 0
+                    ? config.nodeIndexForMaster(p, useFastForward)
+                    : config.nodeIndexForReplica(p, r - 1, useFastForward);
+                if (row[p] != index) {
+                    if (row == previousRow) {
+                        row = Arrays.copyOf(previousRow, numPartitions);
+                    }
+                    row[p] = index;
+                }
+            }
+            rows[r] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the config this table has been built from.
+     */
+    CouchbaseBucketConfig config() {
+        return config;
+    }
+
+    /**
+     * Returns the node index for the given partition, with the same semantics as
+     * {@link CouchbaseBucketConfig#nodeIndexForMaster(int, boolean)} and
+     * {@link CouchbaseBucketConfig#nodeIndexForReplica(int, int, boolean)}.
+     *
+     * @param partition the partition id.
+     * @param replica 0 for the master, otherwise the replica number starting with 1.
+     * @param useFastForward if the fast forward map should be used.
+     * @return the node index, -1 if currently not available or -2 if not existent.
+     */
+    int nodeIndex(final int partition, final int replica, final boolean useFastForward) {
+        short[][] rows = useFastForward ? forwardPartitions : partitions;
+        if (rows == null) {
+            throw new IllegalStateException("Could not get index from FF-Map, none found in this config.");
+        }
+        if (replica >= rows.length || partition >= numberOfPartitions) {
+            return DefaultCouchbaseBucketConfig.PARTITION_NOT_EXISTENT;
+        }
+        return rows[replica][partition];
+    }
+
+    /**
+     * Returns the node for the given node index.
+     *
+     * @param nodeIndex the node index from the config.
+     * @return the node or null if it has not been part of the node list when the table was built.
+     */
+    Node node(final int nodeIndex) {
+        return nodeIndex < nodes.length ? nodes[nodeIndex] : null;
+    }
+
+}
@@ -41,12 +41,25 @@ public class RetryHelper {
      */
     public static void retryOrCancel(final CoreEnvironment environment, final CouchbaseRequest request,
         final EventSink<ResponseEvent> responseBuffer) {
+        retryOrCancel(environment, request, responseBuffer, RetryReason.NOT_CONNECTED);
+    }
+
+    /**
+     * Either retry or cancel a request, based on the strategy used.
+     *
+     * @param environment the core environment for context.
+     * @param request the request to either retry or cancel.
+     * @param responseBuffer the response buffer where to maybe retry on.
+     * @param reason the reason why the request needs to be retried.
+     */
+    public static void retryOrCancel(final CoreEnvironment environment, final CouchbaseRequest request,
+        final EventSink<ResponseEvent> responseBuffer, final RetryReason reason) {
         if (!request.isActive()) {
             return;
         }
 
         if (environment.retryStrategy().shouldRetry(request, environment)) {
-            retry(request, responseBuffer);
+            retry(request, responseBuffer, reason);
         } else {
             request.observable().onError(new RequestCancelledException("Could not dispatch request, cancelling "
                 + "instead of retrying."));
@@ -60,7 +73,19 @@ public class RetryHelper {
      * @param responseBuffer the response buffer to send it into.
      */
     public static void retry(final CouchbaseRequest request, final EventSink<ResponseEvent> responseBuffer) {
-        if(!responseBuffer.tryPublishEvent(ResponseHandler.RESPONSE_TRANSLATOR, request, request.observable())) {
+        retry(request, responseBuffer, RetryReason.NOT_CONNECTED);
+    }
+
+    /**
+     * Always retry the request and send it into the response buffer.
+     *
+     * @param request the request to retry
+     * @param responseBuffer the response buffer to send it into.
+     * @param reason the reason why the request needs to be retried.
+     */
+    public static void retry(final CouchbaseRequest request, final EventSink<ResponseEvent> responseBuffer,
+        final RetryReason reason) {
+        if(!responseBuffer.tryPublishEvent(ResponseHandler.RETRY_TRANSLATOR, request, reason)) {
             request.observable().onError(CouchbaseCore.BACKPRESSURE_EXCEPTION);
         }
     }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.retry;
+
+/**
+ * The reason why a request is retried.
+ *
+ * @since 1.5.3
+ */
+public enum RetryReason {
+
+    /**
+     * The server responded that the partition is not (or no longer) hosted on the node.
+     */
+    NOT_MY_VBUCKET,
+
+    /**
+     * No node, service or endpoint was connected to dispatch the request to.
+     */
+    NOT_CONNECTED,
+
+    /**
+     * All endpoints which could take the request are busy.
+     */
+    QUEUE_FULL,
+
+    /**
+     * The endpoint did not accept the request because its in-flight limit is reached or its channel
+     * is not writable.
+     */
+    BACKPRESSURE
+
+}
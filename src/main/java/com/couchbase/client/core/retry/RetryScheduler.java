@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.retry;
+
+import com.couchbase.client.core.RequestCancelledException;
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.logging.CouchbaseLogger;
+import com.couchbase.client.core.logging.CouchbaseLoggerFactory;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import rx.functions.Action1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Schedules requests for retry on a hashed wheel with coarse ticks.
+ *
+ * Instead of creating a scheduler worker and a delayed task for every retry, requests are put into the
+ * slot of the wheel their retry is due in. A single thread advances the wheel once per tick and hands all
+ * requests which are due in that tick to the dispatcher as one batch, so a storm of retries (i.e. not my
+ * vbucket responses during a rebalance) costs one wakeup per tick and not one per request.
+ *
+ * Delays are rounded up to the next tick. The thread is started with the first scheduled retry and parks
+ * while no retries are waiting, so an idle wheel does not wake up at all.
+ *
+ * @since 1.5.3
+ */
+@InterfaceAudience.Private
+public class RetryScheduler {
+
+    private static final CouchbaseLogger LOGGER = CouchbaseLoggerFactory.getInstance(RetryScheduler.class);
+
+    /**
+     * The default duration of a tick in milliseconds.
+     */
+    public static final long DEFAULT_TICK_DURATION = 10;
+
+    /**
+     * The default number of slots on the wheel.
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Entry>[] wheel;
+    private final Queue<Entry> pending;
+    private final Action1<List<CouchbaseRequest>> dispatcher;
+    private final ThreadFactory threadFactory;
+    private final AtomicLongArray retries;
+    private final AtomicBoolean started;
+
+    private volatile boolean shutdown;
+    private volatile long startTime;
+    private volatile boolean parked;
+    private volatile Thread worker;
+
+    /**
+     * Creates a new {@link RetryScheduler}.
+     *
+     * @param tickDuration the duration of one tick.
+     * @param unit the unit of the tick duration.
+     * @param wheelSize the number of slots, rounded up to the next power of two.
+     * @param threadFactory the factory for the thread which advances the wheel.
+     * @param dispatcher called with the requests due in a tick, from the thread of the wheel.
+     */
+    @SuppressWarnings("unchecked")
+    public RetryScheduler(final long tickDuration, final TimeUnit unit, final int wheelSize,
+        final ThreadFactory threadFactory, final Action1<List<CouchbaseRequest>> dispatcher) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("The tick duration must be greater than 0");
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<Entry>();
+        }
+        this.pending = new ConcurrentLinkedQueue<Entry>();
+        this.dispatcher = dispatcher;
+        this.threadFactory = threadFactory;
+        this.retries = new AtomicLongArray(RetryReason.values().length);
+        this.started = new AtomicBoolean();
+    }
+
+    /**
+     * Schedules the request to be dispatched again after the given delay.
+     *
+     * @param request the request to retry.
+     * @param delay the delay after which the request should be dispatched.
+     * @param unit the unit of the delay.
+     * @param reason the reason for the retry.
+     */
+    public void schedule(final CouchbaseRequest request, final long delay, final TimeUnit unit,
+        final RetryReason reason) {
+        retries.incrementAndGet(reason.ordinal());
+        if (shutdown) {
+            cancel(request);
+            return;
+        }
+        if (started.compareAndSet(false, true)) {
+            start();
+        }
+        Entry entry = new Entry(request, System.nanoTime() + unit.toNanos(delay));
+        pending.offer(entry);
+        if (parked) {
+            LockSupport.unpark(worker);
+        }
+        // the wheel might have drained the pending entries for the shutdown before the offer.
+        if (shutdown && pending.remove(entry)) {
+            cancel(request);
+        }
+    }
+
+    /**
+     * Returns the number of retries scheduled for the given reason since this scheduler was created.
+     *
+     * @param reason the reason of the retries.
+     * @return the number of retries.
+     */
+    public long retries(final RetryReason reason) {
+        return retries.get(reason.ordinal());
+    }
+
+    /**
+     * Stops the wheel, all requests waiting for their retry are cancelled.
+     */
+    public void shutdown() {
+        shutdown = true;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void start() {
+        startTime = System.nanoTime();
+        worker = threadFactory.newThread(new Worker());
+        worker.start();
+    }
+
+    /**
+     * Returns the tick in which the given deadline is due.
+     */
+    private long tickOf(final long deadline) {
+        long elapsed = deadline - startTime;
+        return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+    }
+
+    private static void cancel(final CouchbaseRequest request) {
+        request.observable().onError(new RequestCancelledException("Could not dispatch request, cancelling "
+            + "instead of retrying because the core is shutting down."));
+    }
+
+    /**
+     * Advances the wheel once per tick and dispatches the due requests.
+     */
+    private class Worker implements Runnable {
+
+        private long tick;
+
+        /**
+         * The number of entries on the wheel.
+         */
+        private int entries;
+
+        @Override
+        public void run() {
+            List<CouchbaseRequest> due = new ArrayList<CouchbaseRequest>();
+            while (!shutdown) {
+                if (entries == 0 && pending.isEmpty()) {
+                    parkUntilScheduled();
+                    continue;
+                }
+                if (!waitForTick()) {
+                    break;
+                }
+                transferPending();
+
+                List<Entry> slot = wheel[(int) (tick & mask)];
+                int kept = 0;
+                for (int i = 0; i < slot.size(); i++) {
+                    Entry entry = slot.get(i);
+                    if (entry.tick <= tick) {
+                        due.add(entry.request);
+                        entries--;
+                    } else {
+                        slot.set(kept++, entry);
+                    }
+                }
+                slot.subList(kept, slot.size()).clear();
+
+                if (!due.isEmpty()) {
+                    try {
+                        dispatcher.call(due);
+                    } catch (Throwable t) {
+                        LOGGER.warn("Exception while dispatching retried requests.", t);
+                    }
+                    due.clear();
+                }
+                tick++;
+            }
+            cancelAll();
+        }
+
+        /**
+         * Parks the thread until a retry is scheduled or the wheel is shut down, then skips the ticks
+         * which passed in the meantime since there was nothing on the wheel.
+         */
+        private void parkUntilScheduled() {
+            parked = true;
+            // a retry might have been offered before the flag was visible.
+            if (pending.isEmpty() && !shutdown) {
+                LockSupport.park(this);
+            }
+            parked = false;
+            tick = Math.max(tick, (System.nanoTime() - startTime) / tickNanos);
+        }
+
+        /**
+         * Sleeps until the current tick is over.
+         *
+         * @return false if interrupted because of a shutdown.
+         */
+        private boolean waitForTick() {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            for (;;) {
+                long sleepNanos = deadline - System.nanoTime();
+                if (sleepNanos <= 0) {
+                    return true;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (shutdown) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        private void transferPending() {
+            Entry entry;
+            while ((entry = pending.poll()) != null) {
+                entry.tick = Math.max(tickOf(entry.deadline), tick);
+                wheel[(int) (entry.tick & mask)].add(entry);
+                entries++;
+            }
+        }
+
+        private void cancelAll() {
+            Entry entry;
+            while ((entry = pending.poll()) != null) {
+                cancel(entry.request);
+            }
+            for (List<Entry> slot : wheel) {
+                for (Entry e : slot) {
+                    cancel(e.request);
+                }
+                slot.clear();
+            }
+        }
+    }
+
+    /**
+     * A request waiting on the wheel.
+     */
+    private static final class Entry {
+        private final CouchbaseRequest request;
+        private final long deadline;
+        private long tick;
+
+        Entry(final CouchbaseRequest request, final long deadline) {
+            this.request = request;
+            this.deadline = deadline;
+        }
+    }
+}
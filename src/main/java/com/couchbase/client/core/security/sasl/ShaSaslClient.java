@@ -33,12 +33,20 @@ import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Implementation of a SCRAM-SHA512, SCRAM-SHA256 and SCRAM-SHA1 enabled {@link SaslClient}.
  *
+ * Deriving the salted password takes as many HMAC rounds as the server asks for, so the client and server
+ * keys derived from it are cached by user, password, salt, iteration count and algorithm. Further handshakes
+ * with the same credentials, like those of all other connections after a reconnect, skip the derivation.
+ * The password only goes into the cache key as an HMAC under a random key of this process, so the cache
+ * keys can not be used to guess it offline.
+ *
  * @author Trond Norbye
  * @since 1.2.5
  */
@@ -47,14 +55,45 @@ public class ShaSaslClient implements SaslClient {
     private static final byte[] CLIENT_KEY = "Client Key".getBytes();
     private static final byte[] SERVER_KEY = "Server Key".getBytes();
 
+    /**
+     * The maximum number of derived keys kept in the cache.
+     */
+    private static final int MAX_CACHED_KEYS = Integer.parseInt(
+        System.getProperty("com.couchbase.scramKeyCacheSize", "64")
+    );
+
+    /**
+     * The random key the passwords are hashed with to identify them in the cache, never leaves the process.
+     */
+    private static final byte[] PASSWORD_CACHE_KEY = new byte[32];
+
+    static {
+        new SecureRandom().nextBytes(PASSWORD_CACHE_KEY);
+    }
+
+    /**
+     * The derived keys by credentials, salt, iteration count and algorithm, the least recently used are
+     * evicted first.
+     */
+    private static final Map<String, ScramKeys> KEY_CACHE = Collections.synchronizedMap(
+        new LinkedHashMap<String, ScramKeys>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, ScramKeys> eldest) {
+                return size() > MAX_CACHED_KEYS;
+            }
+        }
+    );
+
     private final String name;
     private final String hmacAlgorithm;
     private final CallbackHandler callbacks;
     private final MessageDigest digest;
+    private final Mac mac;
 
     private String clientNonce;
+    private String userName;
     private byte[] salt;
-    private byte[] saltedPassword;
+    private ScramKeys keys;
     private int iterationCount;
     private String clientFirstMessage;
     private String clientFirstMessageBare;
@@ -84,7 +123,7 @@ public class ShaSaslClient implements SaslClient {
             default:
                 throw new RuntimeException("Invalid SHA version specified");
         }
-
+        mac = Mac.getInstance(hmacAlgorithm);
 
         SecureRandom random = new SecureRandom();
         byte[] random_nonce = new byte[21];
@@ -109,7 +148,8 @@ public class ShaSaslClient implements SaslClient {
                 throw new SaslException("Initial challenge should be without input data");
             }
 
-            clientFirstMessage = "n,,n=" + getUserName() + ",r=" + clientNonce;
+            userName = getUserName();
+            clientFirstMessage = "n,,n=" + userName + ",r=" + clientNonce;
             clientFirstMessageBare = clientFirstMessage.substring(3);
             return clientFirstMessage.getBytes();
         } else if (serverFirstMessage == null) {
@@ -139,8 +179,8 @@ public class ShaSaslClient implements SaslClient {
                 throw new IllegalArgumentException("missing mandatory key in serverFirstMessage");
             }
 
-            // We have the salt, time to generate the salted password
-            generateSaltedPassword();
+            // We have the salt, time to generate the salted password and the keys from it
+            generateKeys();
 
             clientFinalMessageNoProof = "c=biws,r=" + nonce;
             String client_final_message = clientFinalMessageNoProof + ",p=" + Base64.encode(getClientProof());
@@ -217,7 +257,6 @@ public class ShaSaslClient implements SaslClient {
      */
     private byte[] hmac(byte[] key, byte[] data) {
         try {
-            final Mac mac = Mac.getInstance(hmacAlgorithm);
             mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
             return mac.doFinal(data);
         } catch (InvalidKeyException e) {
@@ -245,7 +284,6 @@ public class ShaSaslClient implements SaslClient {
      */
     private byte[] pbkdf2(final String password, final byte[] salt, int iterations) {
         try {
-            Mac mac = Mac.getInstance(hmacAlgorithm);
             Key key;
             if (password == null || password.isEmpty()) {
                 key = new EmptySecretKey(hmacAlgorithm);
@@ -292,7 +330,11 @@ public class ShaSaslClient implements SaslClient {
         }
     }
 
-    private void generateSaltedPassword() throws SaslException {
+    /**
+     * Generates the client and server keys from the salted password, or takes them from the cache if
+     * they have been derived for the same credentials, salt and iteration count already.
+     */
+    private void generateKeys() throws SaslException {
         final PasswordCallback passwordCallback = new PasswordCallback("Password", false);
         try {
             callbacks.handle(new Callback[]{passwordCallback});
@@ -308,8 +350,18 @@ public class ShaSaslClient implements SaslClient {
         }
 
         String password = new String(pw);
-        saltedPassword = pbkdf2(password, salt, iterationCount);
         passwordCallback.clearPassword();
+
+        // the password is only part of the cache key as its keyed hash
+        String passwordKey = Base64.encode(hmac(PASSWORD_CACHE_KEY, password.getBytes()));
+        String cacheKey = hmacAlgorithm + ',' + userName + ',' + passwordKey
+            + ',' + Base64.encode(salt) + ',' + iterationCount;
+        keys = KEY_CACHE.get(cacheKey);
+        if (keys == null) {
+            byte[] saltedPassword = pbkdf2(password, salt, iterationCount);
+            keys = new ScramKeys(hmac(saltedPassword, CLIENT_KEY), hmac(saltedPassword, SERVER_KEY));
+            KEY_CACHE.put(cacheKey, keys);
+        }
     }
 
     /**
@@ -320,8 +372,7 @@ public class ShaSaslClient implements SaslClient {
      * ServerSignature := HMAC(ServerKey, AuthMessage)
      */
     private byte[] getServerSignature() {
-        byte[] serverKey = hmac(saltedPassword, SERVER_KEY);
-        return hmac(serverKey, getAuthMessage().getBytes());
+        return hmac(keys.serverKey, getAuthMessage().getBytes());
     }
 
     /**
@@ -337,7 +388,7 @@ public class ShaSaslClient implements SaslClient {
      * ClientProof     := ClientKey XOR ClientSignature
      */
     private byte[] getClientProof() {
-        byte[] clientKey = hmac(saltedPassword, CLIENT_KEY);
+        byte[] clientKey = keys.clientKey.clone();
         byte[] storedKey = digest.digest(clientKey);
         byte[] clientSignature = hmac(storedKey, getAuthMessage().getBytes());
 
@@ -402,4 +453,17 @@ public class ShaSaslClient implements SaslClient {
             return new byte[] {};
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * The client and server keys derived from a salted password.
+     */
+    private static final class ScramKeys {
+        private final byte[] clientKey;
+        private final byte[] serverKey;
+
+        ScramKeys(final byte[] clientKey, final byte[] serverKey) {
+            this.clientKey = clientKey;
+            this.serverKey = serverKey;
+        }
+    }
+}
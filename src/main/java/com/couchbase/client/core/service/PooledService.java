@@ -25,6 +25,7 @@ import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.internal.EndpointHealth;
 import com.couchbase.client.core.message.internal.SignalFlush;
 import com.couchbase.client.core.retry.RetryHelper;
+import com.couchbase.client.core.retry.RetryReason;
 import com.couchbase.client.core.service.strategies.SelectionStrategy;
 import com.couchbase.client.core.state.AbstractStateMachine;
 import com.couchbase.client.core.state.LifecycleState;
@@ -39,6 +40,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.couchbase.client.core.utils.Observables.failSafe;
 
 /**
  * A generic implementation of a service pool.
@@ -206,6 +210,17 @@ public abstract class PooledService extends AbstractStateMachine<LifecycleState>
         }
     }
 
+    /**
+     * Returns the custom selection strategy of a service config if one is set, the default of the service otherwise.
+     *
+     * @param custom the strategy from the service config, may be null.
+     * @param serviceDefault the default strategy of the service.
+     * @return the strategy to select endpoints with.
+     */
+    static SelectionStrategy selectionStrategy(final SelectionStrategy custom, final SelectionStrategy serviceDefault) {
+        return custom != null ? custom : serviceDefault;
+    }
+
     private void preCheckEndpointSettings(final AbstractServiceConfig serviceConfig) {
         int minEndpoints = serviceConfig.minEndpoints();
         int maxEndpoints = serviceConfig.maxEndpoints();
@@ -319,6 +334,12 @@ public abstract class PooledService extends AbstractStateMachine<LifecycleState>
             return;
         }
 
+        if (request.isExpired()) {
+            failSafe(env.scheduler(), true, request.observable(),
+                new TimeoutException("Deadline of the request passed before it was sent to an endpoint."));
+            return;
+        }
+
         Endpoint endpoint = endpoints.size() > 0 ? selectionStrategy.select(request, endpoints) : null;
 
         //don't send timed out requests to server
@@ -328,7 +349,7 @@ public abstract class PooledService extends AbstractStateMachine<LifecycleState>
 
         if (endpoint == null) {
             if (fixedEndpoints || ((endpoints.size() + pendingRequests) >= maxEndpoints)) {
-                RetryHelper.retryOrCancel(env, request, responseBuffer);
+                RetryHelper.retryOrCancel(env, request, responseBuffer, RetryReason.QUEUE_FULL);
             } else {
                 maybeOpenAndSend(request);
             }
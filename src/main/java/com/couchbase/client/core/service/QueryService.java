@@ -71,7 +71,8 @@ public class QueryService extends PooledService {
      */
     public QueryService(final String hostname, final String bucket, final String username, final String password, final int port,
         final CoreEnvironment env, final RingBuffer<ResponseEvent> responseBuffer) {
-        super(hostname, bucket, username, password, port, env, env.queryServiceConfig(), responseBuffer, FACTORY, STRATEGY);
+        super(hostname, bucket, username, password, port, env, env.queryServiceConfig(), responseBuffer, FACTORY,
+            selectionStrategy(env.queryServiceConfig().selectionStrategy(), STRATEGY));
     }
 
 
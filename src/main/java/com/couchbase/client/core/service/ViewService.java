@@ -70,7 +70,8 @@ public class ViewService extends PooledService {
      */
     public ViewService(final String hostname, final String bucket, final String username, final String password, final int port,
         final CoreEnvironment env, final RingBuffer<ResponseEvent> responseBuffer) {
-        super(hostname, bucket, username, password, port, env, env.viewServiceConfig(), responseBuffer, FACTORY, STRATEGY);
+        super(hostname, bucket, username, password, port, env, env.viewServiceConfig(), responseBuffer, FACTORY,
+            selectionStrategy(env.viewServiceConfig().selectionStrategy(), STRATEGY));
     }
 
     @Override
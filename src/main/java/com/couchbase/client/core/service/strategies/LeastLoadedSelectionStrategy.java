@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.couchbase.client.core.service.strategies;
+
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.Endpoint;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.state.LifecycleState;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Selects the least loaded {@link Endpoint} out of two randomly picked ones ("power of two choices").
+ *
+ * The load of an endpoint is the number of its outstanding requests plus one, weighted with the moving
+ * average of its response latency. This steers traffic away from endpoints which are stuck with slow
+ * requests (i.e. a long running N1QL query) without the herding effect of always picking the globally
+ * least loaded endpoint. Endpoints which have not completed a response yet are preferred, so that new
+ * endpoints get warmed up.
+ *
+ * Like the other strategies, only connected and free endpoints are selected. If neither of the two
+ * candidates qualifies, all endpoints are scanned for the least loaded one.
+ *
+ * @since 1.5.3
+ */
+public class LeastLoadedSelectionStrategy implements SelectionStrategy {
+
+    /**
+     * Random number generator, statically initialized and designed to be reused.
+     */
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    @Override
+    public Endpoint select(final CouchbaseRequest request, final List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        if (size == 0) {
+            return null;
+        }
+
+        if (size > 2) {
+            Random random = RANDOM.get();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+
+            Endpoint a = endpoints.get(first);
+            Endpoint b = endpoints.get(second);
+            boolean aSelectable = isSelectable(a);
+            boolean bSelectable = isSelectable(b);
+            if (aSelectable && bSelectable) {
+                return load(a) <= load(b) ? a : b;
+            } else if (aSelectable) {
+                return a;
+            } else if (bSelectable) {
+                return b;
+            }
+        }
+
+        Endpoint selected = null;
+        long selectedLoad = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get(i);
+            if (isSelectable(endpoint)) {
+                long load = load(endpoint);
+                if (load < selectedLoad) {
+                    selected = endpoint;
+                    selectedLoad = load;
+                }
+            }
+        }
+        return selected;
+    }
+
+    private static boolean isSelectable(final Endpoint endpoint) {
+        return endpoint.isState(LifecycleState.CONNECTED) && endpoint.isFree();
+    }
+
+    /**
+     * Calculates the load of the given endpoint, endpoints which do not track their load count as idle.
+     *
+     * Can be overridden to take other signals into account.
+     *
+     * @param endpoint the endpoint to check.
+     * @return the load, the lower the better.
+     */
+    protected long load(final Endpoint endpoint) {
+        if (!(endpoint instanceof AbstractEndpoint)) {
+            return 0;
+        }
+        AbstractEndpoint abstractEndpoint = (AbstractEndpoint) endpoint;
+        long outstanding = abstractEndpoint.outstandingRequests() + 1;
+        long latency = abstractEndpoint.averageLatency();
+        return latency == 0 ? outstanding : outstanding * latency;
+    }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils;
+
+import com.couchbase.client.core.annotations.InterfaceAudience;
+import com.couchbase.client.core.annotations.InterfaceStability;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Encoder and decoder for the raw (unframed) snappy block format, as used by the KV
+ * engine for the SNAPPY datatype.
+ *
+ * The encoder is a simple greedy matcher working on 64KB fragments, so all back
+ * references fit into 1 or 2 byte offsets. The decoder accepts every valid snappy
+ * block, including 4 byte offsets produced by other encoders.
+ *
+ * @since 1.5.3
+ */
+@InterfaceAudience.Private
+@InterfaceStability.Experimental
+public final class Snappy {
+
+    private static final int TAG_LITERAL = 0x00;
+    private static final int TAG_COPY_1 = 0x01;
+    private static final int TAG_COPY_2 = 0x02;
+
+    /**
+     * Size of a fragment which is compressed independently.
+     */
+    private static final int FRAGMENT_SIZE = 1 << 16;
+
+    /**
+     * Inputs smaller than this are always stored as a single literal.
+     */
+    private static final int MIN_COMPRESSIBLE_SIZE = 15;
+
+    /**
+     * Bounds of the hash table, which is sized to the next power of two of the fragment length in between.
+     */
+    private static final int MIN_HASH_TABLE_SIZE = 1 << 8;
+    private static final int MAX_HASH_TABLE_SIZE = 1 << 14;
+
+    private Snappy() {
+    }
+
+    /**
+     * Returns the maximum number of bytes the encoded representation of the given input length can take.
+     *
+     * @param length the uncompressed input length.
+     * @return the upper bound for the compressed size.
+     */
+    public static int maxEncodedLength(final int length) {
+        return 32 + length + length / 6;
+    }
+
+    /**
+     * Compresses the readable bytes of the input into the output buffer.
+     *
+     * The reader index of the input is moved to its writer index.
+     *
+     * @param in the uncompressed input.
+     * @param out the buffer to write the compressed block into.
+     */
+    public static void encode(final ByteBuf in, final ByteBuf out) {
+        int length = in.readableBytes();
+        writeVarInt(out, length);
+
+        int[] table = new int[hashTableSize(Math.min(length, FRAGMENT_SIZE))];
+        int start = in.readerIndex();
+        int end = in.writerIndex();
+        for (int base = start; base < end; base += FRAGMENT_SIZE) {
+            encodeFragment(in, out, base, Math.min(base + FRAGMENT_SIZE, end), table);
+        }
+        in.readerIndex(end);
+    }
+
+    /**
+     * Peeks into the given compressed block and returns the uncompressed length without moving the reader index.
+     *
+     * @param in the compressed block.
+     * @return the length of the uncompressed data.
+     */
+    public static int decodedLength(final ByteBuf in) {
+        int index = in.readerIndex();
+        try {
+            return readVarInt(in);
+        } finally {
+            in.readerIndex(index);
+        }
+    }
+
+    /**
+     * Decompresses the readable bytes of the input into the output buffer.
+     *
+     * The reader index of the input is moved to its writer index.
+     *
+     * @param in the compressed block.
+     * @param out the buffer to write the uncompressed data into.
+     * @throws IllegalStateException if the input is not a valid snappy block.
+     */
+    public static void decode(final ByteBuf in, final ByteBuf out) {
+        int expected = readVarInt(in);
+        int outStart = out.writerIndex();
+        out.ensureWritable(expected);
+
+        while (in.isReadable()) {
+            int tag = in.readUnsignedByte();
+            int length;
+            int offset;
+            switch (tag & 0x03) {
+                case TAG_LITERAL:
+                    length = tag >>> 2;
+                    if (length >= 60) {
+                        length = readLittleEndian(in, length - 59);
+                    }
+                    length += 1;
+                    if (in.readableBytes() < length) {
+                        throw new IllegalStateException("Snappy literal exceeds input (" + length + " bytes)");
+                    }
+                    out.writeBytes(in, length);
+                    continue;
+                case TAG_COPY_1:
+                    length = 4 + ((tag >>> 2) & 0x07);
+                    offset = ((tag & 0xe0) << 3) | in.readUnsignedByte();
+                    break;
+                case TAG_COPY_2:
+                    length = 1 + (tag >>> 2);
+                    offset = readLittleEndian(in, 2);
+                    break;
+                default: // copy with 4 byte offset
+                    length = 1 + (tag >>> 2);
+                    offset = readLittleEndian(in, 4);
+                    break;
+            }
+            copy(out, outStart, offset, length);
+        }
+
+        int actual = out.writerIndex() - outStart;
+        if (actual != expected) {
+            throw new IllegalStateException("Snappy decoded length mismatch, expected " + expected
+                + " but got " + actual);
+        }
+    }
+
+    private static void encodeFragment(final ByteBuf in, final ByteBuf out, final int base, final int end,
+        final int[] table) {
+        int length = end - base;
+        if (length < MIN_COMPRESSIBLE_SIZE) {
+            writeLiteral(in, out, base, length);
+            return;
+        }
+
+        int size = hashTableSize(length);
+        int shift = 32 - Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            table[i] = -1;
+        }
+
+        int nextEmit = base;
+        int ip = base;
+        int limit = end - 4;
+        while (ip <= limit) {
+            int current = in.getInt(ip);
+            int hash = (current * 0x1e35a7bd) >>> shift;
+            int candidate = table[hash];
+            table[hash] = ip;
+
+            if (candidate < base || in.getInt(candidate) != current) {
+                ip++;
+                continue;
+            }
+
+            if (ip > nextEmit) {
+                writeLiteral(in, out, nextEmit, ip - nextEmit);
+            }
+            int matched = 4;
+            while (ip + matched < end && in.getByte(candidate + matched) == in.getByte(ip + matched)) {
+                matched++;
+            }
+            writeCopy(out, ip - candidate, matched);
+            ip += matched;
+            nextEmit = ip;
+        }
+
+        if (nextEmit < end) {
+            writeLiteral(in, out, nextEmit, end - nextEmit);
+        }
+    }
+
+    /**
+     * Returns the hash table size for a fragment of the given length, so that small documents do not pay
+     * for a table larger than themselves.
+     */
+    private static int hashTableSize(final int length) {
+        int size = MIN_HASH_TABLE_SIZE;
+        while (size < MAX_HASH_TABLE_SIZE && size < length) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static void writeLiteral(final ByteBuf in, final ByteBuf out, final int index, final int length) {
+        int n = length - 1;
+        if (n < 60) {
+            out.writeByte(TAG_LITERAL | (n << 2));
+        } else if (n < (1 << 8)) {
+            out.writeByte(TAG_LITERAL | (60 << 2));
+            out.writeByte(n);
+        } else if (n < (1 << 16)) {
+            out.writeByte(TAG_LITERAL | (61 << 2));
+            out.writeByte(n);
+            out.writeByte(n >>> 8);
+        } else if (n < (1 << 24)) {
+            out.writeByte(TAG_LITERAL | (62 << 2));
+            out.writeByte(n);
+            out.writeByte(n >>> 8);
+            out.writeByte(n >>> 16);
+        } else {
+            out.writeByte(TAG_LITERAL | (63 << 2));
+            out.writeByte(n);
+            out.writeByte(n >>> 8);
+            out.writeByte(n >>> 16);
+            out.writeByte(n >>> 24);
+        }
+        out.writeBytes(in, index, length);
+    }
+
+    private static void writeCopy(final ByteBuf out, final int offset, int length) {
+        while (length >= 68) {
+            writeCopy2(out, offset, 64);
+            length -= 64;
+        }
+        if (length > 64) {
+            writeCopy2(out, offset, 60);
+            length -= 60;
+        }
+        if (length < 12 && offset < 2048) {
+            out.writeByte(TAG_COPY_1 | ((length - 4) << 2) | ((offset >>> 8) << 5));
+            out.writeByte(offset & 0xff);
+        } else {
+            writeCopy2(out, offset, length);
+        }
+    }
+
+    private static void writeCopy2(final ByteBuf out, final int offset, final int length) {
+        out.writeByte(TAG_COPY_2 | ((length - 1) << 2));
+        out.writeByte(offset & 0xff);
+        out.writeByte((offset >>> 8) & 0xff);
+    }
+
+    private static void copy(final ByteBuf out, final int outStart, final int offset, final int length) {
+        int position = out.writerIndex();
+        if (offset <= 0 || offset > position - outStart) {
+            throw new IllegalStateException("Snappy copy offset " + offset + " out of range");
+        }
+        int from = position - offset;
+        if (offset >= length) {
+            out.writeBytes(out, from, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                out.writeByte(out.getByte(from + i));
+            }
+        }
+    }
+
+    private static int readLittleEndian(final ByteBuf in, final int bytes) {
+        if (in.readableBytes() < bytes) {
+            throw new IllegalStateException("Snappy block truncated");
+        }
+        int value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value |= in.readUnsignedByte() << (8 * i);
+        }
+        return value;
+    }
+
+    private static void writeVarInt(final ByteBuf out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(final ByteBuf in) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!in.isReadable()) {
+                throw new IllegalStateException("Snappy block truncated while reading length");
+            }
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    throw new IllegalStateException("Snappy decoded length is negative");
+                }
+                return result;
+            }
+        }
+        throw new IllegalStateException("Snappy length varint is too long");
+    }
+}
@@ -51,10 +51,6 @@ public class ByteBufJsonParser {
 
     private final JsonPointerTree tree;
     private final Deque<JsonLevel> levelStack;
-    private final JsonWhiteSpaceByteBufProcessor wsProcessor;
-    private final JsonStringByteBufProcessor stProcessor;
-    private final JsonArrayByteBufProcessor arProcessor;
-    private final JsonObjectByteBufProcessor obProcessor;
     private final JsonNullByteBufProcessor nullProcessor;
     private final JsonBOMByteBufProcessor bomProcessor;
     private final JsonNumberByteBufProcessor numProcessor;
@@ -71,10 +67,6 @@ public class ByteBufJsonParser {
      * @param jsonPointers the pointers which should be set.
      */
     public ByteBufJsonParser(final JsonPointer[] jsonPointers) {
-        wsProcessor = new JsonWhiteSpaceByteBufProcessor();
-        stProcessor = new JsonStringByteBufProcessor();
-        arProcessor = new JsonArrayByteBufProcessor(stProcessor);
-        obProcessor = new JsonObjectByteBufProcessor(stProcessor);
         nullProcessor = new JsonNullByteBufProcessor();
         bomProcessor = new JsonBOMByteBufProcessor();
         numProcessor = new JsonNumberByteBufProcessor();
@@ -99,6 +91,21 @@ public class ByteBufJsonParser {
         startedStreaming = false;
     }
 
+    /**
+     * Discards the bytes of the content which have been parsed already.
+     *
+     * The byte right before the reader index is kept, since a value which is not complete yet is parsed
+     * again starting from its first character once more data is available.
+     */
+    public void discardParsedBytes() {
+        int readerIndex = content.readerIndex();
+        if (readerIndex > 1) {
+            content.readerIndex(readerIndex - 1);
+            content.discardSomeReadBytes();
+            content.skipBytes(1);
+        }
+    }
+
     /**
      * Instructs the parser to start parsing the current buffer.
      *
@@ -331,20 +338,21 @@ public class ByteBufJsonParser {
      */
     private void readValue(final JsonLevel level) throws EOFException {
         int readerIndex = content.readerIndex();
+        int writerIndex = content.writerIndex();
         ByteBufProcessor processor = null;
         Mode mode = level.peekMode();
+        int lastValidIndex = -1;
+        //strings, objects and arrays make up most of a response and are scanned a word at a time
         switch (mode) {
             case JSON_ARRAY_VALUE:
-                arProcessor.reset();
-                processor = arProcessor;
+                lastValidIndex = JsonByteBufScanner.arrayEnd(content, readerIndex, writerIndex);
                 break;
             case JSON_OBJECT_VALUE:
-                obProcessor.reset();
-                processor = obProcessor;
+                lastValidIndex = JsonByteBufScanner.objectEnd(content, readerIndex, writerIndex);
                 break;
             case JSON_STRING_VALUE:
             case JSON_STRING_HASH_KEY:
-                processor = stProcessor;
+                lastValidIndex = JsonByteBufScanner.stringEnd(content, readerIndex, writerIndex);
                 break;
             case JSON_NULL_VALUE:
                 nullProcessor.reset();
@@ -363,7 +371,9 @@ public class ByteBufJsonParser {
         int length;
         boolean shouldSaveValue = tree.isTerminalPath(level.jsonPointer()) || mode == Mode.JSON_STRING_HASH_KEY;
 
-        int lastValidIndex = content.forEachByte(processor);
+        if (processor != null) {
+            lastValidIndex = content.forEachByte(processor);
+        }
         if (lastValidIndex == -1) {
             if (mode == Mode.JSON_NUMBER_VALUE && content.readableBytes() > 2) {
                 length = 1;
@@ -441,7 +451,7 @@ public class ByteBufJsonParser {
      */
     private void readNextChar(final JsonLevel level) throws EOFException {
         int readerIndex = content.readerIndex();
-        int lastWsIndex = content.forEachByte(wsProcessor);
+        int lastWsIndex = JsonByteBufScanner.skipWhitespace(content, readerIndex, content.writerIndex());
 
         if (lastWsIndex == -1 && level != null) {
             throw NEED_MORE_DATA;
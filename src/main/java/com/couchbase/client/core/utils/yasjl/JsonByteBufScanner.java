@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils.yasjl;
+
+import io.netty.buffer.ByteBuf;
+
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.C_CURLY;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.C_SQUARE;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.JSON_ES;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.JSON_ST;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.O_CURLY;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.O_SQUARE;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.WS_CR;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.WS_LF;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.WS_SPACE;
+import static com.couchbase.client.core.utils.yasjl.JsonParserUtils.WS_TAB;
+
+/**
+ * Scans JSON strings, objects, arrays and whitespace in a {@link ByteBuf} eight bytes at a time.
+ *
+ * These methods find the same positions as the {@link JsonStringByteBufProcessor},
+ * {@link JsonObjectByteBufProcessor}, {@link JsonArrayByteBufProcessor} and
+ * {@link JsonWhiteSpaceByteBufProcessor}, but they do not look at every byte on its own. A long is read
+ * with {@link ByteBuf#getLong(int)} and checked with a few arithmetic operations for the bytes which can
+ * change the state of the scan (quotes, escapes and the brackets of the scanned value), and skipped in
+ * full if there are none. Only the words which contain one of these bytes are looked at byte by byte.
+ *
+ * All methods are stateless, a value which is not complete yet is scanned again from its start once more
+ * data is available.
+ *
+ * @since 1.5.3
+ */
+public final class JsonByteBufScanner {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private static final long QUOTES = broadcast(JSON_ST);
+    private static final long ESCAPES = broadcast(JSON_ES);
+    private static final long OPEN_CURLIES = broadcast(O_CURLY);
+    private static final long CLOSE_CURLIES = broadcast(C_CURLY);
+    private static final long OPEN_SQUARES = broadcast(O_SQUARE);
+    private static final long CLOSE_SQUARES = broadcast(C_SQUARE);
+    private static final long SPACES = broadcast(WS_SPACE);
+
+    private JsonByteBufScanner() {
+    }
+
+    /**
+     * Finds the closing quote of a string.
+     *
+     * @param buf the buffer to scan.
+     * @param from the index of the first byte after the opening quote.
+     * @param to the index after the last readable byte.
+     * @return the index of the closing quote, or -1 if it is not part of the buffer yet.
+     */
+    public static int stringEnd(final ByteBuf buf, final int from, final int to) {
+        int i = from;
+        while (to - i >= 8) {
+            long word = buf.getLong(i);
+            if (!hasByte(word, QUOTES) && !hasByte(word, ESCAPES)) {
+                i += 8;
+                continue;
+            }
+            int wordEnd = i + 8;
+            while (i < wordEnd) {
+                byte value = byteAt(word, wordEnd - i);
+                if (value == JSON_ST) {
+                    return i;
+                }
+                i += value == JSON_ES ? 2 : 1;
+            }
+        }
+        while (i < to) {
+            byte value = buf.getByte(i);
+            if (value == JSON_ST) {
+                return i;
+            }
+            i += value == JSON_ES ? 2 : 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the closing curly bracket of an object.
+     *
+     * @param buf the buffer to scan.
+     * @param from the index of the first byte after the opening bracket.
+     * @param to the index after the last readable byte.
+     * @return the index of the closing bracket, or -1 if it is not part of the buffer yet.
+     */
+    public static int objectEnd(final ByteBuf buf, final int from, final int to) {
+        return containerEnd(buf, from, to, O_CURLY, OPEN_CURLIES, C_CURLY, CLOSE_CURLIES);
+    }
+
+    /**
+     * Finds the closing square bracket of an array.
+     *
+     * @param buf the buffer to scan.
+     * @param from the index of the first byte after the opening bracket.
+     * @param to the index after the last readable byte.
+     * @return the index of the closing bracket, or -1 if it is not part of the buffer yet.
+     */
+    public static int arrayEnd(final ByteBuf buf, final int from, final int to) {
+        return containerEnd(buf, from, to, O_SQUARE, OPEN_SQUARES, C_SQUARE, CLOSE_SQUARES);
+    }
+
+    /**
+     * Finds the first byte which is not whitespace.
+     *
+     * @param buf the buffer to scan.
+     * @param from the index to start at.
+     * @param to the index after the last readable byte.
+     * @return the index of the first byte which is not whitespace, or -1 if there is none.
+     */
+    public static int skipWhitespace(final ByteBuf buf, final int from, final int to) {
+        int i = from;
+        while (i < to) {
+            byte value = buf.getByte(i);
+            if (value != WS_SPACE && value != WS_LF && value != WS_CR && value != WS_TAB) {
+                return i;
+            }
+            i++;
+            // indentation of pretty printed responses
+            while (to - i >= 8 && buf.getLong(i) == SPACES) {
+                i += 8;
+            }
+        }
+        return -1;
+    }
+
+    private static int containerEnd(final ByteBuf buf, final int from, final int to, final byte open,
+        final long opens, final byte close, final long closes) {
+        int depth = 1;
+        int i = from;
+        while (to - i >= 8) {
+            long word = buf.getLong(i);
+            if (!hasByte(word, QUOTES) && !hasByte(word, opens) && !hasByte(word, closes)) {
+                i += 8;
+                continue;
+            }
+            int wordEnd = i + 8;
+            while (i < wordEnd) {
+                byte value = byteAt(word, wordEnd - i);
+                if (value == JSON_ST) {
+                    i = stringEnd(buf, i + 1, to);
+                    if (i == -1) {
+                        return -1;
+                    }
+                } else if (value == open) {
+                    depth++;
+                } else if (value == close && --depth == 0) {
+                    return i;
+                }
+                i++;
+            }
+        }
+        while (i < to) {
+            byte value = buf.getByte(i);
+            if (value == JSON_ST) {
+                i = stringEnd(buf, i + 1, to);
+                if (i == -1) {
+                    return -1;
+                }
+            } else if (value == open) {
+                depth++;
+            } else if (value == close && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a byte of a word read with {@link ByteBuf#getLong(int)}, which is big endian.
+     *
+     * @param word the word.
+     * @param remaining the number of bytes from the byte to the end of the word, 8 for the first byte.
+     */
+    private static byte byteAt(final long word, final int remaining) {
+        return (byte) (word >>> ((remaining - 1) << 3));
+    }
+
+    /**
+     * Returns a long with the given byte in each of its eight bytes.
+     */
+    private static long broadcast(final byte value) {
+        return ONES * (value & 0xFF);
+    }
+
+    /**
+     * True if one of the bytes of the word equals the byte broadcast into the pattern.
+     *
+     * The xor turns a matching byte into zero, and subtracting one from each byte sets the high bit of a
+     * zero byte. Bytes which had their high bit set before are masked out, so the result is only non zero
+     * if there is at least one zero byte.
+     */
+    private static boolean hasByte(final long word, final long pattern) {
+        long x = word ^ pattern;
+        return ((x - ONES) & ~x & HIGHS) != 0;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core;
+
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.env.DefaultCoreEnvironment;
+import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.UpsertRequest;
+import com.couchbase.client.core.message.query.GenericQueryRequest;
+import com.lmax.disruptor.RingBuffer;
+import io.netty.buffer.Unpooled;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies functionality of the {@link CouchbaseCore}.
+ *
+ * @since 1.5.3
+ */
+public class CouchbaseCoreTest {
+
+    private static CoreEnvironment environment;
+    private static CouchbaseCore core;
+
+    @BeforeClass
+    public static void setup() {
+        environment = DefaultCoreEnvironment.builder().requestBufferShards(4).build();
+        core = new CouchbaseCore(environment);
+    }
+
+    @AfterClass
+    public static void cleanup() {
+        environment.shutdown();
+    }
+
+    @Test
+    public void shouldRouteSameKeyToSameShard() {
+        for (int i = 0; i < 100; i++) {
+            String key = "key" + i;
+            RingBuffer<RequestEvent> get = core.requestRingBuffer(new GetRequest(key, "bucket"));
+            RingBuffer<RequestEvent> upsert = core.requestRingBuffer(
+                new UpsertRequest(key, Unpooled.EMPTY_BUFFER, "bucket"));
+            assertSame(get, upsert);
+        }
+    }
+
+    @Test
+    public void shouldSpreadKeysAcrossShards() {
+        Set<RingBuffer<RequestEvent>> used = new HashSet<RingBuffer<RequestEvent>>();
+        for (int i = 0; i < 100; i++) {
+            used.add(core.requestRingBuffer(new GetRequest("key" + i, "bucket")));
+        }
+        assertEquals(4, used.size());
+    }
+
+    @Test
+    public void shouldRouteNonKeyValueRequestsByThread() {
+        RingBuffer<RequestEvent> first = core.requestRingBuffer(GenericQueryRequest.simpleStatement("select 1",
+            "bucket", "password"));
+        RingBuffer<RequestEvent> second = core.requestRingBuffer(GenericQueryRequest.simpleStatement("select 2",
+            "bucket", "password"));
+        assertNotNull(first);
+        assertSame(first, second);
+    }
+}
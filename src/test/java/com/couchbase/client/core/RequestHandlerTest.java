@@ -18,6 +18,9 @@ package com.couchbase.client.core;
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.DefaultClusterConfig;
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.BootstrapAdapter;
+import com.couchbase.client.core.endpoint.Endpoint;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
@@ -30,8 +33,13 @@ import com.couchbase.client.core.retry.RetryHelper;
 import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.state.LifecycleState;
 import com.lmax.disruptor.RingBuffer;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import rx.Observable;
 import rx.subjects.AsyncSubject;
 import rx.subjects.PublishSubject;
@@ -46,7 +54,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -154,10 +164,72 @@ public class RequestHandlerTest {
         when(mockEvent.getRequest()).thenReturn(mockRequest);
         handler.onEvent(mockEvent, 0, true);
         verify(mockNode).send(mockRequest);
-        verify(mockNode).send(SignalFlush.INSTANCE);
+        verify(mockNode, never()).send(SignalFlush.INSTANCE);
         verify(mockEvent).setRequest(null);
     }
 
+    @Test
+    public void shouldTrackDirtyEndpointsOnEveryShard() throws Exception {
+        ClusterConfig mockClusterConfig = mock(ClusterConfig.class);
+        when(mockClusterConfig.hasBucket(anyString())).thenReturn(Boolean.TRUE);
+        Observable<ClusterConfig> mockConfigObservable = Observable.just(mockClusterConfig);
+
+        final RequestHandler handler = new DummyLocatorClusterNodeHandler(environment, mockConfigObservable);
+        final ThreadLocal<Endpoint> shardEndpoint = new ThreadLocal<Endpoint>();
+        Node mockNode = mock(Node.class);
+        when(mockNode.connect()).thenReturn(Observable.just(LifecycleState.CONNECTED));
+        when(mockNode.state()).thenReturn(LifecycleState.CONNECTED);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                shardEndpoint.get().send((CouchbaseRequest) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(mockNode).send(any(CouchbaseRequest.class));
+        handler.addNode(mockNode).toBlocking().single();
+
+        final int[][] outbound = new int[2][2];
+        for (int i = 0; i < outbound.length; i++) {
+            final int shard = i;
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+                    BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+                    when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+                    Endpoint endpoint = new ShardEndpoint(bootstrap, environment);
+                    endpoint.connect().toBlocking().single();
+                    shardEndpoint.set(endpoint);
+
+                    try {
+                        handler.onEvent(requestEvent(), 0, false);
+                        outbound[shard][0] = channel.outboundMessages().size();
+                        handler.onEvent(requestEvent(), 1, true);
+                        outbound[shard][1] = channel.outboundMessages().size();
+                    } catch (Exception ex) {
+                        outbound[shard][0] = -1;
+                    }
+                }
+            }, "shard-" + i);
+            consumer.start();
+            consumer.join();
+        }
+
+        // each shard defers its writes until the end of its own batch
+        for (int[] shard : outbound) {
+            assertEquals(0, shard[0]);
+            assertEquals(2, shard[1]);
+        }
+    }
+
+    private static RequestEvent requestEvent() {
+        RequestEvent event = new RequestEvent();
+        CouchbaseRequest request = mock(CouchbaseRequest.class);
+        when(request.isActive()).thenReturn(true);
+        event.setRequest(request);
+        return event;
+    }
+
     private void assertFeatureForRequest(RequestHandler handler, CouchbaseRequest request, boolean expectedOk) {
         BucketConfig mockConfig = mock(BucketConfig.class);
         when(mockConfig.serviceEnabled(ServiceType.BINARY)).thenReturn(true);
@@ -197,7 +269,7 @@ public class RequestHandlerTest {
         when(mockRequest.observable()).thenReturn(response);
         handler.onEvent(mockEvent, 0, true);
 
-        verify(mockNode, times(1)).send(SignalFlush.INSTANCE);
+        verify(mockNode, never()).send(SignalFlush.INSTANCE);
         verify(mockNode, never()).send(mockRequest);
         verify(mockEvent).setRequest(null);
 
@@ -247,6 +319,19 @@ public class RequestHandlerTest {
         //OK - the effect of the race condition should have been avoided there by dong a snapshot
     }
 
+    /**
+     * Endpoint without any handlers, writing into the channel of its bootstrap.
+     */
+    static class ShardEndpoint extends AbstractEndpoint {
+        ShardEndpoint(BootstrapAdapter adapter, CoreEnvironment environment) {
+            super("default", "default", null, adapter, false, environment, true);
+        }
+
+        @Override
+        protected void customEndpointHandlers(ChannelPipeline pipeline) {
+        }
+    }
+
     /**
      * Helper class which implements a dummy locator for testing purposes.
      */
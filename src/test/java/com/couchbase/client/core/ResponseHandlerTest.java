@@ -24,6 +24,7 @@ import com.couchbase.client.core.endpoint.kv.KeyValueStatus;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.kv.GetRequest;
 import com.couchbase.client.core.message.kv.GetResponse;
@@ -35,8 +36,13 @@ import io.netty.util.CharsetUtil;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+import rx.schedulers.TestScheduler;
 import rx.subjects.Subject;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -217,4 +223,35 @@ public class ResponseHandlerTest {
         assertTrue(TimeUnit.NANOSECONDS.toMillis(end - start) >= 100);
     }
 
+    @Test
+    public void shouldCompleteResponsesInBatchAtEndOfBatch() throws Exception {
+        TestScheduler scheduler = Schedulers.test();
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.scheduler()).thenReturn(scheduler);
+        when(environment.responseBatchingEnabled()).thenReturn(true);
+        ResponseHandler handler = new ResponseHandler(environment, mock(ClusterFacade.class),
+            mock(ConfigurationProvider.class));
+
+        List<TestSubscriber<CouchbaseResponse>> subscribers = new ArrayList<TestSubscriber<CouchbaseResponse>>();
+        ResponseEvent event = new ResponseEvent();
+        for (int i = 0; i < 3; i++) {
+            GetRequest request = new GetRequest("key" + i, "bucket");
+            TestSubscriber<CouchbaseResponse> subscriber = TestSubscriber.create();
+            request.observable().subscribe(subscriber);
+            subscribers.add(subscriber);
+            event.setMessage(new GetResponse(ResponseStatus.SUCCESS, (short) 0, 0L, 0, "bucket",
+                Unpooled.EMPTY_BUFFER, request));
+            event.setObservable(request.observable());
+            handler.onEvent(event, i, i == 2);
+        }
+
+        for (TestSubscriber<CouchbaseResponse> subscriber : subscribers) {
+            subscriber.assertNoValues();
+        }
+        scheduler.triggerActions();
+        for (TestSubscriber<CouchbaseResponse> subscriber : subscribers) {
+            subscriber.assertValueCount(1);
+            subscriber.assertCompleted();
+        }
+    }
 }
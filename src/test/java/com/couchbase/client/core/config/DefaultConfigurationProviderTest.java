@@ -16,31 +16,38 @@
 package com.couchbase.client.core.config;
 
 import com.couchbase.client.core.ClusterFacade;
+import com.couchbase.client.core.CouchbaseException;
 import com.couchbase.client.core.config.loader.Loader;
 import com.couchbase.client.core.config.refresher.Refresher;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.lang.Tuple;
 import com.couchbase.client.core.lang.Tuple2;
+import com.couchbase.client.core.util.Resources;
 import com.couchbase.client.core.utils.NetworkAddress;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.internal.util.collections.Sets;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import rx.Observable;
 import rx.functions.Action1;
 import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 import rx.subjects.AsyncSubject;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -57,6 +64,9 @@ public class DefaultConfigurationProviderTest {
 
     private static final CoreEnvironment environment = DefaultCoreEnvironment.create();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     @SuppressWarnings("unchecked")
     public void shouldOpenBucket() throws Exception {
@@ -87,6 +97,39 @@ public class DefaultConfigurationProviderTest {
         assertFalse(config.hasBucket("other"));
     }
 
+    @Test(expected = CouchbaseException.class)
+    @SuppressWarnings("unchecked")
+    public void shouldOnlyParseProposedConfigWithNewerRev() throws Exception {
+        ClusterFacade cluster = mock(ClusterFacade.class);
+        Loader loader = mock(Loader.class);
+        BucketConfig bucketConfig = mock(BucketConfig.class);
+        when(bucketConfig.name()).thenReturn("bucket");
+        when(bucketConfig.rev()).thenReturn(10L);
+        when(loader.loadConfig(any(NetworkAddress.class), anyString(), anyString(), anyString()))
+            .thenReturn(Observable.just(Tuple.create(LoaderType.Carrier, bucketConfig)));
+
+        final Refresher refresher = mock(Refresher.class);
+        when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+        when(refresher.registerBucket(anyString(), anyString(), anyString())).thenReturn(Observable.just(true));
+
+        ConfigurationProvider provider = new DefaultConfigurationProvider(
+            cluster,
+            environment,
+            Arrays.asList(loader),
+            new HashMap<LoaderType, Refresher>() {{
+                put(LoaderType.Carrier, refresher);
+            }}
+        );
+
+        provider.seedHosts(Sets.newSet(NetworkAddress.localhost()), true);
+        provider.openBucket("bucket", "password").toBlocking().first();
+
+        // not valid json, so parsing would fail
+        provider.proposeBucketConfig("bucket", "{\"rev\":9,");
+        provider.proposeBucketConfig("bucket", "{\"rev\":10,");
+        provider.proposeBucketConfig("bucket", "{\"rev\":11,");
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void shouldDelegateLoadingToSecondProviderIfFirstFails() throws Exception {
@@ -413,4 +456,58 @@ public class DefaultConfigurationProviderTest {
     public void shouldAcceptProposedConfig() {
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldApplyPersistedConfigUntilLiveConfigIsLoaded() throws Exception {
+        CoreEnvironment env = mock(CoreEnvironment.class);
+        when(env.configCacheDirectory()).thenReturn(folder.getRoot().getAbsolutePath());
+        when(env.scheduler()).thenReturn(Schedulers.immediate());
+
+        Set<NetworkAddress> seeds = Sets.newSet(NetworkAddress.localhost());
+        String raw = Resources.read("cluster_run_two_nodes_same_host.json", getClass());
+        new PersistentConfigCache(folder.getRoot(), Schedulers.immediate()).store("travel-sample", seeds, 1067, raw);
+
+        ClusterFacade cluster = mock(ClusterFacade.class);
+        Loader loader = mock(Loader.class);
+        BucketConfig liveConfig = mock(BucketConfig.class);
+        when(liveConfig.name()).thenReturn("travel-sample");
+        when(liveConfig.rev()).thenReturn(1L);
+        AsyncSubject<Tuple2<LoaderType, BucketConfig>> liveSubject = AsyncSubject.create();
+        when(loader.loadConfig(any(NetworkAddress.class), anyString(), anyString(), anyString()))
+            .thenReturn(liveSubject);
+
+        final Refresher refresher = mock(Refresher.class);
+        when(refresher.configs()).thenReturn(Observable.<BucketConfig>empty());
+        when(refresher.registerBucket(anyString(), anyString(), anyString())).thenReturn(Observable.just(true));
+
+        ConfigurationProvider provider = new DefaultConfigurationProvider(
+            cluster,
+            env,
+            Arrays.asList(loader),
+            new HashMap<LoaderType, Refresher>() {{
+                put(LoaderType.Carrier, refresher);
+            }}
+        );
+        provider.seedHosts(seeds, false);
+
+        final AtomicReference<ClusterConfig> opened = new AtomicReference<ClusterConfig>();
+        provider.openBucket("travel-sample", "password").subscribe(new Action1<ClusterConfig>() {
+            @Override
+            public void call(ClusterConfig config) {
+                opened.set(config);
+            }
+        });
+
+        BucketConfig cachedConfig = provider.config().bucketConfig("travel-sample");
+        assertEquals(1067, cachedConfig.rev());
+        assertEquals(2, cachedConfig.nodes().size());
+        assertEquals("password", cachedConfig.password());
+        assertEquals(null, opened.get());
+
+        liveSubject.onNext(Tuple.create(LoaderType.Carrier, liveConfig));
+        liveSubject.onCompleted();
+        assertSame(liveConfig, provider.config().bucketConfig("travel-sample"));
+        assertTrue(opened.get().hasBucket("travel-sample"));
+    }
+}
@@ -21,9 +21,13 @@ import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.util.Resources;
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.couchbase.client.core.utils.NetworkAddress;
+import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.security.MessageDigest;
 import java.util.Map;
+import java.util.SortedMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -53,4 +57,32 @@ public class DefaultMemcachedBucketConfigTest {
         }
     }
 
+    /**
+     * The ring lookup needs to pick the same node as walking the ketama continuum, that is the first
+     * node at or after the hash of the key, wrapping around at the end.
+     */
+    @Test
+    public void shouldLocateSameNodesAsContinuum() throws Exception {
+        String raw = Resources.read("memcached_mixed_sherlock.json", getClass());
+        InjectableValues inject = new InjectableValues.Std()
+            .addValue("env", environment);
+        MemcachedBucketConfig config = JSON_MAPPER.readerFor(MemcachedBucketConfig.class).with(inject).readValue(raw);
+        SortedMap<Long, NodeInfo> continuum = config.ketamaNodes();
+
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        for (int i = 0; i < 10000; i++) {
+            byte[] key = ("key-" + i).getBytes(CharsetUtil.UTF_8);
+            byte[] digest = md5.digest(key);
+            long hash = (((long) (digest[3] & 0xFF) << 24)
+                | ((long) (digest[2] & 0xFF) << 16)
+                | ((long) (digest[1] & 0xFF) << 8)
+                | (digest[0] & 0xFF)) & 0xffffffffL;
+            SortedMap<Long, NodeInfo> tail = continuum.tailMap(hash);
+            NetworkAddress expected = tail.isEmpty()
+                ? continuum.get(continuum.firstKey()).hostname()
+                : tail.get(tail.firstKey()).hostname();
+            assertEquals(expected, config.nodeForId(key));
+        }
+    }
+
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.config;
+
+import com.couchbase.client.core.utils.NetworkAddress;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.internal.util.collections.Sets;
+import rx.schedulers.Schedulers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link PersistentConfigCache}.
+ *
+ * @since 1.5.3
+ */
+public class PersistentConfigCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldLoadStoredConfig() throws Exception {
+        File directory = new File(folder.getRoot(), "configs");
+        PersistentConfigCache cache = new PersistentConfigCache(directory, Schedulers.immediate());
+        Set<NetworkAddress> seeds = Sets.newSet(NetworkAddress.create("127.0.0.1"));
+
+        assertNull(cache.load("bucket", seeds));
+        cache.store("bucket", seeds, 5, "{\"rev\":5}");
+        assertEquals("{\"rev\":5}", cache.load("bucket", seeds));
+        assertNull(cache.load("bucket", Sets.newSet(NetworkAddress.create("127.0.0.2"))));
+        assertNull(cache.load("other", seeds));
+        assertEquals(1, directory.list().length);
+    }
+
+    @Test
+    public void shouldNotOverwriteNewerConfig() throws Exception {
+        PersistentConfigCache cache = new PersistentConfigCache(folder.getRoot(), Schedulers.immediate());
+        Set<NetworkAddress> seeds = Sets.newSet(NetworkAddress.create("127.0.0.1"));
+        String name = PersistentConfigCache.fileName("bucket", seeds);
+
+        assertTrue(cache.write(name, 5, "{\"rev\":5}"));
+        assertTrue(cache.write(name, 6, "{\"rev\":6}"));
+        assertFalse(cache.write(name, 4, "{\"rev\":4}"));
+        assertEquals("{\"rev\":6}", cache.load("bucket", seeds));
+    }
+
+    @Test
+    public void shouldOnlyExposeCompleteConfigsWithConcurrentWriters() throws Exception {
+        final Set<NetworkAddress> seeds = Sets.newSet(NetworkAddress.create("127.0.0.1"));
+        final String name = PersistentConfigCache.fileName("bucket", seeds);
+        final PersistentConfigCache reader = new PersistentConfigCache(folder.getRoot(), Schedulers.immediate());
+        final List<String> configs = Arrays.asList(config('a'), config('b'));
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> writers = new ArrayList<Thread>();
+        for (final String config : configs) {
+            // separate instances, like two processes sharing the directory
+            final PersistentConfigCache cache = new PersistentConfigCache(folder.getRoot(), Schedulers.immediate());
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int rev = 1; rev <= 200; rev++) {
+                        cache.write(name, rev, config);
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        start.countDown();
+        boolean writing = true;
+        while (writing) {
+            String loaded = reader.load("bucket", seeds);
+            assertTrue(loaded == null || configs.contains(loaded));
+            writing = false;
+            for (Thread writer : writers) {
+                writing |= writer.isAlive();
+            }
+        }
+
+        assertTrue(configs.contains(reader.load("bucket", seeds)));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    private static String config(final char fill) {
+        char[] padding = new char[64 * 1024];
+        Arrays.fill(padding, fill);
+        return "{\"name\":\"" + new String(padding) + "\"}";
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.config.parser;
+
+import com.couchbase.client.core.config.AbstractBucketConfig;
+import com.couchbase.client.core.config.DefaultClusterConfig;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.util.Resources;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link BucketConfigParser}.
+ *
+ * @since 1.5.3
+ */
+public class BucketConfigParserTest {
+
+    @Test
+    public void shouldParseRevWithoutParsingTheConfig() {
+        assertEquals(1234, BucketConfigParser.parseRev("{\"rev\":1234,\"name\":\"default\"}"));
+        assertEquals(1234, BucketConfigParser.parseRev("{\"name\":\"default\",\"rev\" : 1234}"));
+        assertEquals(7, BucketConfigParser.parseRev("{\"revEpoch\":1,\n  \"rev\":\t7\n}"));
+    }
+
+    @Test
+    public void shouldOnlyParseTopLevelRev() {
+        assertEquals(12, BucketConfigParser.parseRev(
+            "{\"nodes\":[{\"rev\":3}],\"ext\":{\"rev\":4},\"name\":\"a\\\"rev\\\"\",\"rev\":12}"));
+        assertEquals(-1, BucketConfigParser.parseRev("{\"nodes\":[{\"rev\":3}],\"name\":\"default\"}"));
+        assertEquals(5, BucketConfigParser.parseRev("{\"name\":\"rev\",\"rev\":5}"));
+    }
+
+    @Test
+    public void shouldOnlyKeepRawConfigIfConfigsArePersisted() {
+        String raw = Resources.read("cluster_run_two_nodes_same_host.json", DefaultClusterConfig.class);
+        CoreEnvironment env = mock(CoreEnvironment.class);
+
+        assertNull(((AbstractBucketConfig) BucketConfigParser.parse(raw, env)).raw());
+
+        when(env.configCacheDirectory()).thenReturn("/tmp/configs");
+        assertEquals(raw, ((AbstractBucketConfig) BucketConfigParser.parse(raw, env)).raw());
+    }
+
+    @Test
+    public void shouldReturnNegativeRevIfNotFound() {
+        assertEquals(-1, BucketConfigParser.parseRev("{\"name\":\"default\"}"));
+        assertEquals(-1, BucketConfigParser.parseRev("{\"rev\":\"1234\"}"));
+        assertEquals(-1, BucketConfigParser.parseRev("{\"rev\":"));
+        assertEquals(-1, BucketConfigParser.parseRev("Not my Vbucket"));
+    }
+}
@@ -55,6 +55,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -111,6 +112,44 @@ public class CarrierRefresherTest {
         assertEquals(0, bufRef.get().refCnt());
     }
 
+    @Test
+    public void shouldOnlyPollTaintedBucketWithoutClustermapNotifications() throws Exception {
+        ClusterFacade cluster = mock(ClusterFacade.class);
+        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        BucketConfig config = mock(BucketConfig.class);
+
+        CarrierRefresher refresher = new CarrierRefresher(ENVIRONMENT, cluster);
+        refresher.provider(provider);
+
+        when(config.name()).thenReturn("bucket");
+        List<NodeInfo> nodeInfos = new ArrayList<NodeInfo>();
+        Map<String, Integer> ports = new HashMap<String, Integer>();
+        ports.put("direct", 11210);
+        nodeInfos.add(new DefaultNodeInfo(null, "localhost:8091", ports));
+        when(config.nodes()).thenReturn(nodeInfos);
+
+        when(cluster.send(any(GetBucketConfigRequest.class)))
+            .thenAnswer(new Answer<Observable<GetBucketConfigResponse>>() {
+                @Override
+                public Observable<GetBucketConfigResponse> answer(InvocationOnMock invocation) throws Throwable {
+                    return Observable.just(new GetBucketConfigResponse(
+                        ResponseStatus.SUCCESS, KeyValueStatus.SUCCESS.code(),
+                        "bucket",
+                        Unpooled.copiedBuffer("{\"config\": true}", CharsetUtil.UTF_8),
+                        NetworkAddress.localhost()));
+                }
+            });
+
+        refresher.clustermapNotifications("bucket", true);
+        refresher.markTainted(config);
+        Thread.sleep(1500);
+        verify(cluster, never()).send(any(GetBucketConfigRequest.class));
+
+        refresher.clustermapNotifications("bucket", false);
+        verify(provider, timeout(2000).atLeastOnce()).proposeBucketConfig("bucket", "{\"config\": true}");
+        refresher.markUntainted(config);
+    }
+
     @Test
     public void shouldNotProposeInvalidConfigFromTaintedPoller() throws Exception {
         ClusterFacade cluster = mock(ClusterFacade.class);
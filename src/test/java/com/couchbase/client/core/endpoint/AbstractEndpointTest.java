@@ -15,6 +15,7 @@
  */
 package com.couchbase.client.core.endpoint;
 
+import com.couchbase.client.core.endpoint.flush.CoalescingFlushPolicy;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
@@ -37,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -234,6 +236,95 @@ public class AbstractEndpointTest {
         assertTrue(endpoint.isFree());
     }
 
+    @Test
+    public void shouldFlushWritesOfUntrackedThreadRightAway() throws Exception {
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+        final Endpoint endpoint = new DummyEndpoint(bootstrap, environment);
+        assertEquals(LifecycleState.CONNECTED, endpoint.connect().toBlocking().single());
+
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                endpoint.send(mock(CouchbaseRequest.class));
+            }
+        });
+        sender.start();
+        sender.join();
+
+        assertEquals(1, channel.outboundMessages().size());
+    }
+
+    @Test
+    public void shouldFlushDirtyEndpointOnceAtEndOfBatch() throws Exception {
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+        final Endpoint endpoint = new DummyEndpoint(bootstrap, environment);
+        assertEquals(LifecycleState.CONNECTED, endpoint.connect().toBlocking().single());
+
+        final int[] outbound = new int[3];
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                DirtyEndpoints dirty = DirtyEndpoints.forCurrentThread();
+                endpoint.send(mock(CouchbaseRequest.class));
+                endpoint.send(mock(CouchbaseRequest.class));
+                outbound[0] = channel.outboundMessages().size();
+                outbound[1] = dirty.flush();
+                outbound[2] = channel.outboundMessages().size();
+            }
+        });
+        sender.start();
+        sender.join();
+
+        assertEquals(0, outbound[0]);
+        assertEquals(1, outbound[1]);
+        assertEquals(2, outbound[2]);
+    }
+
+    @Test
+    public void shouldCoalesceFlushesWithCoalescingPolicy() throws Exception {
+        final CoreEnvironment env = DefaultCoreEnvironment.builder()
+            .flushPolicy(CoalescingFlushPolicy.create(3, 10, TimeUnit.MILLISECONDS))
+            .build();
+        try {
+            BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+            when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+            final Endpoint endpoint = new DummyEndpoint(bootstrap, env);
+            assertEquals(LifecycleState.CONNECTED, endpoint.connect().toBlocking().single());
+
+            final int[] outbound = new int[3];
+            Thread sender = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    DirtyEndpoints dirty = DirtyEndpoints.forCurrentThread();
+                    endpoint.send(mock(CouchbaseRequest.class));
+                    dirty.flush();
+                    outbound[0] = channel.outboundMessages().size();
+                    endpoint.send(mock(CouchbaseRequest.class));
+                    endpoint.send(mock(CouchbaseRequest.class));
+                    outbound[1] = channel.outboundMessages().size();
+                    endpoint.send(mock(CouchbaseRequest.class));
+                    dirty.flush();
+                    outbound[2] = channel.outboundMessages().size();
+                }
+            });
+            sender.start();
+            sender.join();
+
+            // deferred at the end of the first batch, flushed once three writes are pending
+            assertEquals(0, outbound[0]);
+            assertEquals(3, outbound[1]);
+            assertEquals(3, outbound[2]);
+
+            Thread.sleep(20);
+            channel.runScheduledPendingTasks();
+            assertEquals(4, channel.outboundMessages().size());
+        } finally {
+            env.shutdown();
+        }
+    }
+
     static class DummyEndpoint extends AbstractEndpoint {
         DummyEndpoint(BootstrapAdapter adapter, CoreEnvironment environment) {
             super("default", "default", null, adapter, false, environment, true);
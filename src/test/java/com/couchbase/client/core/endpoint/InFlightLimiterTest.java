@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link InFlightLimiter}.
+ *
+ * @since 1.5.3
+ */
+public class InFlightLimiterTest {
+
+    private static final long BASE_RTT = TimeUnit.MICROSECONDS.toNanos(200);
+
+    @Test
+    public void shouldKeepStaticLimitIfNotAdaptive() {
+        InFlightLimiter limiter = new InFlightLimiter(5120, false);
+        for (int i = 0; i < 200; i++) {
+            limiter.record(BASE_RTT * 10 * (i + 1), limiter.limit());
+        }
+        assertEquals(5120, limiter.limit());
+        assertTrue(limiter.canWrite(5119));
+        assertFalse(limiter.canWrite(5120));
+    }
+
+    @Test
+    public void shouldStartWithMaxLimit() {
+        InFlightLimiter limiter = new InFlightLimiter(5120, true);
+        assertEquals(5120, limiter.limit());
+        assertEquals(5120, limiter.maxLimit());
+    }
+
+    @Test
+    public void shouldKeepLimitWithMixedLatencies() {
+        InFlightLimiter limiter = new InFlightLimiter(5120, true);
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // mostly small documents with the odd large one which takes far longer.
+            long rtt = random.nextInt(10) == 0 ? BASE_RTT * 20 : BASE_RTT + random.nextInt((int) BASE_RTT);
+            limiter.record(rtt, random.nextInt(limiter.limit()));
+        }
+        assertTrue(limiter.limit() > 4000);
+    }
+
+    @Test
+    public void shouldShrinkWhenLatencyInflatesAndRecover() {
+        InFlightLimiter limiter = new InFlightLimiter(5120, true);
+        for (int i = 0; i < 1000; i++) {
+            limiter.record(BASE_RTT, limiter.limit());
+        }
+        assertEquals(5120, limiter.limit());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.record(BASE_RTT * 10, limiter.limit());
+        }
+        assertTrue(limiter.limit() < 5120);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.record(BASE_RTT * 10, limiter.limit());
+        }
+        assertEquals(InFlightLimiter.MIN_LIMIT, limiter.limit());
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.record(BASE_RTT, limiter.limit());
+        }
+        assertEquals(5120, limiter.limit());
+    }
+
+    @Test
+    public void shouldNotGrowWhenLimitIsNotUsed() {
+        InFlightLimiter limiter = new InFlightLimiter(5120, true);
+        limiter.record(BASE_RTT, 0);
+        for (int i = 0; i < 100; i++) {
+            limiter.record(BASE_RTT * 10, 10);
+        }
+        int shrunkLimit = limiter.limit();
+        assertTrue(shrunkLimit < 5120);
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.record(BASE_RTT, 10);
+        }
+        assertEquals(shrunkLimit, limiter.limit());
+    }
+
+    @Test
+    public void shouldIgnoreInvalidSamples() {
+        InFlightLimiter limiter = new InFlightLimiter(5120, true);
+        limiter.record(BASE_RTT, 0);
+        limiter.record(-1, 5000);
+        limiter.record(0, 5000);
+        assertEquals(5120, limiter.limit());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.kv.GetRequest;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link RequestDeadlineWheel}.
+ *
+ * @since 1.5.3
+ */
+public class RequestDeadlineWheelTest {
+
+    private EventLoopGroup group;
+    private EventExecutor executor;
+
+    @Before
+    public void setup() {
+        group = new NioEventLoopGroup(1);
+        executor = group.next();
+    }
+
+    @After
+    public void cleanup() {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldShareTheWheelOfAnEventLoop() throws Exception {
+        RequestDeadlineWheel first = wheel();
+        RequestDeadlineWheel second = wheel();
+        assertSame(first, second);
+    }
+
+    @Test
+    public void shouldExpireRequestsOnTheirDeadline() throws Exception {
+        final List<Long> expired = new CopyOnWriteArrayList<Long>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        final RequestDeadlineWheel.Listener listener = new RequestDeadlineWheel.Listener() {
+            @Override
+            public void expired(CouchbaseRequest request, long token) {
+                assertTrue(request.isExpired());
+                expired.add(token);
+                latch.countDown();
+            }
+        };
+
+        long start = System.nanoTime();
+        schedule(listener, start + TimeUnit.MILLISECONDS.toNanos(60), 2);
+        schedule(listener, start + TimeUnit.MILLISECONDS.toNanos(20), 1);
+        schedule(listener, start + TimeUnit.SECONDS.toNanos(30), 3);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(60));
+        assertEquals(2, expired.size());
+        assertEquals(1L, (long) expired.get(0));
+        assertEquals(2L, (long) expired.get(1));
+        assertEquals(1, size());
+    }
+
+    @Test
+    public void shouldNotExpireCancelledEntries() throws Exception {
+        final List<Long> expired = new CopyOnWriteArrayList<Long>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RequestDeadlineWheel.Listener listener = new RequestDeadlineWheel.Listener() {
+            @Override
+            public void expired(CouchbaseRequest request, long token) {
+                expired.add(token);
+                latch.countDown();
+            }
+        };
+
+        long start = System.nanoTime();
+        final RequestDeadlineWheel.Entry cancelled = schedule(listener, start + TimeUnit.MILLISECONDS.toNanos(20), 1);
+        schedule(listener, start + TimeUnit.MILLISECONDS.toNanos(60), 2);
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                cancelled.cancel();
+                cancelled.cancel();
+            }
+        }).get();
+        assertEquals(1, size());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, expired.size());
+        assertEquals(2L, (long) expired.get(0));
+        assertEquals(0, size());
+    }
+
+    @Test
+    public void shouldExpireDeadlinesBeyondOneRound() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        long deadline = System.nanoTime()
+            + RequestDeadlineWheel.TICK_NANOS * (RequestDeadlineWheel.WHEEL_SIZE + 10);
+        schedule(new RequestDeadlineWheel.Listener() {
+            @Override
+            public void expired(CouchbaseRequest request, long token) {
+                latch.countDown();
+            }
+        }, deadline, 0);
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - deadline >= 0);
+    }
+
+    private RequestDeadlineWheel wheel() throws Exception {
+        return executor.submit(new Callable<RequestDeadlineWheel>() {
+            @Override
+            public RequestDeadlineWheel call() throws Exception {
+                return RequestDeadlineWheel.forExecutor(executor);
+            }
+        }).get();
+    }
+
+    private RequestDeadlineWheel.Entry schedule(final RequestDeadlineWheel.Listener listener, final long deadline,
+        final long token) throws Exception {
+        return executor.submit(new Callable<RequestDeadlineWheel.Entry>() {
+            @Override
+            public RequestDeadlineWheel.Entry call() throws Exception {
+                GetRequest request = new GetRequest("key", "bucket");
+                request.deadline(deadline);
+                return RequestDeadlineWheel.forExecutor(executor).schedule(request, token, listener);
+            }
+        }).get();
+    }
+
+    private int size() throws Exception {
+        return executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return RequestDeadlineWheel.forExecutor(executor).size();
+            }
+        }).get();
+    }
+}
@@ -16,12 +16,16 @@
 package com.couchbase.client.core.endpoint;
 
 import com.couchbase.client.core.env.CoreEnvironment;
+import io.netty.buffer.ByteBufAllocator;
 import org.junit.Test;
 
 import javax.net.ssl.SSLEngine;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -58,4 +62,20 @@ public class SSLEngineFactoryTest {
         SSLEngine engine = factory.get();
         assertTrue(engine.getUseClientMode());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldLoadKeystoreOncePerEnvironment() {
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.sslKeystoreFile()).thenReturn(this.getClass().getResource("keystore.jks").getPath());
+        when(environment.sslKeystorePassword()).thenReturn("keystore");
+
+        SSLEngine first = new SSLEngineFactory(environment).get(ByteBufAllocator.DEFAULT, "192.168.56.101", 11207);
+        SSLEngine second = new SSLEngineFactory(environment).get(ByteBufAllocator.DEFAULT, "192.168.56.102", 11207);
+
+        verify(environment, times(1)).sslKeystoreFile();
+        assertTrue(first.getUseClientMode());
+        assertEquals("192.168.56.101", first.getPeerHost());
+        assertEquals("192.168.56.102", second.getPeerHost());
+        assertEquals(11207, second.getPeerPort());
+    }
+}
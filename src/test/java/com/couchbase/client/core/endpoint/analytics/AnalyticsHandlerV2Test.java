@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.analytics;
+
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.env.CoreEnvironment;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.analytics.AnalyticsRequest;
+import com.couchbase.client.core.message.analytics.GenericAnalyticsRequest;
+import com.couchbase.client.core.message.analytics.GenericAnalyticsResponse;
+import com.couchbase.client.core.message.analytics.RawAnalyticsRequest;
+import com.couchbase.client.core.message.analytics.RawAnalyticsResponse;
+import com.couchbase.client.core.retry.FailFastRetryStrategy;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.schedulers.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the correct functionality of the {@link AnalyticsHandlerV2}.
+ *
+ * @since 1.5.3
+ */
+public class AnalyticsHandlerV2Test {
+
+    private static final String HEADER = "{\"requestID\": \"1234\",\"signature\": {\"*\": \"*\"},\"results\": [";
+
+    private Queue<AnalyticsRequest> queue;
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setup() {
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(environment.maxRequestLifetime()).thenReturn(10000L);
+        when(environment.autoreleaseAfter()).thenReturn(2000L);
+        when(environment.retryStrategy()).thenReturn(FailFastRetryStrategy.INSTANCE);
+        when(environment.userAgent()).thenReturn("Couchbase Client Mock");
+        AbstractEndpoint endpoint = mock(AbstractEndpoint.class);
+        when(endpoint.environment()).thenReturn(environment);
+
+        queue = new ArrayDeque<AnalyticsRequest>();
+        channel = new EmbeddedChannel(new AnalyticsHandlerV2(endpoint, null, queue, false, false));
+    }
+
+    @After
+    public void clear() throws Exception {
+        channel.close().awaitUninterruptibly();
+    }
+
+    private static DefaultHttpContent chunk(String content) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(content, CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void shouldStreamRowsSplitAcrossChunks() throws Exception {
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, new HttpResponseStatus(200, "OK"));
+        GenericAnalyticsRequest request = GenericAnalyticsRequest.simpleStatement("SELECT 1", "bucket", "password");
+        queue.add(request);
+
+        channel.writeInbound(responseHeader, chunk(HEADER + "{\"id\": 1},{\"i"));
+        GenericAnalyticsResponse inbound = (GenericAnalyticsResponse) request.observable()
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals("1234", inbound.requestId());
+
+        channel.writeInbound(chunk("d\": 2}],\"status\": \"success\","),
+            new DefaultLastHttpContent(Unpooled.copiedBuffer("\"metrics\": {\"resultCount\": 2}}",
+                CharsetUtil.UTF_8)));
+
+        List<ByteBuf> rows = inbound.rows().toList().toBlocking().single();
+        assertEquals(2, rows.size());
+        assertEquals("{\"id\": 1}", rows.get(0).toString(CharsetUtil.UTF_8));
+        assertEquals("{\"id\": 2}", rows.get(1).toString(CharsetUtil.UTF_8));
+        for (ByteBuf row : rows) {
+            row.release();
+        }
+
+        assertEquals("success", inbound.queryStatus().toBlocking().single());
+        ByteBuf info = inbound.info().toBlocking().single();
+        assertEquals("{\"resultCount\": 2}", info.toString(CharsetUtil.UTF_8));
+        info.release();
+        assertEquals(0, inbound.errors().count().toBlocking().single().intValue());
+        assertEquals(ResponseStatus.SUCCESS, inbound.status());
+    }
+
+    @Test
+    public void shouldReportErrors() throws Exception {
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+            new HttpResponseStatus(400, "Bad Request"));
+        GenericAnalyticsRequest request = GenericAnalyticsRequest.simpleStatement("SELECT", "bucket", "password");
+        queue.add(request);
+
+        channel.writeInbound(responseHeader, new DefaultLastHttpContent(Unpooled.copiedBuffer(
+            "{\"requestID\": \"1234\",\"errors\": [{\"code\": 24000,\"msg\": \"Syntax error\"}],"
+                + "\"status\": \"fatal\",\"metrics\": {\"resultCount\": 0}}", CharsetUtil.UTF_8)));
+        GenericAnalyticsResponse inbound = (GenericAnalyticsResponse) request.observable()
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+
+        ByteBuf error = inbound.errors().toBlocking().single();
+        assertEquals("{\"code\": 24000,\"msg\": \"Syntax error\"}", error.toString(CharsetUtil.UTF_8));
+        error.release();
+        assertEquals(0, inbound.rows().count().toBlocking().single().intValue());
+        assertEquals("fatal", inbound.queryStatus().toBlocking().single());
+        inbound.info().toBlocking().single().release();
+    }
+
+    @Test
+    public void shouldDecodeRawResponseOnLastChunk() throws Exception {
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, new HttpResponseStatus(200, "OK"));
+        RawAnalyticsRequest request = RawAnalyticsRequest.jsonQuery("{}", "bucket", "password");
+        queue.add(request);
+
+        channel.writeInbound(responseHeader, chunk(HEADER + "{\"id\": 1}"),
+            new DefaultLastHttpContent(Unpooled.copiedBuffer("],\"status\": \"success\"}", CharsetUtil.UTF_8)));
+        RawAnalyticsResponse inbound = (RawAnalyticsResponse) request.observable()
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(200, inbound.httpStatusCode());
+        assertEquals(HEADER + "{\"id\": 1}],\"status\": \"success\"}",
+            inbound.jsonResponse().toString(CharsetUtil.UTF_8));
+        inbound.jsonResponse().release();
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -18,6 +18,8 @@ package com.couchbase.client.core.endpoint.kv;
 import com.couchbase.client.core.CouchbaseException;
 import com.couchbase.client.core.RequestCancelledException;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.ServerFeatures;
+import com.couchbase.client.core.endpoint.ServerFeaturesEvent;
 import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.env.DefaultCoreEnvironment;
 import com.couchbase.client.core.message.CouchbaseRequest;
@@ -43,6 +45,7 @@ import com.couchbase.client.core.message.kv.UnlockRequest;
 import com.couchbase.client.core.message.kv.UpsertRequest;
 import com.couchbase.client.core.util.CollectingResponseEventSink;
 import com.couchbase.client.core.utils.NetworkAddress;
+import com.couchbase.client.core.utils.Snappy;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheRequest;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.BinaryMemcacheResponseStatus;
 import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.DefaultFullBinaryMemcacheResponse;
@@ -67,9 +70,12 @@ import rx.subjects.Subject;
 
 import java.nio.charset.Charset;
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -77,7 +83,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -185,6 +194,200 @@ public class KeyValueHandlerTest {
         assertEquals(BUCKET, event.bucket());
     }
 
+    @Test
+    public void shouldDecodeSnappyCompressedGet() {
+        ByteBuf content = Unpooled.copiedBuffer("{\"content\":\"content content content content\"}", CharsetUtil.UTF_8);
+        ByteBuf compressed = Unpooled.buffer();
+        Snappy.encode(content.copy(), compressed);
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(KEY, Unpooled.EMPTY_BUFFER,
+            compressed);
+        response.setCAS(123456789L);
+        response.setDataType(KeyValueHandler.DATATYPE_SNAPPY);
+        response.setExtras(Unpooled.buffer().writeInt(123));
+        response.setExtrasLength((byte) 4);
+
+        GetRequest requestMock = mock(GetRequest.class);
+        when(requestMock.bucket()).thenReturn(BUCKET);
+        requestQueue.add(requestMock);
+        channel.writeInbound(response);
+
+        assertEquals(1, eventSink.responseEvents().size());
+        GetResponse event = (GetResponse) eventSink.responseEvents().get(0).getMessage();
+        assertEquals(123456789L, event.cas());
+        assertEquals(123, event.flags());
+        assertEquals(content.toString(CHARSET), event.content().toString(CHARSET));
+        assertEquals(1, event.content().refCnt());
+        assertEquals(0, response.refCnt());
+        event.content().release();
+    }
+
+    @Test
+    public void shouldFailSnappyResponseWithOversizedLength() {
+        // varint of 0x7fffffff, the largest length the snappy header can claim
+        ByteBuf compressed = Unpooled.buffer().writeBytes(new byte[] {
+            (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07, 0x00, 0x61
+        });
+        FullBinaryMemcacheResponse response = new DefaultFullBinaryMemcacheResponse(KEY, Unpooled.EMPTY_BUFFER,
+            compressed);
+        response.setDataType(KeyValueHandler.DATATYPE_SNAPPY);
+
+        GetRequest request = new GetRequest("key", BUCKET);
+        TestSubscriber<CouchbaseResponse> ts = TestSubscriber.create();
+        request.observable().subscribe(ts);
+        requestQueue.add(request);
+        channel.writeInbound(response);
+
+        ts.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        List<Throwable> onErrorEvents = ts.getOnErrorEvents();
+        assertEquals(1, onErrorEvents.size());
+        assertTrue(onErrorEvents.get(0).getCause() instanceof IllegalStateException);
+        assertEquals(0, response.refCnt());
+    }
+
+    @Test
+    public void shouldMatchResponsesByOpaqueWithUnorderedExecution() {
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(environment.unorderedExecutionEnabled()).thenReturn(true);
+        AbstractEndpoint unorderedEndpoint = mock(AbstractEndpoint.class);
+        when(unorderedEndpoint.environment()).thenReturn(environment);
+        EmbeddedChannel unorderedChannel = new EmbeddedChannel(
+            new KeyValueHandler(unorderedEndpoint, eventSink, requestQueue, false, true));
+        unorderedChannel.pipeline().fireUserEventTriggered(
+            new ServerFeaturesEvent(Collections.singletonList(ServerFeatures.UNORDERED_EXECUTION)));
+
+        GetRequest first = new GetRequest("first", BUCKET);
+        GetRequest second = new GetRequest("second", BUCKET);
+        first.partition((short) 1);
+        second.partition((short) 2);
+        unorderedChannel.writeOutbound(first, second);
+        ReferenceCountUtil.releaseLater(unorderedChannel.readOutbound());
+        ReferenceCountUtil.releaseLater(unorderedChannel.readOutbound());
+
+        FullBinaryMemcacheResponse secondResponse = new DefaultFullBinaryMemcacheResponse(
+            "second".getBytes(CHARSET), Unpooled.EMPTY_BUFFER, Unpooled.copiedBuffer("2", CHARSET));
+        secondResponse.setOpaque(second.opaque());
+        FullBinaryMemcacheResponse firstResponse = new DefaultFullBinaryMemcacheResponse(
+            "first".getBytes(CHARSET), Unpooled.EMPTY_BUFFER, Unpooled.copiedBuffer("1", CHARSET));
+        firstResponse.setOpaque(first.opaque());
+        unorderedChannel.writeInbound(secondResponse, firstResponse);
+
+        GetResponse secondResult = (GetResponse) second.observable().toBlocking().single();
+        GetResponse firstResult = (GetResponse) first.observable().toBlocking().single();
+        assertEquals("2", secondResult.content().toString(CHARSET));
+        assertEquals("1", firstResult.content().toString(CHARSET));
+        assertTrue(requestQueue.isEmpty());
+        ReferenceCountUtil.releaseLater(secondResult.content());
+        ReferenceCountUtil.releaseLater(firstResult.content());
+        unorderedChannel.close().awaitUninterruptibly();
+    }
+
+    @Test
+    public void shouldSignalPushedClustermapWithoutMatchingRequest() {
+        GetRequest pending = new GetRequest("key", BUCKET);
+        requestQueue.add(pending);
+
+        String config = "{\"rev\":123,\"name\":\"bucket\"}";
+        FullBinaryMemcacheResponse push = new DefaultFullBinaryMemcacheResponse(BUCKET.getBytes(CHARSET),
+            Unpooled.buffer().writeInt(123), Unpooled.copiedBuffer(config, CHARSET));
+        push.setMagic(KeyValueHandler.MAGIC_SERVER_REQUEST);
+        push.setOpcode(KeyValueHandler.OP_CLUSTERMAP_CHANGE_NOTIFICATION);
+        push.setExtrasLength((byte) 4);
+        push.setOpaque(4711);
+        channel.writeInbound(push);
+
+        verify(endpoint).signalClustermapChange(BUCKET, config);
+        assertEquals(1, requestQueue.size());
+        assertEquals(0, push.refCnt());
+    }
+
+    @Test
+    public void shouldSignalConfigReloadForPushedClustermapWithoutConfig() {
+        FullBinaryMemcacheResponse push = new DefaultFullBinaryMemcacheResponse(BUCKET.getBytes(CHARSET),
+            Unpooled.buffer().writeInt(123), Unpooled.EMPTY_BUFFER);
+        push.setMagic(KeyValueHandler.MAGIC_SERVER_REQUEST);
+        push.setOpcode(KeyValueHandler.OP_CLUSTERMAP_CHANGE_NOTIFICATION);
+        push.setExtrasLength((byte) 4);
+        channel.writeInbound(push);
+
+        verify(endpoint).signalConfigReload();
+        verify(endpoint, never()).signalClustermapChange(anyString(), anyString());
+    }
+
+    @Test
+    public void shouldSignalNegotiatedClustermapNotifications() {
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(environment.clustermapNotificationsEnabled()).thenReturn(true);
+        AbstractEndpoint notifiedEndpoint = mock(AbstractEndpoint.class);
+        when(notifiedEndpoint.environment()).thenReturn(environment);
+        EmbeddedChannel notifiedChannel = new EmbeddedChannel(
+            new KeyValueHandler(notifiedEndpoint, eventSink, requestQueue, false, true));
+        notifiedChannel.pipeline().fireUserEventTriggered(new ServerFeaturesEvent(
+            Arrays.asList(ServerFeatures.DUPLEX, ServerFeatures.CLUSTERMAP_CHANGE_NOTIFICATION)));
+        verify(notifiedEndpoint).signalClustermapNotifications(true);
+
+        notifiedChannel.close().awaitUninterruptibly();
+        verify(notifiedEndpoint).signalClustermapNotifications(false);
+    }
+
+    @Test
+    public void shouldFailRequestOnDeadlineAndDropItsLateResponse() throws Exception {
+        GetRequest expiring = new GetRequest("expiring", BUCKET);
+        GetRequest next = new GetRequest("next", BUCKET);
+        expiring.partition((short) 1);
+        next.partition((short) 1);
+        expiring.deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20));
+        TestSubscriber<CouchbaseResponse> expired = TestSubscriber.create();
+        expiring.observable().subscribe(expired);
+
+        channel.writeOutbound(expiring, next);
+        ReferenceCountUtil.releaseLater(channel.readOutbound());
+        ReferenceCountUtil.releaseLater(channel.readOutbound());
+
+        Thread.sleep(50);
+        channel.runPendingTasks();
+        expired.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        expired.assertError(TimeoutException.class);
+
+        FullBinaryMemcacheResponse lateResponse = new DefaultFullBinaryMemcacheResponse(
+            "expiring".getBytes(CHARSET), Unpooled.EMPTY_BUFFER, Unpooled.copiedBuffer("1", CHARSET));
+        lateResponse.setOpaque(expiring.opaque());
+        FullBinaryMemcacheResponse nextResponse = new DefaultFullBinaryMemcacheResponse(
+            "next".getBytes(CHARSET), Unpooled.EMPTY_BUFFER, Unpooled.copiedBuffer("2", CHARSET));
+        nextResponse.setOpaque(next.opaque());
+        channel.writeInbound(lateResponse, nextResponse);
+
+        GetResponse nextResult = (GetResponse) next.observable().timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals("2", nextResult.content().toString(CHARSET));
+        ReferenceCountUtil.releaseLater(nextResult.content());
+        assertEquals(0, lateResponse.refCnt());
+        assertTrue(requestQueue.isEmpty());
+    }
+
+    @Test
+    public void shouldDropResponseOfExpiredRequestBeforeItsDeadlineIsProcessed() throws Exception {
+        GetRequest expiring = new GetRequest("expiring", BUCKET);
+        expiring.partition((short) 1);
+        expiring.deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1));
+        TestSubscriber<CouchbaseResponse> expired = TestSubscriber.create();
+        expiring.observable().subscribe(expired);
+
+        channel.writeOutbound(expiring);
+        ReferenceCountUtil.releaseLater(channel.readOutbound());
+        Thread.sleep(5);
+
+        FullBinaryMemcacheResponse lateResponse = new DefaultFullBinaryMemcacheResponse(
+            "expiring".getBytes(CHARSET), Unpooled.EMPTY_BUFFER, Unpooled.copiedBuffer("1", CHARSET));
+        lateResponse.setOpaque(expiring.opaque());
+        channel.writeInbound(lateResponse);
+
+        expired.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        expired.assertError(TimeoutException.class);
+        assertEquals(0, lateResponse.refCnt());
+        assertTrue(requestQueue.isEmpty());
+    }
+
     @Test
     public void shouldDecodeNotFoundGet() {
         ByteBuf content = Unpooled.copiedBuffer("Not Found", CharsetUtil.UTF_8);
@@ -223,6 +426,23 @@ public class KeyValueHandlerTest {
         ReferenceCountUtil.releaseLater(outbound);
     }
 
+    @Test
+    public void shouldEncodeGetRoutedToReplicaAsReplicaGet() {
+        String id = "hotkey";
+        GetRequest request = new GetRequest(id, BUCKET, true);
+        request.partition((short) 512);
+        request.replica((short) 1);
+
+        channel.writeOutbound(request);
+        BinaryMemcacheRequest outbound = (BinaryMemcacheRequest) channel.readOutbound();
+        assertNotNull(outbound);
+        assertEquals(id, new String(outbound.getKey(), CHARSET));
+        assertEquals(512, outbound.getReserved());
+        assertEquals(KeyValueHandler.OP_GET_REPLICA, outbound.getOpcode());
+        assertEquals(0, outbound.getExtrasLength());
+        ReferenceCountUtil.releaseLater(outbound);
+    }
+
     @Test
     public void shouldDecodeReplicaGetResponse() {
         ByteBuf content = Unpooled.copiedBuffer("content", CharsetUtil.UTF_8);
@@ -369,6 +589,43 @@ public class KeyValueHandlerTest {
         ReferenceCountUtil.release(content);
     }
 
+    @Test
+    public void shouldCompressLargeUpsertBodyWhenSnappyEnabled() {
+        CoreEnvironment environment = mock(CoreEnvironment.class);
+        when(environment.scheduler()).thenReturn(Schedulers.computation());
+        when(environment.compressionMinSize()).thenReturn(32);
+        when(environment.compressionMinRatio()).thenReturn(0.83);
+        AbstractEndpoint compressingEndpoint = mock(AbstractEndpoint.class);
+        when(compressingEndpoint.environment()).thenReturn(environment);
+        KeyValueHandler handler = new KeyValueHandler(compressingEndpoint, eventSink, requestQueue, false, true);
+        handler.snappyEnabled = true;
+        EmbeddedChannel compressingChannel = new EmbeddedChannel(handler);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            sb.append("{\"type\":\"user\",\"name\":\"couchbase\"}");
+        }
+        ByteBuf content = Unpooled.copiedBuffer(sb.toString(), CharsetUtil.UTF_8);
+        UpsertRequest request = new UpsertRequest("key", content, "bucket");
+        request.partition((short) 512);
+        compressingChannel.writeOutbound(request);
+        FullBinaryMemcacheRequest outbound = (FullBinaryMemcacheRequest) compressingChannel.readOutbound();
+        assertNotNull(outbound);
+        assertEquals(KeyValueHandler.DATATYPE_SNAPPY, outbound.getDataType() & KeyValueHandler.DATATYPE_SNAPPY);
+        assertEquals(512, outbound.getReserved());
+        assertEquals(request.opaque(), outbound.getOpaque());
+        assertTrue(outbound.content().readableBytes() < content.readableBytes());
+        assertEquals(3 + 8 + outbound.content().readableBytes(), outbound.getTotalBodyLength());
+
+        ByteBuf inflated = Unpooled.buffer();
+        Snappy.decode(outbound.content().duplicate(), inflated);
+        assertEquals(sb.toString(), inflated.toString(CharsetUtil.UTF_8));
+        assertEquals(1, request.content().refCnt());
+        ReferenceCountUtil.releaseLater(outbound);
+        ReferenceCountUtil.releaseLater(request.content());
+        compressingChannel.close().awaitUninterruptibly();
+    }
+
     @Test
     public void shouldEncodeUpsertRequest() {
         ByteBuf content = Unpooled.copiedBuffer("content", CharsetUtil.UTF_8);
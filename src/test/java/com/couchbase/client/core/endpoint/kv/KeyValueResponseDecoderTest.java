@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.kv;
+
+import com.couchbase.client.deps.io.netty.handler.codec.memcache.binary.FullBinaryMemcacheResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies the functionality of the {@link KeyValueResponseDecoder}.
+ *
+ * @since 1.5.3
+ */
+public class KeyValueResponseDecoderTest {
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setup() {
+        channel = new EmbeddedChannel(new KeyValueResponseDecoder());
+    }
+
+    @After
+    public void cleanup() {
+        channel.finish();
+    }
+
+    @Test
+    public void shouldDecodeFrameReadAtOnce() {
+        ByteBuf frame = frame((byte) 0x00, (short) 0, 1234, 5678L, new byte[] {0, 0, 0, 42}, "key", "value");
+
+        channel.writeInbound(frame);
+        FullBinaryMemcacheResponse response = (FullBinaryMemcacheResponse) channel.readInbound();
+
+        assertEquals((byte) 0x81, response.getMagic());
+        assertEquals(KeyValueHandler.OP_GET, response.getOpcode());
+        assertEquals(0, response.getStatus());
+        assertEquals(1234, response.getOpaque());
+        assertEquals(5678L, response.getCAS());
+        assertEquals(4, response.getExtrasLength());
+        assertEquals(3, response.getKeyLength());
+        assertEquals(12, response.getTotalBodyLength());
+        assertEquals(42, response.getExtras().getInt(0));
+        assertArrayEquals("key".getBytes(CharsetUtil.UTF_8), response.getKey());
+        assertEquals("value", response.content().toString(CharsetUtil.UTF_8));
+
+        // the value is a slice of the read buffer, which is kept alive by the extras and the value only
+        assertEquals(frame, response.content().unwrap());
+        assertEquals(2, frame.refCnt());
+        response.release();
+        assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    public void shouldDecodeFrameWithoutBody() {
+        channel.writeInbound(frame((byte) 0x01, (short) 0x01, 1, 0, null, null, null));
+        FullBinaryMemcacheResponse response = (FullBinaryMemcacheResponse) channel.readInbound();
+
+        assertEquals(0x01, response.getStatus());
+        assertEquals(0, response.getTotalBodyLength());
+        assertNull(response.getExtras());
+        assertNull(response.getKey());
+        assertFalse(response.content().isReadable());
+        response.release();
+    }
+
+    @Test
+    public void shouldDecodeFrameWithLargeExtras() {
+        byte[] extras = new byte[200];
+        extras[199] = 42;
+        channel.writeInbound(frame((byte) 0x00, (short) 0, 1, 0, extras, "key", "value"));
+        FullBinaryMemcacheResponse response = (FullBinaryMemcacheResponse) channel.readInbound();
+
+        assertEquals(200, response.getExtras().readableBytes());
+        assertEquals(42, response.getExtras().getByte(199));
+        assertArrayEquals("key".getBytes(CharsetUtil.UTF_8), response.getKey());
+        assertEquals("value", response.content().toString(CharsetUtil.UTF_8));
+        response.release();
+    }
+
+    @Test
+    public void shouldDecodeFrameSpanningReads() {
+        ByteBuf frame = frame((byte) 0x00, (short) 0, 1, 0, null, null, "some longer value which spans reads");
+
+        channel.writeInbound(frame.readSlice(10).retain());
+        assertNull(channel.readInbound());
+        channel.writeInbound(frame.readSlice(20).retain());
+        assertNull(channel.readInbound());
+        channel.writeInbound(frame);
+
+        FullBinaryMemcacheResponse response = (FullBinaryMemcacheResponse) channel.readInbound();
+        assertEquals("some longer value which spans reads", response.content().toString(CharsetUtil.UTF_8));
+        response.release();
+        assertEquals(0, frame.refCnt());
+    }
+
+    @Test
+    public void shouldDecodeMultipleFramesInOneRead() {
+        ByteBuf first = frame((byte) 0x00, (short) 0, 1, 0, null, null, "first");
+        ByteBuf second = frame((byte) 0x00, (short) 0, 2, 0, null, null, "second");
+        ByteBuf third = frame((byte) 0x00, (short) 0, 3, 0, null, null, "third");
+
+        ByteBuf read = Unpooled.buffer();
+        read.writeBytes(first).writeBytes(second).writeBytes(third, 12);
+        channel.writeInbound(read);
+
+        FullBinaryMemcacheResponse response = (FullBinaryMemcacheResponse) channel.readInbound();
+        assertEquals(1, response.getOpaque());
+        assertEquals("first", response.content().toString(CharsetUtil.UTF_8));
+        response.release();
+        response = (FullBinaryMemcacheResponse) channel.readInbound();
+        assertEquals(2, response.getOpaque());
+        assertEquals("second", response.content().toString(CharsetUtil.UTF_8));
+        response.release();
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(third);
+        response = (FullBinaryMemcacheResponse) channel.readInbound();
+        assertEquals(3, response.getOpaque());
+        assertEquals("third", response.content().toString(CharsetUtil.UTF_8));
+        response.release();
+
+        first.release();
+        second.release();
+    }
+
+    private static ByteBuf frame(byte opcode, short status, int opaque, long cas, byte[] extras, String key,
+        String value) {
+        byte[] keyBytes = key == null ? new byte[0] : key.getBytes(CharsetUtil.UTF_8);
+        byte[] valueBytes = value == null ? new byte[0] : value.getBytes(CharsetUtil.UTF_8);
+        int extrasLength = extras == null ? 0 : extras.length;
+
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeByte(0x81);
+        frame.writeByte(opcode);
+        frame.writeShort(keyBytes.length);
+        frame.writeByte(extrasLength);
+        frame.writeByte(0);
+        frame.writeShort(status);
+        frame.writeInt(extrasLength + keyBytes.length + valueBytes.length);
+        frame.writeInt(opaque);
+        frame.writeLong(cas);
+        if (extras != null) {
+            frame.writeBytes(extras);
+        }
+        frame.writeBytes(keyBytes);
+        frame.writeBytes(valueBytes);
+        return frame;
+    }
+}
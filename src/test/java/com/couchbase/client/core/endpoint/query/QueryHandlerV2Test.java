@@ -21,6 +21,7 @@ import com.couchbase.client.core.util.Resources;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpContent;
@@ -32,6 +33,7 @@ import org.junit.Before;
 import org.junit.Test;
 import rx.functions.Action0;
 import rx.functions.Action1;
+import rx.observers.TestSubscriber;
 
 import java.nio.charset.Charset;
 import java.util.concurrent.CountDownLatch;
@@ -39,7 +41,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Verifies the correct functionality of the {@link QueryHandlerV2} with V2 parser
@@ -96,4 +101,35 @@ public class QueryHandlerV2Test extends QueryHandlerTest {
         latch.await(1, TimeUnit.SECONDS);
         assertEquals(1, invokeCounter1.get());
     }
+
+    @Test
+    public void shouldPauseReadingWhileStreamedRowsAreNotConsumed() throws Exception {
+        channel.close().awaitUninterruptibly();
+        when(endpoint.environment().streamingRowWindow()).thenReturn(2);
+        handler = new QueryHandlerV2(endpoint, responseRingBuffer, queue, false, false);
+        channel = new EmbeddedChannel(handler);
+
+        String response = Resources.read("success_5.json", this.getClass());
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, new HttpResponseStatus(200, "OK"));
+        HttpContent responseChunk = new DefaultHttpContent(Unpooled.copiedBuffer(response, CharsetUtil.UTF_8));
+
+        queue.add(mock(GenericQueryRequest.class));
+        channel.writeInbound(responseHeader, responseChunk);
+        latch.await(1, TimeUnit.SECONDS);
+        assertEquals(1, firedEvents.size());
+        GenericQueryResponse inbound = (GenericQueryResponse) firedEvents.get(0);
+        assertFalse(channel.config().isAutoRead());
+
+        TestSubscriber<ByteBuf> rows = TestSubscriber.create(0);
+        inbound.rows().subscribe(rows);
+        rows.requestMore(5);
+        rows.assertValueCount(5);
+        assertTrue(channel.config().isAutoRead());
+
+        channel.writeInbound(new DefaultLastHttpContent());
+        rows.assertCompleted();
+        for (ByteBuf row : rows.getOnNextEvents()) {
+            row.release();
+        }
+    }
 }
@@ -27,14 +27,19 @@ import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.search.SearchQueryRequest;
 import com.couchbase.client.core.message.search.SearchRequest;
+import com.couchbase.client.core.message.search.StreamingSearchQueryRequest;
+import com.couchbase.client.core.message.search.StreamingSearchQueryResponse;
 import com.couchbase.client.core.retry.FailFastRetryStrategy;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpResponse;
@@ -42,6 +47,7 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.CharsetUtil;
 import org.junit.Before;
 import org.junit.Test;
 import rx.observers.TestSubscriber;
@@ -205,4 +211,57 @@ public class SearchHandlerTest {
         assertEquals(0, responseEnd.refCnt());
     }
 
+    @Test
+    public void shouldStreamSearchHits() throws Exception {
+        StreamingSearchQueryRequest request = new StreamingSearchQueryRequest("index", "{}", "bucket", "bucket", "");
+        queue.add(request);
+
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        channel.writeInbound(responseHeader, new DefaultHttpContent(Unpooled.copiedBuffer(
+            "{\"status\":{\"total\":1,\"failed\":0,\"successful\":1},\"request\":{\"query\":{}},"
+                + "\"hits\":[{\"id\":\"a\",\"score\":1.2},{\"id\"", CharsetUtil.UTF_8)));
+        StreamingSearchQueryResponse response = (StreamingSearchQueryResponse) request.observable()
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(ResponseStatus.SUCCESS, response.status());
+
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer(
+            ":\"b\",\"score\":0.7}],\"total_hits\":2,\"max_score\":1.2,\"took\":1234,"
+                + "\"facets\":{\"type\":{\"total\":2}}}", CharsetUtil.UTF_8)));
+
+        List<ByteBuf> hits = response.hits().toList().toBlocking().single();
+        assertEquals(2, hits.size());
+        assertEquals("{\"id\":\"a\",\"score\":1.2}", hits.get(0).toString(CharsetUtil.UTF_8));
+        assertEquals("{\"id\":\"b\",\"score\":0.7}", hits.get(1).toString(CharsetUtil.UTF_8));
+        for (ByteBuf hit : hits) {
+            hit.release();
+        }
+        ByteBuf status = response.searchStatus().toBlocking().single();
+        assertEquals("{\"total\":1,\"failed\":0,\"successful\":1}", status.toString(CharsetUtil.UTF_8));
+        status.release();
+        ByteBuf facets = response.facets().toBlocking().single();
+        assertEquals("{\"type\":{\"total\":2}}", facets.toString(CharsetUtil.UTF_8));
+        facets.release();
+        ByteBuf info = response.info().toBlocking().single();
+        assertEquals("{\"total_hits\":2,\"max_score\":1.2,\"took\":1234}", info.toString(CharsetUtil.UTF_8));
+        info.release();
+        assertTrue(response.errors().isEmpty().toBlocking().single());
+    }
+
+    @Test
+    public void shouldReportFailedStreamingSearchAsError() throws Exception {
+        StreamingSearchQueryRequest request = new StreamingSearchQueryRequest("index", "{}", "bucket", "bucket", "");
+        queue.add(request);
+
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST);
+        channel.writeInbound(responseHeader, new DefaultLastHttpContent(Unpooled.copiedBuffer(
+            "rest_index: Query, indexName: index, err: bleve: QueryBleve parsing", CharsetUtil.UTF_8)));
+        StreamingSearchQueryResponse response = (StreamingSearchQueryResponse) request.observable()
+            .timeout(1, TimeUnit.SECONDS).toBlocking().single();
+
+        assertEquals(ResponseStatus.INVALID_ARGUMENTS, response.status());
+        assertEquals("rest_index: Query, indexName: index, err: bleve: QueryBleve parsing",
+            response.errors().toBlocking().single());
+        assertTrue(response.hits().isEmpty().toBlocking().single());
+        assertTrue(response.facets().isEmpty().toBlocking().single());
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+import rx.schedulers.TestScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link StreamingRowSubject}.
+ *
+ * @since 1.5.3
+ */
+public class StreamingRowSubjectTest {
+
+    private EmbeddedChannel channel;
+    private TestScheduler scheduler;
+    private StreamingRowSubject<ByteBuf> subject;
+
+    @Before
+    public void setup() {
+        channel = new EmbeddedChannel();
+        scheduler = new TestScheduler();
+        subject = StreamingRowSubject.create(channel, 4, 1, TimeUnit.SECONDS, scheduler);
+    }
+
+    @After
+    public void cleanup() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void shouldOnlyEmitRequestedRows() {
+        TestSubscriber<ByteBuf> subscriber = TestSubscriber.create(0);
+        subject.subscribe(subscriber);
+
+        subject.onNext(row());
+        subject.onNext(row());
+        subject.onNext(row());
+        subscriber.assertNoValues();
+
+        subscriber.requestMore(2);
+        subscriber.assertValueCount(2);
+
+        subject.onCompleted();
+        subscriber.assertNotCompleted();
+        subscriber.requestMore(1);
+        subscriber.assertValueCount(3);
+        subscriber.assertCompleted();
+    }
+
+    @Test
+    public void shouldPauseReadingWhileWindowIsFull() {
+        TestSubscriber<ByteBuf> subscriber = TestSubscriber.create(0);
+        subject.subscribe(subscriber);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(channel.config().isAutoRead());
+            subject.onNext(row());
+        }
+        assertFalse(channel.config().isAutoRead());
+        assertTrue(subject.isPaused());
+
+        // draining one row is not enough, reading resumes once half the window is consumed
+        subscriber.requestMore(1);
+        assertFalse(channel.config().isAutoRead());
+        subscriber.requestMore(1);
+        assertTrue(channel.config().isAutoRead());
+        assertFalse(subject.isPaused());
+    }
+
+    @Test
+    public void shouldResumeReadingWhenStreamCompletes() {
+        TestSubscriber<ByteBuf> subscriber = TestSubscriber.create(0);
+        subject.subscribe(subscriber);
+        for (int i = 0; i < 6; i++) {
+            subject.onNext(row());
+        }
+        assertFalse(channel.config().isAutoRead());
+
+        subject.onCompleted();
+        assertTrue(channel.config().isAutoRead());
+
+        subscriber.requestMore(Long.MAX_VALUE);
+        subscriber.assertValueCount(6);
+        subscriber.assertCompleted();
+    }
+
+    @Test
+    public void shouldReleaseRowsAndResumeOnUnsubscribe() {
+        TestSubscriber<ByteBuf> subscriber = TestSubscriber.create(0);
+        subject.subscribe(subscriber);
+
+        List<ByteBuf> rows = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 4; i++) {
+            ByteBuf row = row();
+            rows.add(row);
+            subject.onNext(row);
+        }
+        assertFalse(channel.config().isAutoRead());
+
+        subscriber.unsubscribe();
+        assertTrue(channel.config().isAutoRead());
+        for (ByteBuf row : rows) {
+            assertEquals(0, row.refCnt());
+        }
+
+        ByteBuf late = row();
+        subject.onNext(late);
+        assertEquals(0, late.refCnt());
+    }
+
+    @Test
+    public void shouldReleaseRowsIfNotSubscribedInTime() {
+        List<ByteBuf> rows = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 5; i++) {
+            ByteBuf row = row();
+            rows.add(row);
+            subject.onNext(row);
+        }
+        assertFalse(channel.config().isAutoRead());
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertTrue(channel.config().isAutoRead());
+        for (ByteBuf row : rows) {
+            assertEquals(0, row.refCnt());
+        }
+
+        TestSubscriber<ByteBuf> subscriber = TestSubscriber.create();
+        subject.subscribe(subscriber);
+        subscriber.assertError(IllegalStateException.class);
+    }
+
+    @Test
+    public void shouldAllowOnlyOneSubscriber() {
+        subject.subscribe(TestSubscriber.<ByteBuf>create());
+        TestSubscriber<ByteBuf> second = TestSubscriber.create();
+        subject.subscribe(second);
+        second.assertError(IllegalStateException.class);
+    }
+
+    private static ByteBuf row() {
+        return Unpooled.copiedBuffer(new byte[] { '{', '}' });
+    }
+}
@@ -38,6 +38,7 @@ import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
@@ -95,18 +96,16 @@ import static org.mockito.Mockito.when;
 public class ViewHandlerTest {
 
     private ObjectMapper mapper = new ObjectMapper();
-    private Queue<ViewRequest> queue;
-    private EmbeddedChannel channel;
-    private Disruptor<ResponseEvent> responseBuffer;
-    private RingBuffer<ResponseEvent> responseRingBuffer;
-    private List<CouchbaseMessage> firedEvents;
-    private CountDownLatch latch;
-    private ViewHandler handler;
-    private AbstractEndpoint endpoint;
-
-    @Before
-    @SuppressWarnings("unchecked")
-    public void setup() {
+    protected Queue<ViewRequest> queue;
+    protected EmbeddedChannel channel;
+    protected Disruptor<ResponseEvent> responseBuffer;
+    protected RingBuffer<ResponseEvent> responseRingBuffer;
+    protected List<CouchbaseMessage> firedEvents;
+    protected CountDownLatch latch;
+    protected ChannelHandler handler;
+    protected AbstractEndpoint endpoint;
+
+    protected void commonSetup() {
         responseBuffer = new Disruptor<ResponseEvent>(new EventFactory<ResponseEvent>() {
             @Override
             public ResponseEvent newInstance() {
@@ -135,6 +134,12 @@ public class ViewHandlerTest {
         when(environment.userAgent()).thenReturn("Couchbase Client Mock");
 
         queue = new ArrayDeque<ViewRequest>();
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        commonSetup();
         handler = new ViewHandler(endpoint, responseRingBuffer, queue, false, false);
         channel = new EmbeddedChannel(handler);
     }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.endpoint.view;
+
+import com.couchbase.client.core.message.view.ViewQueryRequest;
+import com.couchbase.client.core.message.view.ViewQueryResponse;
+import com.couchbase.client.core.util.Resources;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the correct functionality of the {@link ViewHandlerV2} with the yasjl based parser.
+ *
+ * @since 1.5.3
+ */
+public class ViewHandlerV2Test extends ViewHandlerTest {
+
+    @Override
+    @Before
+    public void setup() {
+        commonSetup();
+        handler = new ViewHandlerV2(endpoint, responseRingBuffer, queue, false, false);
+        channel = new EmbeddedChannel(handler);
+    }
+
+    @Test
+    public void shouldDecodeRowsSplitAcrossSmallChunks() throws Exception {
+        String response = Resources.read("query_many.json", this.getClass());
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, new HttpResponseStatus(200, "OK"));
+
+        queue.add(mock(ViewQueryRequest.class));
+        channel.writeInbound(responseHeader);
+        int chunkSize = 7;
+        for (int i = 0; i < response.length(); i += chunkSize) {
+            String chunk = response.substring(i, Math.min(i + chunkSize, response.length()));
+            channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer(chunk, CharsetUtil.UTF_8)));
+        }
+        channel.writeInbound(new DefaultLastHttpContent());
+        latch.await(1, TimeUnit.SECONDS);
+        assertEquals(1, firedEvents.size());
+        ViewQueryResponse inbound = (ViewQueryResponse) firedEvents.get(0);
+
+        List<ByteBuf> rows = inbound.rows().toList().toBlocking().single();
+        assertEquals(500, rows.size());
+        for (ByteBuf row : rows) {
+            String content = row.toString(CharsetUtil.UTF_8);
+            assertTrue(content, content.startsWith("{") && content.endsWith("}"));
+            row.release();
+        }
+
+        ByteBuf info = inbound.info().toBlocking().single();
+        assertEquals("{\"total_rows\":7303}", info.toString(CharsetUtil.UTF_8));
+        info.release();
+    }
+
+    @Test
+    public void shouldPauseReadingWhileStreamedRowsAreNotConsumed() throws Exception {
+        channel.close().awaitUninterruptibly();
+        when(endpoint.environment().streamingRowWindow()).thenReturn(2);
+        handler = new ViewHandlerV2(endpoint, responseRingBuffer, queue, false, false);
+        channel = new EmbeddedChannel(handler);
+
+        String response = Resources.read("query_many.json", this.getClass());
+        HttpResponse responseHeader = new DefaultHttpResponse(HttpVersion.HTTP_1_1, new HttpResponseStatus(200, "OK"));
+
+        queue.add(mock(ViewQueryRequest.class));
+        channel.writeInbound(responseHeader,
+            new DefaultHttpContent(Unpooled.copiedBuffer(response, CharsetUtil.UTF_8)));
+        latch.await(1, TimeUnit.SECONDS);
+        assertEquals(1, firedEvents.size());
+        ViewQueryResponse inbound = (ViewQueryResponse) firedEvents.get(0);
+        assertFalse(channel.config().isAutoRead());
+
+        TestSubscriber<ByteBuf> rows = TestSubscriber.create(0);
+        inbound.rows().subscribe(rows);
+        rows.requestMore(500);
+        rows.awaitValueCount(500, 1000, TimeUnit.MILLISECONDS);
+        assertTrue(channel.config().isAutoRead());
+
+        channel.writeInbound(new DefaultLastHttpContent());
+        rows.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        rows.assertCompleted();
+        for (ByteBuf row : rows.getOnNextEvents()) {
+            row.release();
+        }
+    }
+}
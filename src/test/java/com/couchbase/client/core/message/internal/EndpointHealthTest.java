@@ -55,4 +55,20 @@ public class EndpointHealthTest {
         assertEquals("", result.get("local"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldExposeInFlightLimit() {
+        EndpointHealth eh = new EndpointHealth(
+            ServiceType.BINARY,
+            LifecycleState.CONNECTED,
+            null,
+            null,
+            0,
+            0,
+            512
+        );
+
+        assertEquals(512, eh.inFlightLimit());
+        assertEquals(512, eh.toMap().get("in_flight_limit"));
+    }
+
+}
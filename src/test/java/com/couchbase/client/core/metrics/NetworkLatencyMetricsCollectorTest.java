@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.event.DefaultEventBus;
+import com.couchbase.client.core.event.metrics.LatencyMetric;
+import com.couchbase.client.core.event.metrics.NetworkLatencyMetricsEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.schedulers.TestScheduler;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link NetworkLatencyMetricsCollector}.
+ *
+ * @since 1.5.3
+ */
+public class NetworkLatencyMetricsCollectorTest {
+
+    private NetworkLatencyMetricsCollector collector;
+
+    @Before
+    public void setup() {
+        TestScheduler scheduler = new TestScheduler();
+        collector = new NetworkLatencyMetricsCollector(new DefaultEventBus(scheduler), scheduler,
+            DefaultLatencyMetricsCollectorConfig.create(1, TimeUnit.HOURS));
+    }
+
+    @After
+    public void cleanup() {
+        collector.shutdown();
+    }
+
+    @Test
+    public void shouldNotLoseLatenciesRecordedConcurrently() throws Exception {
+        final int threads = 4;
+        final int recordsPerThread = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < recordsPerThread; j++) {
+                            // new but equal identifiers, so every thread races to register the stats
+                            collector.record(new NetworkLatencyMetricsIdentifier("127.0.0.1", "BINARY",
+                                "GetRequest", "SUCCESS"), 1000 + j);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        Map<NetworkLatencyMetricsIdentifier, LatencyMetric> latencies =
+            ((NetworkLatencyMetricsEvent) collector.generateCouchbaseEvent()).latencies();
+        assertEquals(1, latencies.size());
+        // the pause detector may add corrected samples on top of the recorded ones if the threads stall
+        assertTrue(latencies.values().iterator().next().count() >= threads * recordsPerThread);
+    }
+
+    @Test
+    public void shouldTreatEqualIdentifiersAsSameKey() {
+        NetworkLatencyMetricsIdentifier first = new NetworkLatencyMetricsIdentifier("host", "QUERY",
+            "GenericQueryRequest", "SUCCESS");
+        NetworkLatencyMetricsIdentifier second = new NetworkLatencyMetricsIdentifier("host", "QUERY",
+            "GenericQueryRequest", "SUCCESS");
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals("host->QUERY->GenericQueryRequest->SUCCESS", first.toString());
+        assertEquals(0, first.compareTo(second));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.node.locate;
+
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link HotKeyDetector}.
+ *
+ * @since 1.5.3
+ */
+public class HotKeyDetectorTest {
+
+    @Test
+    public void shouldCountReadsOfHotKey() {
+        HotKeyDetector detector = new HotKeyDetector();
+        byte[] hot = "hot".getBytes(CharsetUtil.UTF_8);
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, detector.record(hot));
+            detector.record(("cold" + i).getBytes(CharsetUtil.UTF_8));
+        }
+        assertEquals(100, detector.estimate(hot));
+        assertTrue(detector.estimate("cold1".getBytes(CharsetUtil.UTF_8)) < 10);
+        assertEquals(0, detector.estimate("unknown".getBytes(CharsetUtil.UTF_8)));
+    }
+
+    @Test
+    public void shouldDecayCounters() {
+        HotKeyDetector detector = new HotKeyDetector();
+        byte[] hot = "hot".getBytes(CharsetUtil.UTF_8);
+        for (int i = 0; i < 100; i++) {
+            detector.record(hot);
+        }
+        for (int i = 100; i < HotKeyDetector.DECAY_INTERVAL; i++) {
+            detector.record(("other" + i).getBytes(CharsetUtil.UTF_8));
+        }
+        assertEquals(50, detector.estimate(hot));
+    }
+}
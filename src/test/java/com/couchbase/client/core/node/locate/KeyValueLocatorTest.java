@@ -15,12 +15,15 @@
  */
 package com.couchbase.client.core.node.locate;
 
+import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.CouchbaseBucketConfig;
 import com.couchbase.client.core.config.DefaultNodeInfo;
 import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.env.CoreEnvironment;
 import com.couchbase.client.core.message.kv.GetBucketConfigRequest;
 import com.couchbase.client.core.message.kv.GetRequest;
+import com.couchbase.client.core.message.kv.ReplicaGetRequest;
 import com.couchbase.client.core.node.Node;
 import com.couchbase.client.core.state.LifecycleState;
 import com.couchbase.client.core.utils.NetworkAddress;
@@ -30,8 +33,13 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -97,6 +105,51 @@ public class KeyValueLocatorTest {
         verify(node2Mock, times(1)).send(requestMock);
     }
 
+    @Test
+    public void shouldSpreadHotReplicaReadableGetsAcrossMasterAndReplica() throws Exception {
+        KeyValueLocator locator = new KeyValueLocator();
+
+        NodeInfo nodeInfo1 = new DefaultNodeInfo("foo", "192.168.56.101:11210", Collections.EMPTY_MAP);
+        NodeInfo nodeInfo2 = new DefaultNodeInfo("foo", "192.168.56.102:11210", Collections.EMPTY_MAP);
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn(NetworkAddress.create("192.168.56.101"));
+        Node node2Mock = mock(Node.class);
+        when(node2Mock.hostname()).thenReturn(NetworkAddress.create("192.168.56.102"));
+        List<Node> nodes = Arrays.asList(node1Mock, node2Mock);
+
+        ClusterConfig configMock = mock(ClusterConfig.class);
+        CouchbaseBucketConfig bucketMock = mock(CouchbaseBucketConfig.class);
+        when(configMock.bucketConfig("bucket")).thenReturn(bucketMock);
+        when(bucketMock.nodes()).thenReturn(Arrays.asList(nodeInfo1, nodeInfo2));
+        when(bucketMock.numberOfPartitions()).thenReturn(1024);
+        when(bucketMock.numberOfReplicas()).thenReturn(1);
+        when(bucketMock.nodeAtIndex(0)).thenReturn(nodeInfo1);
+        when(bucketMock.nodeAtIndex(1)).thenReturn(nodeInfo2);
+        when(bucketMock.nodeIndexForMaster(656, false)).thenReturn((short) 0);
+        when(bucketMock.nodeIndexForReplica(656, 0, false)).thenReturn((short) 1);
+
+        CoreEnvironment env = mock(CoreEnvironment.class);
+        when(env.hotKeyReplicaReadThreshold()).thenReturn(3);
+
+        List<Short> replicas = new ArrayList<Short>();
+        for (int i = 0; i < 6; i++) {
+            GetRequest request = new GetRequest("key", "bucket", true);
+            locator.locateAndDispatch(request, nodes, configMock, env, null);
+            replicas.add(request.replica());
+        }
+
+        // cold until the third read, then alternating between replica and master
+        assertEquals(Arrays.asList((short) 0, (short) 0, (short) 1, (short) 0, (short) 1, (short) 0), replicas);
+        verify(node1Mock, times(4)).send(any(GetRequest.class));
+        verify(node2Mock, times(2)).send(any(GetRequest.class));
+
+        // gets which do not allow replica reads always go to the master
+        GetRequest request = new GetRequest("key", "bucket");
+        locator.locateAndDispatch(request, nodes, configMock, env, null);
+        verify(node1Mock, times(1)).send(request);
+        assertEquals(0, request.replica());
+    }
+
     @Test
     public void shouldPickFastForwardIfAvailableAndRetry() throws Exception {
         Locator locator = new KeyValueLocator();
@@ -203,4 +256,137 @@ public class KeyValueLocatorTest {
         verify(node2Mock, never()).send(getRequestMock);
     }
 
+    @Test
+    public void shouldLocateThroughRoutingTable() throws Exception {
+        KeyValueLocator locator = new KeyValueLocator();
+
+        NodeInfo nodeInfo1 = new DefaultNodeInfo("foo", "192.168.56.101:11210", Collections.EMPTY_MAP);
+        NodeInfo nodeInfo2 = new DefaultNodeInfo("foo", "192.168.56.102:11210", Collections.EMPTY_MAP);
+        List<Node> nodes = new ArrayList<Node>();
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn(NetworkAddress.create("192.168.56.101"));
+        Node node2Mock = mock(Node.class);
+        when(node2Mock.hostname()).thenReturn(NetworkAddress.create("192.168.56.102"));
+        nodes.addAll(Arrays.asList(node1Mock, node2Mock));
+
+        ClusterConfig configMock = mock(ClusterConfig.class);
+        CouchbaseBucketConfig bucketMock = mock(CouchbaseBucketConfig.class);
+        Map<String, BucketConfig> bucketConfigs = new HashMap<String, BucketConfig>();
+        bucketConfigs.put("bucket", bucketMock);
+        when(configMock.bucketConfigs()).thenReturn(bucketConfigs);
+        when(configMock.bucketConfig("bucket")).thenReturn(bucketMock);
+        when(bucketMock.name()).thenReturn("bucket");
+        when(bucketMock.nodes()).thenReturn(Arrays.asList(nodeInfo1, nodeInfo2));
+        when(bucketMock.numberOfPartitions()).thenReturn(1024);
+        when(bucketMock.numberOfReplicas()).thenReturn(1);
+        when(bucketMock.nodeAtIndex(0)).thenReturn(nodeInfo1);
+        when(bucketMock.nodeAtIndex(1)).thenReturn(nodeInfo2);
+        when(bucketMock.hasFastForwardMap()).thenReturn(true);
+        when(bucketMock.nodeIndexForMaster(656, false)).thenReturn((short) 0);
+        when(bucketMock.nodeIndexForMaster(656, true)).thenReturn((short) 1);
+        when(bucketMock.nodeIndexForReplica(656, 0, false)).thenReturn((short) 1);
+
+        locator.updateRoutingTables(configMock, nodes);
+
+        GetRequest getRequestMock = mock(GetRequest.class);
+        when(getRequestMock.bucket()).thenReturn("bucket");
+        when(getRequestMock.keyBytes()).thenReturn("key".getBytes(CharsetUtil.UTF_8));
+        when(getRequestMock.retryCount()).thenReturn(0);
+        locator.locateAndDispatch(getRequestMock, nodes, configMock, null, null);
+        verify(node1Mock, times(1)).send(getRequestMock);
+        verify(node2Mock, never()).send(getRequestMock);
+
+        when(getRequestMock.retryCount()).thenReturn(1);
+        locator.locateAndDispatch(getRequestMock, nodes, configMock, null, null);
+        verify(node1Mock, times(1)).send(getRequestMock);
+        verify(node2Mock, times(1)).send(getRequestMock);
+
+        ReplicaGetRequest replicaRequestMock = mock(ReplicaGetRequest.class);
+        when(replicaRequestMock.bucket()).thenReturn("bucket");
+        when(replicaRequestMock.keyBytes()).thenReturn("key".getBytes(CharsetUtil.UTF_8));
+        when(replicaRequestMock.replica()).thenReturn((short) 1);
+        locator.locateAndDispatch(replicaRequestMock, nodes, configMock, null, null);
+        verify(node1Mock, never()).send(replicaRequestMock);
+        verify(node2Mock, times(1)).send(replicaRequestMock);
+    }
+
+    @Test
+    public void shouldIgnoreRoutingTableOfOutdatedConfig() throws Exception {
+        KeyValueLocator locator = new KeyValueLocator();
+
+        NodeInfo nodeInfo1 = new DefaultNodeInfo("foo", "192.168.56.101:11210", Collections.EMPTY_MAP);
+        NodeInfo nodeInfo2 = new DefaultNodeInfo("foo", "192.168.56.102:11210", Collections.EMPTY_MAP);
+        List<Node> nodes = new ArrayList<Node>();
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn(NetworkAddress.create("192.168.56.101"));
+        Node node2Mock = mock(Node.class);
+        when(node2Mock.hostname()).thenReturn(NetworkAddress.create("192.168.56.102"));
+        nodes.addAll(Arrays.asList(node1Mock, node2Mock));
+
+        CouchbaseBucketConfig oldBucketMock = mock(CouchbaseBucketConfig.class);
+        when(oldBucketMock.name()).thenReturn("bucket");
+        when(oldBucketMock.nodes()).thenReturn(Arrays.asList(nodeInfo1, nodeInfo2));
+        when(oldBucketMock.numberOfPartitions()).thenReturn(1024);
+        when(oldBucketMock.nodeAtIndex(0)).thenReturn(nodeInfo1);
+        when(oldBucketMock.nodeAtIndex(1)).thenReturn(nodeInfo2);
+        when(oldBucketMock.nodeIndexForMaster(656, false)).thenReturn((short) 0);
+        ClusterConfig oldConfigMock = mock(ClusterConfig.class);
+        when(oldConfigMock.bucketConfigs()).thenReturn(
+            Collections.<String, BucketConfig>singletonMap("bucket", oldBucketMock));
+        locator.updateRoutingTables(oldConfigMock, nodes);
+
+        CouchbaseBucketConfig newBucketMock = mock(CouchbaseBucketConfig.class);
+        when(newBucketMock.name()).thenReturn("bucket");
+        when(newBucketMock.nodes()).thenReturn(Arrays.asList(nodeInfo1, nodeInfo2));
+        when(newBucketMock.numberOfPartitions()).thenReturn(1024);
+        when(newBucketMock.nodeAtIndex(1)).thenReturn(nodeInfo2);
+        when(newBucketMock.nodeIndexForMaster(656, false)).thenReturn((short) 1);
+        ClusterConfig newConfigMock = mock(ClusterConfig.class);
+        when(newConfigMock.bucketConfig("bucket")).thenReturn(newBucketMock);
+
+        GetRequest getRequestMock = mock(GetRequest.class);
+        when(getRequestMock.bucket()).thenReturn("bucket");
+        when(getRequestMock.keyBytes()).thenReturn("key".getBytes(CharsetUtil.UTF_8));
+        locator.locateAndDispatch(getRequestMock, nodes, newConfigMock, null, null);
+        verify(node1Mock, never()).send(getRequestMock);
+        verify(node2Mock, times(1)).send(getRequestMock);
+    }
+
+    @Test
+    public void shouldOnlyChangeMovedPartitionsWhenRebuildingRoutingTable() {
+        NodeInfo nodeInfo1 = new DefaultNodeInfo("foo", "192.168.56.101:11210", Collections.EMPTY_MAP);
+        NodeInfo nodeInfo2 = new DefaultNodeInfo("foo", "192.168.56.102:11210", Collections.EMPTY_MAP);
+        List<Node> nodes = Collections.emptyList();
+
+        CouchbaseBucketConfig oldBucketMock = mock(CouchbaseBucketConfig.class);
+        when(oldBucketMock.nodes()).thenReturn(Arrays.asList(nodeInfo1, nodeInfo2));
+        when(oldBucketMock.numberOfPartitions()).thenReturn(4);
+        when(oldBucketMock.numberOfReplicas()).thenReturn(1);
+        when(oldBucketMock.nodeAtIndex(0)).thenReturn(nodeInfo1);
+        when(oldBucketMock.nodeAtIndex(1)).thenReturn(nodeInfo2);
+        for (int p = 0; p < 4; p++) {
+            when(oldBucketMock.nodeIndexForMaster(p, false)).thenReturn((short) (p % 2));
+            when(oldBucketMock.nodeIndexForReplica(p, 0, false)).thenReturn((short) ((p + 1) % 2));
+        }
+        KeyValueRoutingTable oldTable = KeyValueRoutingTable.create(oldBucketMock, nodes, null);
+
+        CouchbaseBucketConfig newBucketMock = mock(CouchbaseBucketConfig.class);
+        when(newBucketMock.nodes()).thenReturn(Arrays.asList(nodeInfo1, nodeInfo2));
+        when(newBucketMock.numberOfPartitions()).thenReturn(4);
+        when(newBucketMock.numberOfReplicas()).thenReturn(1);
+        when(newBucketMock.nodeAtIndex(0)).thenReturn(nodeInfo1);
+        when(newBucketMock.nodeAtIndex(1)).thenReturn(nodeInfo2);
+        for (int p = 0; p < 4; p++) {
+            when(newBucketMock.nodeIndexForMaster(p, false)).thenReturn((short) (p == 2 ? -1 : p % 2));
+            when(newBucketMock.nodeIndexForReplica(p, 0, false)).thenReturn((short) ((p + 1) % 2));
+        }
+        KeyValueRoutingTable newTable = KeyValueRoutingTable.create(newBucketMock, nodes, oldTable);
+
+        for (int p = 0; p < 4; p++) {
+            assertEquals(p % 2, oldTable.nodeIndex(p, 0, false));
+            assertEquals(p == 2 ? -1 : p % 2, newTable.nodeIndex(p, 0, false));
+            assertEquals((p + 1) % 2, oldTable.nodeIndex(p, 1, false));
+            assertEquals((p + 1) % 2, newTable.nodeIndex(p, 1, false));
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.retry;
+
+import com.couchbase.client.core.RequestCancelledException;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.kv.GetRequest;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.functions.Action1;
+import rx.observers.TestSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link RetryScheduler}.
+ *
+ * @since 1.5.3
+ */
+public class RetrySchedulerTest {
+
+    private List<List<CouchbaseRequest>> batches;
+    private volatile CountDownLatch dispatched;
+    private RetryScheduler scheduler;
+
+    @Before
+    public void setup() {
+        batches = new CopyOnWriteArrayList<List<CouchbaseRequest>>();
+        dispatched = new CountDownLatch(1);
+        scheduler = new RetryScheduler(10, TimeUnit.MILLISECONDS, 8, new DefaultThreadFactory("cb-retry-test", true),
+            new Action1<List<CouchbaseRequest>>() {
+                @Override
+                public void call(List<CouchbaseRequest> requests) {
+                    batches.add(new ArrayList<CouchbaseRequest>(requests));
+                    for (int i = 0; i < requests.size(); i++) {
+                        dispatched.countDown();
+                    }
+                }
+            });
+    }
+
+    @After
+    public void cleanup() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldDispatchDueRetriesInOneBatch() throws Exception {
+        dispatched = new CountDownLatch(100);
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            scheduler.schedule(new GetRequest("key" + i, "bucket"), 50, TimeUnit.MILLISECONDS,
+                RetryReason.NOT_MY_VBUCKET);
+        }
+
+        assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        int total = 0;
+        for (List<CouchbaseRequest> batch : batches) {
+            total += batch.size();
+        }
+        assertEquals(100, total);
+        assertTrue(batches.size() < 100);
+    }
+
+    @Test
+    public void shouldDispatchDelaysLongerThanTheWheel() throws Exception {
+        long start = System.nanoTime();
+        scheduler.schedule(new GetRequest("key", "bucket"), 200, TimeUnit.MILLISECONDS, RetryReason.NOT_CONNECTED);
+
+        assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void shouldCountRetriesByReason() {
+        scheduler.schedule(new GetRequest("key", "bucket"), 1, TimeUnit.SECONDS, RetryReason.NOT_MY_VBUCKET);
+        scheduler.schedule(new GetRequest("key", "bucket"), 1, TimeUnit.SECONDS, RetryReason.NOT_MY_VBUCKET);
+        scheduler.schedule(new GetRequest("key", "bucket"), 1, TimeUnit.SECONDS, RetryReason.QUEUE_FULL);
+
+        assertEquals(2, scheduler.retries(RetryReason.NOT_MY_VBUCKET));
+        assertEquals(1, scheduler.retries(RetryReason.QUEUE_FULL));
+        assertEquals(0, scheduler.retries(RetryReason.NOT_CONNECTED));
+        assertEquals(0, scheduler.retries(RetryReason.BACKPRESSURE));
+    }
+
+    @Test
+    public void shouldParkWhileNoRetriesAreWaiting() throws Exception {
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+        final DefaultThreadFactory factory = new DefaultThreadFactory("cb-retry-test", true);
+        scheduler.shutdown();
+        scheduler = new RetryScheduler(10, TimeUnit.MILLISECONDS, 8, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = factory.newThread(r);
+                    threads.add(thread);
+                    return thread;
+                }
+            }, new Action1<List<CouchbaseRequest>>() {
+                @Override
+                public void call(List<CouchbaseRequest> requests) {
+                    for (int i = 0; i < requests.size(); i++) {
+                        dispatched.countDown();
+                    }
+                }
+            });
+
+        scheduler.schedule(new GetRequest("key", "bucket"), 10, TimeUnit.MILLISECONDS, RetryReason.NOT_CONNECTED);
+        assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        Thread worker = threads.get(0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (worker.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, worker.getState());
+
+        dispatched = new CountDownLatch(1);
+        long start = System.nanoTime();
+        scheduler.schedule(new GetRequest("key", "bucket"), 50, TimeUnit.MILLISECONDS, RetryReason.NOT_CONNECTED);
+        assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void shouldCancelPendingRetriesOnShutdown() throws Exception {
+        GetRequest request = new GetRequest("key", "bucket");
+        TestSubscriber<Object> subscriber = TestSubscriber.create();
+        request.observable().subscribe(subscriber);
+
+        scheduler.schedule(request, 1, TimeUnit.MINUTES, RetryReason.BACKPRESSURE);
+        scheduler.shutdown();
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(RequestCancelledException.class);
+
+        GetRequest late = new GetRequest("key", "bucket");
+        TestSubscriber<Object> lateSubscriber = TestSubscriber.create();
+        late.observable().subscribe(lateSubscriber);
+        scheduler.schedule(late, 1, TimeUnit.MILLISECONDS, RetryReason.BACKPRESSURE);
+        lateSubscriber.assertError(RequestCancelledException.class);
+        assertTrue(batches.isEmpty());
+    }
+}
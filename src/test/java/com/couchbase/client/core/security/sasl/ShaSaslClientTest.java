@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.security.sasl;
+
+import com.couchbase.client.core.utils.Base64;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.CallbackHandler;
+import javax.security.auth.callback.NameCallback;
+import javax.security.auth.callback.PasswordCallback;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link ShaSaslClient}.
+ *
+ * @since 1.5.3
+ */
+public class ShaSaslClientTest {
+
+    private static final byte[] SALT = "saltsaltsaltsalt".getBytes();
+    private static final int ITERATIONS = 4096;
+
+    @Test
+    public void shouldAuthenticateWithCachedKeys() throws Exception {
+        authenticate("user", "password");
+        authenticate("user", "password");
+    }
+
+    @Test
+    public void shouldNotShareKeysAcrossPasswords() throws Exception {
+        authenticate("user", "password");
+        authenticate("user", "changed");
+    }
+
+    /**
+     * Runs a full SCRAM-SHA256 handshake against the proof and signature the server expects, computed
+     * with the PBKDF2 implementation of the JVM.
+     */
+    private static void authenticate(final String user, final String password) throws Exception {
+        ShaSaslClient client = new ShaSaslClient(new CallbackHandler() {
+            @Override
+            public void handle(final Callback[] callbacks) {
+                for (Callback callback : callbacks) {
+                    if (callback instanceof NameCallback) {
+                        ((NameCallback) callback).setName(user);
+                    } else if (callback instanceof PasswordCallback) {
+                        ((PasswordCallback) callback).setPassword(password.toCharArray());
+                    }
+                }
+            }
+        }, 256);
+
+        String clientFirst = new String(client.evaluateChallenge(new byte[0]));
+        String clientFirstBare = clientFirst.substring(3);
+        String nonce = clientFirstBare.substring(clientFirstBare.indexOf(",r=") + 3) + "server";
+        String serverFirst = "r=" + nonce + ",s=" + Base64.encode(SALT) + ",i=" + ITERATIONS;
+        String clientFinal = new String(client.evaluateChallenge(serverFirst.getBytes()));
+
+        String clientFinalNoProof = "c=biws,r=" + nonce;
+        assertTrue(clientFinal.startsWith(clientFinalNoProof + ",p="));
+        String authMessage = clientFirstBare + "," + serverFirst + "," + clientFinalNoProof;
+
+        byte[] saltedPassword = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+            .generateSecret(new PBEKeySpec(password.toCharArray(), SALT, ITERATIONS, 256))
+            .getEncoded();
+        byte[] clientKey = hmac(saltedPassword, "Client Key".getBytes());
+        byte[] clientSignature = hmac(MessageDigest.getInstance("SHA-256").digest(clientKey), authMessage.getBytes());
+        for (int i = 0; i < clientKey.length; i++) {
+            clientKey[i] ^= clientSignature[i];
+        }
+        assertEquals(Base64.encode(clientKey), clientFinal.substring(clientFinalNoProof.length() + 3));
+
+        byte[] serverSignature = hmac(hmac(saltedPassword, "Server Key".getBytes()), authMessage.getBytes());
+        client.evaluateChallenge(("v=" + Base64.encode(serverSignature)).getBytes());
+        assertTrue(client.isComplete());
+    }
+
+    private static byte[] hmac(final byte[] key, final byte[] data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data);
+    }
+}
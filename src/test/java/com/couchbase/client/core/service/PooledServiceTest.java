@@ -40,6 +40,8 @@ import rx.subjects.AsyncSubject;
 import rx.subjects.BehaviorSubject;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.couchbase.client.core.service.PooledServiceTest.SimpleSerivceConfig.ssc;
 import static org.junit.Assert.assertEquals;
@@ -321,6 +323,28 @@ public class PooledServiceTest {
         subscriber.assertError(RequestCancelledException.class);
     }
 
+    @Test
+    public void shouldFailExpiredRequestInsteadOfSending() {
+        EndpointFactoryMock ef = EndpointFactoryMock.simple(ENV, null);
+        SelectionStrategy ss = mock(SelectionStrategy.class);
+
+        MockedService ms = new MockedService(ServiceType.BINARY, ef, ssc(2, 2), ss);
+        ms.connect().toBlocking().single();
+        ef.advanceAll(LifecycleState.CONNECTED);
+
+        Tuple2<CouchbaseRequest, TestSubscriber<CouchbaseResponse>> mr = mockRequest();
+        CouchbaseRequest request = mr.value1();
+        TestSubscriber<CouchbaseResponse> subscriber = mr.value2();
+        when(request.isExpired()).thenReturn(true);
+        when(ss.select(same(request), any(List.class))).thenReturn(ef.endpoints().get(0));
+
+        ms.send(request);
+
+        assertEquals(0, ef.endpointSendCalled());
+        subscriber.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        subscriber.assertError(TimeoutException.class);
+    }
+
     @Test
     public void shouldPropagateFlushToAllEndpoints() {
         EndpointFactoryMock ef = EndpointFactoryMock.simple(ENV, null);
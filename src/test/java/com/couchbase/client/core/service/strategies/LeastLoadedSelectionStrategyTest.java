@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.service.strategies;
+
+import com.couchbase.client.core.endpoint.AbstractEndpoint;
+import com.couchbase.client.core.endpoint.Endpoint;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.state.LifecycleState;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link LeastLoadedSelectionStrategy}.
+ *
+ * @since 1.5.3
+ */
+public class LeastLoadedSelectionStrategyTest {
+
+    private final Map<Endpoint, Long> loads = new HashMap<Endpoint, Long>();
+
+    private final SelectionStrategy strategy = new LeastLoadedSelectionStrategy() {
+        @Override
+        protected long load(final Endpoint endpoint) {
+            return loads.get(endpoint);
+        }
+    };
+
+    @Test
+    public void shouldReturnIfEmptyArrayPassedIn() {
+        assertNull(strategy.select(mock(CouchbaseRequest.class), Collections.<Endpoint>emptyList()));
+    }
+
+    @Test
+    public void shouldOnlySelectConnectedAndFreeEndpoints() {
+        Endpoint disconnected = endpoint(false, true, 0);
+        Endpoint busy = endpoint(true, false, 0);
+        Endpoint usable = endpoint(true, true, 10);
+        List<Endpoint> endpoints = Arrays.asList(disconnected, busy, usable, busy, disconnected);
+
+        for (int i = 0; i < 1000; i++) {
+            assertSame(usable, strategy.select(mock(CouchbaseRequest.class), endpoints));
+        }
+    }
+
+    @Test
+    public void shouldReturnNullIfNoEndpointIsUsable() {
+        List<Endpoint> endpoints = Arrays.asList(endpoint(false, true, 0), endpoint(true, false, 0),
+            endpoint(false, false, 0));
+        assertNull(strategy.select(mock(CouchbaseRequest.class), endpoints));
+    }
+
+    @Test
+    public void shouldPreferLessLoadedOfTwoEndpoints() {
+        Endpoint slow = endpoint(true, true, 50);
+        Endpoint fast = endpoint(true, true, 1);
+        List<Endpoint> endpoints = Arrays.asList(slow, fast);
+
+        for (int i = 0; i < 100; i++) {
+            assertSame(fast, strategy.select(mock(CouchbaseRequest.class), endpoints));
+        }
+    }
+
+    @Test
+    public void shouldSteerAwayFromLoadedEndpoints() {
+        Endpoint loaded = endpoint(true, true, 1000);
+        List<Endpoint> endpoints = Arrays.asList(loaded, endpoint(true, true, 2), endpoint(true, true, 3),
+            endpoint(true, true, 4));
+
+        Map<Endpoint, Integer> selections = new HashMap<Endpoint, Integer>();
+        for (int i = 0; i < 1000; i++) {
+            Endpoint selected = strategy.select(mock(CouchbaseRequest.class), endpoints);
+            assertNotNull(selected);
+            Integer count = selections.get(selected);
+            selections.put(selected, count == null ? 1 : count + 1);
+        }
+
+        // the loaded endpoint loses every comparison, all others win at least one
+        assertNull(selections.get(loaded));
+        assertEquals(3, selections.size());
+    }
+
+    @Test
+    public void shouldCalculateLoadFromOutstandingRequestsAndLatency() {
+        LeastLoadedSelectionStrategy strategy = new LeastLoadedSelectionStrategy();
+        assertEquals(3, strategy.load(trackingEndpoint(2, 0)));
+        assertEquals(3000, strategy.load(trackingEndpoint(2, 1000)));
+        assertEquals(0, strategy.load(mock(Endpoint.class)));
+        assertTrue(strategy.load(trackingEndpoint(0, 0)) < strategy.load(trackingEndpoint(0, 1000)));
+    }
+
+    private Endpoint endpoint(boolean connected, boolean free, long load) {
+        Endpoint endpoint = mock(Endpoint.class);
+        when(endpoint.isState(LifecycleState.CONNECTED)).thenReturn(connected);
+        when(endpoint.isFree()).thenReturn(free);
+        loads.put(endpoint, load);
+        return endpoint;
+    }
+
+    private static Endpoint trackingEndpoint(int outstanding, long latency) {
+        AbstractEndpoint endpoint = mock(AbstractEndpoint.class);
+        when(endpoint.outstandingRequests()).thenReturn(outstanding);
+        when(endpoint.averageLatency()).thenReturn(latency);
+        return endpoint;
+    }
+}
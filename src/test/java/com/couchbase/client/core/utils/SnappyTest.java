@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link Snappy} codec.
+ *
+ * @since 1.5.3
+ */
+public class SnappyTest {
+
+    @Test
+    public void shouldRoundTripShortInput() {
+        assertRoundTrip("".getBytes(CharsetUtil.UTF_8));
+        assertRoundTrip("a".getBytes(CharsetUtil.UTF_8));
+        assertRoundTrip("hello world".getBytes(CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void shouldCompressRepetitiveInput() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("{\"name\":\"couchbase\",\"type\":\"user\",\"id\":").append(i).append("},");
+        }
+        byte[] input = sb.toString().getBytes(CharsetUtil.UTF_8);
+
+        ByteBuf compressed = assertRoundTrip(input);
+        assertTrue(compressed.readableBytes() < input.length / 4);
+    }
+
+    @Test
+    public void shouldRoundTripRunOfSingleByte() {
+        byte[] input = new byte[1000];
+        ByteBuf compressed = assertRoundTrip(input);
+        assertTrue(compressed.readableBytes() < 100);
+    }
+
+    @Test
+    public void shouldRoundTripIncompressibleInput() {
+        byte[] input = new byte[4096];
+        new Random(42).nextBytes(input);
+        ByteBuf compressed = assertRoundTrip(input);
+        assertTrue(compressed.readableBytes() <= Snappy.maxEncodedLength(input.length));
+    }
+
+    @Test
+    public void shouldRoundTripInputLargerThanFragment() {
+        byte[] input = new byte[200000];
+        Random random = new Random(1);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) ('a' + random.nextInt(4));
+        }
+        assertRoundTrip(input);
+    }
+
+    @Test
+    public void shouldDecodeLiteralOnlyBlock() {
+        ByteBuf in = Unpooled.buffer();
+        in.writeByte(3);
+        in.writeByte(2 << 2);
+        in.writeBytes("abc".getBytes(CharsetUtil.UTF_8));
+        assertEquals(3, Snappy.decodedLength(in));
+
+        ByteBuf out = Unpooled.buffer();
+        Snappy.decode(in, out);
+        assertEquals("abc", out.toString(CharsetUtil.UTF_8));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnInvalidOffset() {
+        ByteBuf in = Unpooled.buffer();
+        in.writeByte(8);
+        in.writeByte(0x01 | (4 << 2));
+        in.writeByte(5);
+        Snappy.decode(in, Unpooled.buffer());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnLengthMismatch() {
+        ByteBuf in = Unpooled.buffer();
+        in.writeByte(10);
+        in.writeByte(2 << 2);
+        in.writeBytes("abc".getBytes(CharsetUtil.UTF_8));
+        Snappy.decode(in, Unpooled.buffer());
+    }
+
+    private static ByteBuf assertRoundTrip(final byte[] input) {
+        ByteBuf compressed = Unpooled.buffer();
+        Snappy.encode(Unpooled.wrappedBuffer(input), compressed);
+        assertEquals(input.length, Snappy.decodedLength(compressed));
+
+        ByteBuf decoded = Unpooled.buffer();
+        Snappy.decode(compressed.duplicate(), decoded);
+        byte[] output = new byte[decoded.readableBytes()];
+        decoded.readBytes(output);
+        assertEquals(input.length, output.length);
+        for (int i = 0; i < input.length; i++) {
+            assertEquals("Mismatch at " + i, input[i], output[i]);
+        }
+        return compressed;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017 Couchbase, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.couchbase.client.core.utils.yasjl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies the functionality of the {@link JsonByteBufScanner}, compared against the byte by byte
+ * processors.
+ *
+ * @since 1.5.3
+ */
+public class JsonByteBufScannerTest {
+
+    @Test
+    public void shouldFindStringEnd() throws Exception {
+        assertStringEnd("abc\"");
+        assertStringEnd("a long string without escapes\", \"next\"");
+        assertStringEnd("escaped \\\" quote and \\\\\" backslash");
+        assertStringEnd("1234567\\\"89\"");
+        assertStringEnd("\"");
+        assertStringEnd("not complete yet");
+        assertStringEnd("ends with an escape \\");
+    }
+
+    @Test
+    public void shouldFindObjectEnd() throws Exception {
+        assertObjectEnd("}");
+        assertObjectEnd("\"id\":1,\"name\":\"user 1\",\"tags\":[\"a\",\"b\"],\"nested\":{\"x\":{}}},{");
+        assertObjectEnd("\"brackets in strings\":\"}}}{{{\",\"escaped\":\"\\\"}\"}");
+        assertObjectEnd("\"not\":{\"complete\":\"yet\"}");
+        assertObjectEnd("\"string not complete\":\"}");
+    }
+
+    @Test
+    public void shouldFindArrayEnd() throws Exception {
+        assertArrayEnd("]");
+        assertArrayEnd("1,2,[3,[4]],\"]\",{\"a\":[]}],");
+        assertArrayEnd("[[[\"not complete\"]]");
+    }
+
+    @Test
+    public void shouldSkipWhitespace() throws Exception {
+        assertWhitespace("x");
+        assertWhitespace(" \t\r\n x");
+        assertWhitespace("\n                                  {");
+        assertWhitespace("                ");
+        assertWhitespace("");
+    }
+
+    @Test
+    public void shouldMatchProcessorsOnRandomInput() throws Exception {
+        Random random = new Random(42);
+        char[] alphabet = {'a', '1', ' ', '"', '\\', '{', '}', '[', ']', ',', ':', '\n'};
+        for (int i = 0; i < 5000; i++) {
+            char[] chars = new char[random.nextInt(40)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String input = new String(chars);
+            assertStringEnd(input);
+            assertObjectEnd(input);
+            assertArrayEnd(input);
+            assertWhitespace(input);
+        }
+    }
+
+    private static void assertStringEnd(String input) throws Exception {
+        ByteBuf buf = buffer(input);
+        assertEquals(input, buf.forEachByte(new JsonStringByteBufProcessor()),
+            JsonByteBufScanner.stringEnd(buf, buf.readerIndex(), buf.writerIndex()));
+    }
+
+    private static void assertObjectEnd(String input) throws Exception {
+        ByteBuf buf = buffer(input);
+        assertEquals(input, buf.forEachByte(new JsonObjectByteBufProcessor(new JsonStringByteBufProcessor())),
+            JsonByteBufScanner.objectEnd(buf, buf.readerIndex(), buf.writerIndex()));
+    }
+
+    private static void assertArrayEnd(String input) throws Exception {
+        ByteBuf buf = buffer(input);
+        assertEquals(input, buf.forEachByte(new JsonArrayByteBufProcessor(new JsonStringByteBufProcessor())),
+            JsonByteBufScanner.arrayEnd(buf, buf.readerIndex(), buf.writerIndex()));
+    }
+
+    private static void assertWhitespace(String input) throws Exception {
+        ByteBuf buf = buffer(input);
+        ByteBufProcessor processor = new JsonWhiteSpaceByteBufProcessor();
+        assertEquals(input, buf.forEachByte(processor),
+            JsonByteBufScanner.skipWhitespace(buf, buf.readerIndex(), buf.writerIndex()));
+    }
+
+    /**
+     * Creates a buffer which does not start at index 0, so the scans have to respect the reader index.
+     */
+    private static ByteBuf buffer(String input) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes("xyz".getBytes(CharsetUtil.UTF_8));
+        buf.writeBytes(input.getBytes(CharsetUtil.UTF_8));
+        buf.skipBytes(3);
+        return buf;
+    }
+}